@@ -0,0 +1,75 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client;
+
+import org.apache.http.entity.ByteArrayEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory gzip compression of the test results and logs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GzipEntityBenchmark {
+
+    @Param({"1024", "65536", "1048576"})
+    private int payloadSize;
+
+    private MqmRestClientImpl client;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() {
+        client = new MqmRestClientImpl(new MqmConnectionConfig("http://localhost:8080/qcbin", "1001", "user", "password", "benchmark"));
+        StringBuilder builder = new StringBuilder("<test_result><build server_id=\"server\" job_id=\"job\" build_id=\"1\"/><test_runs>");
+        for (int i = 0; builder.length() < payloadSize; i++) {
+            builder.append("<test_run module=\"module\" package=\"com.example\" class=\"TestClass").append(i % 100)
+                    .append("\" name=\"testMethod").append(i).append("\" duration=\"").append(i % 1000)
+                    .append("\" status=\"Passed\" started=\"1494844000000\"/>");
+        }
+        builder.setLength(payloadSize);
+        payload = builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+    }
+
+    @Benchmark
+    public ByteArrayEntity createGZipEntity() {
+        return client.createGZipEntity(new ByteArrayInputStream(payload), "benchmark");
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client;
+
+import com.hp.mqm.client.model.Pipeline;
+import com.hp.mqm.client.model.Taxonomy;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion of the job configuration JSON to the model.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelConversionBenchmark {
+
+    private MqmRestClientImpl client;
+    private JSONObject pipeline;
+    private JSONObject taxonomy;
+
+    @Setup
+    public void setUp() {
+        client = new MqmRestClientImpl(new MqmConnectionConfig("http://localhost:8080/qcbin", "1001", "user", "password", "benchmark"));
+        taxonomy = taxonomy(3001, "Chrome", taxonomy(3000, "Browser", null));
+
+        JSONArray taxonomies = new JSONArray();
+        for (int i = 0; i < 10; i++) {
+            taxonomies.add(taxonomy(3100 + i, "Value " + i, taxonomy(3000 + i % 3, "Category " + i % 3, null)));
+        }
+        JSONObject listFields = new JSONObject();
+        for (int i = 0; i < 3; i++) {
+            JSONArray values = new JSONArray();
+            for (int j = 0; j < 5; j++) {
+                JSONObject value = new JSONObject();
+                value.put("id", "list_node.field" + i + ".value" + j);
+                value.put("name", "Value " + j);
+                values.add(value);
+            }
+            listFields.put("field" + i, values);
+        }
+        pipeline = new JSONObject();
+        pipeline.put("contextEntityType", "pipeline");
+        pipeline.put("contextEntityId", 1001);
+        pipeline.put("contextEntityName", "Pipeline");
+        pipeline.put("pipelineRoot", true);
+        pipeline.put("workspaceId", 1002);
+        pipeline.put("releaseId", 1003);
+        pipeline.put("ignoreTests", false);
+        pipeline.put("taxonomies", taxonomies);
+        pipeline.put("listFields", listFields);
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+    }
+
+    private static JSONObject taxonomy(long id, String name, JSONObject parent) {
+        JSONObject taxonomy = new JSONObject();
+        taxonomy.put("id", id);
+        taxonomy.put("name", name);
+        if (parent != null) {
+            taxonomy.put("parent", parent);
+        }
+        return taxonomy;
+    }
+
+    @Benchmark
+    public Pipeline toPipeline() {
+        return client.toPipeline(pipeline);
+    }
+
+    @Benchmark
+    public Taxonomy toTaxonomy() {
+        return client.toTaxonomy(taxonomy);
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client;
+
+import com.hp.mqm.client.model.PagedList;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.message.BasicHttpResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion of the entity collection responses to {@link PagedList} by the entity factories.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PagedListConversionBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int entityCount;
+
+    @Param({"entity", "taxonomy", "release"})
+    private String factory;
+
+    private MqmRestClientImpl client;
+    private AbstractMqmRestClient.EntityFactory<?> entityFactory;
+    private byte[] body;
+
+    @Setup
+    public void setUp() {
+        client = new MqmRestClientImpl(new MqmConnectionConfig("http://localhost:8080/qcbin", "1001", "user", "password", "benchmark"));
+        switch (factory) {
+            case "taxonomy":
+                entityFactory = new MqmRestClientImpl.TaxonomyEntityFactory();
+                break;
+            case "release":
+                entityFactory = new MqmRestClientImpl.ReleaseEntityFactory();
+                break;
+            default:
+                entityFactory = new MqmRestClientImpl.GeneralEntityFactory();
+        }
+        JSONArray data = new JSONArray();
+        for (int i = 0; i < entityCount; i++) {
+            JSONObject category = new JSONObject();
+            category.put("type", "taxonomy_category_node");
+            category.put("id", 2000 + i % 10);
+            category.put("name", "Environment " + i % 10);
+            JSONObject entity = new JSONObject();
+            entity.put("type", "taxonomy_item_node");
+            entity.put("id", 1000 + i);
+            entity.put("name", "Entity name " + i);
+            entity.put("last_modified", "2017-05-15T10:00:00Z");
+            entity.put("category", category);
+            data.add(entity);
+        }
+        JSONObject response = new JSONObject();
+        response.put("total_count", entityCount);
+        response.put("data", data);
+        body = response.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+    }
+
+    @Benchmark
+    public PagedList<?> convert() throws IOException {
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        response.setEntity(new ByteArrayEntity(body, ContentType.APPLICATION_JSON));
+        return client.convertResponceToPagedList(entityFactory, 0, response);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building of the query conditions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryHelperBenchmark {
+
+    private long[] ids;
+    private List<String> names;
+
+    @Setup
+    public void setUp() {
+        ids = new long[100];
+        names = new ArrayList<>();
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = 1000000 + i;
+            names.add("name " + i);
+        }
+    }
+
+    @Benchmark
+    public String conditionPlain() {
+        return QueryHelper.condition("name", "Plain release name");
+    }
+
+    @Benchmark
+    public String conditionEscaped() {
+        return QueryHelper.condition("name", "It's \"quoted\" with \\ backslash");
+    }
+
+    @Benchmark
+    public String conditionInIds() {
+        return QueryHelper.conditionIn("id", ids);
+    }
+
+    @Benchmark
+    public String conditionInNames() {
+        return QueryHelper.conditionIn("name", names, false);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hp.mqm.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request execution path of the client (session cookie, headers, retry and metrics wrapping) at high request rate
+ * against a minimal local server, so that the client overhead dominates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 8, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(value = 1, jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true")
+public class RequestExecutionBenchmark {
+
+    private static final String EVENTS = "{\"server\":{\"type\":\"jenkins\",\"instanceId\":\"server\"},\"events\":[{\"eventType\":\"started\",\"project\":\"job\",\"number\":\"1\"}]}";
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private MqmRestClientImpl client;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        executor = Executors.newFixedThreadPool(16);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 256);
+        server.setExecutor(executor);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                InputStream body = exchange.getRequestBody();
+                byte[] buffer = new byte[4096];
+                while (body.read(buffer) >= 0) {
+                    // drain the request, unread body closes the connection
+                }
+                if (exchange.getRequestURI().getPath().endsWith("/authentication/sign_in")) {
+                    exchange.getResponseHeaders().add("Set-Cookie", "LWSSO_COOKIE_KEY=benchmark-token; Path=/");
+                }
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+            }
+        });
+        server.start();
+        String location = "http://" + server.getAddress().getAddress().getHostAddress() + ":" + server.getAddress().getPort();
+        client = new MqmRestClientImpl(new MqmConnectionConfig(location, "1001", "user", "password", "benchmark"));
+        client.validateConfiguration();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public void get() {
+        client.validateConfigurationWithoutLogin();
+    }
+
+    @Benchmark
+    public boolean putEvents() {
+        return client.putEvents(EVENTS);
+    }
+}
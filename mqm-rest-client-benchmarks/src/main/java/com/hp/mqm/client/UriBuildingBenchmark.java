@@ -0,0 +1,87 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Template resolving and URI building done for every request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UriBuildingBenchmark {
+
+    private MqmRestClientImpl client;
+    private Map<String, Object> params;
+    private List<String> conditions;
+    private List<String> fields;
+
+    @Setup
+    public void setUp() {
+        client = new MqmRestClientImpl(new MqmConnectionConfig("http://localhost:8080/qcbin", "1001", "user", "password", "benchmark"));
+        params = new HashMap<>();
+        params.put("0", "jenkins-server-identity");
+        params.put("1", "task id/with special characters");
+        conditions = Arrays.asList(QueryHelper.condition("name", "release*"), QueryHelper.conditionRef("release", 1003));
+        fields = Arrays.asList("id", "name", "last_modified");
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+    }
+
+    @Benchmark
+    public String resolveTemplate() {
+        return client.resolveTemplate("analytics/ci/servers/{0}/tasks/{1}/result", params);
+    }
+
+    @Benchmark
+    public URI sharedSpaceInternalApiUri() {
+        return client.createSharedSpaceInternalApiUri("analytics/ci/servers/{0}/jobs/{1}/configuration", "jenkins-server-identity", "job name");
+    }
+
+    @Benchmark
+    public URI workspaceApiUri() {
+        return client.createWorkspaceApiUri("releases/{0}", 1002, 1003);
+    }
+
+    @Benchmark
+    public URI entityUri() {
+        return client.getEntityURI("releases", conditions, fields, 1002L, 0, 100, "name");
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Gzip compression of a request body. Event is committed when the compression is over, its length is in {@link #compressionTime}.
+ */
+@Name("com.hp.mqm.client.Compression")
+@Label("Octane Request Compression")
+@Category({"Octane", "Client"})
+@StackTrace(false)
+class CompressionEvent extends Event {
+
+    @Label("Endpoint")
+    String endpoint;
+
+    @Label("Uncompressed Size")
+    @DataAmount
+    long uncompressedBytes;
+
+    @Label("Compressed Size")
+    @DataAmount
+    long compressedBytes;
+
+    @Label("Compression Time")
+    @Timespan
+    long compressionTime;
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client.jfr;
+
+import com.hp.mqm.client.MqmConnectionConfig;
+import com.hp.mqm.client.interceptor.CorrelationIdInterceptor;
+import com.hp.mqm.client.interceptor.RequestContext;
+import com.hp.mqm.client.interceptor.RequestInterceptor;
+import com.hp.mqm.client.metrics.InMemoryMetrics;
+import com.hp.mqm.client.metrics.MetricsListener;
+import com.hp.mqm.client.metrics.RequestMetrics;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import org.apache.http.HttpResponse;
+
+/**
+ * Emits Flight Recorder events for the activity of the client: requests, logins, compression of the request bodies
+ * and parsing of the response bodies. Events are created only while a recording with the events enabled
+ * is running, otherwise the overhead is a check of the event state. All calls are forwarded to the original listener.
+ *
+ * Install into the configuration before the client is created:
+ * <pre>
+ *     FlightRecorderMetrics.install(connectionConfig);
+ * </pre>
+ */
+public class FlightRecorderMetrics implements MetricsListener, RequestInterceptor {
+
+    private static final EventType REQUEST = EventType.getEventType(RequestEvent.class);
+    private static final EventType LOGIN = EventType.getEventType(LoginEvent.class);
+    private static final EventType COMPRESSION = EventType.getEventType(CompressionEvent.class);
+    private static final EventType JSON_PARSING = EventType.getEventType(JsonParsingEvent.class);
+
+    // request is executed on the calling thread, the event is begun by the interceptor and completed by the listener
+    private static final ThreadLocal<RequestEvent> CURRENT_REQUEST = new ThreadLocal<>();
+
+    private final MetricsListener delegate;
+
+    /**
+     * @param delegate listener receiving all the calls
+     */
+    public FlightRecorderMetrics(MetricsListener delegate) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Delegate listener cannot be null.");
+        }
+        this.delegate = delegate;
+    }
+
+    /**
+     * Registers the events into the configuration: the configured metrics listener (or the default one) is wrapped
+     * and the interceptor is appended to the chain (after {@link CorrelationIdInterceptor} if registered, so that
+     * the events carry the correlation id). Does nothing when Flight Recorder is not available in the JVM.
+     *
+     * @param connectionConfig configuration of the client
+     * @return true if the events were installed
+     */
+    public static boolean install(MqmConnectionConfig connectionConfig) {
+        if (!FlightRecorder.isAvailable()) {
+            return false;
+        }
+        MetricsListener listener = connectionConfig.getMetricsListener() != null ? connectionConfig.getMetricsListener() : new InMemoryMetrics();
+        FlightRecorderMetrics metrics = new FlightRecorderMetrics(listener);
+        connectionConfig.setMetricsListener(metrics);
+        connectionConfig.addRequestInterceptor(metrics);
+        return true;
+    }
+
+    public MetricsListener getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void beforeSend(RequestContext context) {
+        if (!REQUEST.isEnabled()) {
+            CURRENT_REQUEST.remove();
+            return;
+        }
+        RequestEvent event = new RequestEvent();
+        event.correlationId = (String) context.getAttribute(CorrelationIdInterceptor.ATTRIBUTE_CORRELATION_ID);
+        event.begin();
+        CURRENT_REQUEST.set(event);
+    }
+
+    @Override
+    public void afterReceive(RequestContext context, HttpResponse response) {
+    }
+
+    @Override
+    public void onError(RequestContext context, Exception error) {
+    }
+
+    @Override
+    public void onRequest(RequestMetrics metrics) {
+        delegate.onRequest(metrics);
+        RequestEvent event = CURRENT_REQUEST.get();
+        if (event == null) {
+            return;
+        }
+        CURRENT_REQUEST.remove();
+        event.end();
+        if (event.shouldCommit()) {
+            event.endpoint = metrics.getEndpoint();
+            event.method = metrics.getMethod();
+            event.statusCode = metrics.getStatusCode();
+            event.requestBytes = metrics.getRequestBytes();
+            event.responseContentLength = metrics.getResponseContentLength();
+            event.attempt = metrics.getAttempt();
+            event.relogin = metrics.isRelogin();
+            event.poolWait = metrics.getPoolWait();
+            event.commit();
+        }
+    }
+
+    @Override
+    public void onResponseBody(String endpoint, long bytes) {
+        delegate.onResponseBody(endpoint, bytes);
+    }
+
+    @Override
+    public void onCompression(String endpoint, long uncompressedBytes, long compressedBytes, long duration) {
+        delegate.onCompression(endpoint, uncompressedBytes, compressedBytes, duration);
+        if (COMPRESSION.isEnabled()) {
+            CompressionEvent event = new CompressionEvent();
+            if (event.shouldCommit()) {
+                event.endpoint = endpoint;
+                event.uncompressedBytes = uncompressedBytes;
+                event.compressedBytes = compressedBytes;
+                event.compressionTime = duration;
+                event.commit();
+            }
+        }
+    }
+
+    @Override
+    public void onJsonParsing(String endpoint, long length, long duration) {
+        delegate.onJsonParsing(endpoint, length, duration);
+        if (JSON_PARSING.isEnabled()) {
+            JsonParsingEvent event = new JsonParsingEvent();
+            if (event.shouldCommit()) {
+                event.endpoint = endpoint;
+                event.length = length;
+                event.parsingTime = duration;
+                event.commit();
+            }
+        }
+    }
+
+    @Override
+    public void onLogin(boolean relogin, boolean success, long duration) {
+        delegate.onLogin(relogin, success, duration);
+        if (LOGIN.isEnabled()) {
+            LoginEvent event = new LoginEvent();
+            if (event.shouldCommit()) {
+                event.relogin = relogin;
+                event.success = success;
+                event.loginTime = duration;
+                event.commit();
+            }
+        }
+    }
+}
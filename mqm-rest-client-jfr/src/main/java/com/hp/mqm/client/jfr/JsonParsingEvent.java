@@ -0,0 +1,43 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Parsing of JSON response body. Event is committed when the parsing is over, its length is in {@link #parsingTime}.
+ */
+@Name("com.hp.mqm.client.JsonParsing")
+@Label("Octane JSON Parsing")
+@Category({"Octane", "Client"})
+@StackTrace(false)
+class JsonParsingEvent extends Event {
+
+    @Label("Endpoint")
+    String endpoint;
+
+    @Label("Length")
+    long length;
+
+    @Label("Parsing Time")
+    @Timespan
+    long parsingTime;
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Authentication to Octane. Event is committed when the authentication is over, its length is in {@link #loginTime}.
+ */
+@Name("com.hp.mqm.client.Login")
+@Label("Octane Login")
+@Category({"Octane", "Client"})
+@StackTrace(false)
+class LoginEvent extends Event {
+
+    @Label("Relogin")
+    boolean relogin;
+
+    @Label("Success")
+    boolean success;
+
+    @Label("Login Time")
+    @Timespan
+    long loginTime;
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * One attempt of a request to Octane, the duration spans from sending the request until the response headers are received.
+ */
+@Name("com.hp.mqm.client.Request")
+@Label("Octane Request")
+@Category({"Octane", "Client"})
+@StackTrace(false)
+class RequestEvent extends Event {
+
+    @Label("Endpoint")
+    String endpoint;
+
+    @Label("Method")
+    String method;
+
+    @Label("Status Code")
+    int statusCode;
+
+    @Label("Request Bytes")
+    @DataAmount
+    long requestBytes;
+
+    @Label("Response Content Length")
+    @DataAmount
+    long responseContentLength;
+
+    @Label("Attempt")
+    int attempt;
+
+    @Label("Relogin")
+    boolean relogin;
+
+    @Label("Connection Pool Wait")
+    @Timespan
+    long poolWait;
+
+    @Label("Correlation Id")
+    String correlationId;
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hp.mqm.client.jfr;
+
+import com.hp.mqm.client.MqmConnectionConfig;
+import com.hp.mqm.client.interceptor.RequestContext;
+import com.hp.mqm.client.metrics.InMemoryMetrics;
+import com.hp.mqm.client.metrics.RequestMetrics;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.apache.http.client.methods.HttpGet;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class FlightRecorderMetricsTest {
+
+	@Test
+	public void testEvents() throws IOException {
+		InMemoryMetrics inMemoryMetrics = new InMemoryMetrics();
+		FlightRecorderMetrics metrics = new FlightRecorderMetrics(inMemoryMetrics);
+		Path file = Files.createTempFile(getClass().getSimpleName(), ".jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable(RequestEvent.class);
+			recording.enable(LoginEvent.class);
+			recording.enable(CompressionEvent.class);
+			recording.enable(JsonParsingEvent.class);
+			recording.start();
+
+			metrics.beforeSend(new RequestContext(new HttpGet("http://localhost/test"), "analytics/ci/events"));
+			metrics.onRequest(new RequestMetrics("analytics/ci/events", "PUT", 200, 1000, 10, 20, 2, true, 30));
+			metrics.onLogin(true, true, 1000);
+			metrics.onCompression("analytics/ci/events", 100, 10, 1000);
+			metrics.onJsonParsing("analytics/ci/events", 20, 1000);
+
+			recording.stop();
+			recording.dump(file);
+		}
+		try {
+			List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+			Map<String, RecordedEvent> byName = new HashMap<>();
+			for (RecordedEvent event : events) {
+				byName.put(event.getEventType().getName(), event);
+			}
+			RecordedEvent request = byName.get("com.hp.mqm.client.Request");
+			Assert.assertNotNull(request);
+			Assert.assertEquals("analytics/ci/events", request.getString("endpoint"));
+			Assert.assertEquals(200, request.getInt("statusCode"));
+			Assert.assertEquals(2, request.getInt("attempt"));
+			Assert.assertTrue(request.getBoolean("relogin"));
+			Assert.assertTrue(byName.get("com.hp.mqm.client.Login").getBoolean("relogin"));
+			Assert.assertEquals(100, byName.get("com.hp.mqm.client.Compression").getLong("uncompressedBytes"));
+			Assert.assertEquals(20, byName.get("com.hp.mqm.client.JsonParsing").getLong("length"));
+		} finally {
+			Files.delete(file);
+		}
+
+		// calls are forwarded
+		Assert.assertEquals(1, inMemoryMetrics.getEndpoints().get("analytics/ci/events").getLatency().getCount());
+		Assert.assertEquals(1, inMemoryMetrics.getRelogins());
+	}
+
+	@Test
+	public void testNoEventsWithoutRecording() {
+		FlightRecorderMetrics metrics = new FlightRecorderMetrics(new InMemoryMetrics());
+		metrics.beforeSend(new RequestContext(new HttpGet("http://localhost/test"), "test"));
+		metrics.onRequest(new RequestMetrics("test", "GET", 200, 1000, 0, 0, 1, false, 0));
+	}
+
+	@Test
+	public void testInstall() {
+		MqmConnectionConfig config = new MqmConnectionConfig("http://localhost:8080", "1001", "user", "password", "client");
+		Assert.assertTrue(FlightRecorderMetrics.install(config));
+		Assert.assertTrue(config.getMetricsListener() instanceof FlightRecorderMetrics);
+		Assert.assertTrue(((FlightRecorderMetrics) config.getMetricsListener()).getDelegate() instanceof InMemoryMetrics);
+		Assert.assertEquals(1, config.getRequestInterceptors().size());
+	}
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hp.mqm.client;
+
+import com.hp.mqm.client.standin.OctaneStandInServer;
+import net.sf.json.JSONObject;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+public class AbridgedTaskExecutorTest {
+
+	private static final String SERVER_IDENTITY = "executor-test";
+
+	private OctaneStandInServer server;
+	private MqmRestClient client;
+	private AbridgedTaskExecutor executor;
+
+	@Before
+	public void init() throws IOException {
+		server = new OctaneStandInServer();
+		server.start();
+		client = new MqmRestClientImpl(server.createConnectionConfig());
+	}
+
+	@After
+	public void cleanup() {
+		if (executor != null) {
+			executor.shutdown();
+		}
+		client.close();
+		server.stop();
+	}
+
+	@Test
+	public void testTasksOfOnePollRunConcurrently() throws Exception {
+		final CyclicBarrier barrier = new CyclicBarrier(3);
+		executor = new AbridgedTaskExecutor(client, SERVER_IDENTITY, new AbridgedTaskProcessor() {
+			@Override
+			public InputStreamSource process(JSONObject task) {
+				try {
+					// passes only when all three tasks are executed at the same time
+					barrier.await(5, TimeUnit.SECONDS);
+				} catch (Exception e) {
+					return result("{\"status\":\"sequential\"}");
+				}
+				return result("{\"status\":\"" + task.getString("id") + "\"}");
+			}
+		}, 3, 10);
+		executor.onTasks(tasks("t1", "t2", "t3"));
+		for (String id : new String[]{"t1", "t2", "t3"}) {
+			Assert.assertEquals("{\"status\":\"" + id + "\"}", awaitResult(id));
+		}
+	}
+
+	@Test
+	public void testResultIsPostedWhenTaskCompletes() throws Exception {
+		executor = new AbridgedTaskExecutor(client, SERVER_IDENTITY, new AbridgedTaskProcessor() {
+			@Override
+			public InputStreamSource process(JSONObject task) {
+				if (task.getString("id").equals("slow")) {
+					// completes only after the result of the fast task of the same poll is on the server
+					try {
+						return result(awaitResult("fast") != null ? "\"after-fast\"" : "\"fast-not-posted\"");
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return null;
+					}
+				}
+				return result("\"fast\"");
+			}
+		}, 2, 10);
+		executor.onTasks(tasks("slow", "fast"));
+		Assert.assertEquals("\"after-fast\"", awaitResult("slow"));
+	}
+
+	@Test
+	public void testCallerRunsWhenQueueIsFull() throws Exception {
+		final CountDownLatch blocker = new CountDownLatch(1);
+		final Map<String, Thread> threads = new ConcurrentHashMap<>();
+		executor = new AbridgedTaskExecutor(client, SERVER_IDENTITY, new AbridgedTaskProcessor() {
+			@Override
+			public InputStreamSource process(JSONObject task) {
+				String id = task.getString("id");
+				threads.put(id, Thread.currentThread());
+				if (id.equals("t1")) {
+					try {
+						blocker.await(5, TimeUnit.SECONDS);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				return result("\"" + id + "\"");
+			}
+		}, 1, 1);
+		// t1 occupies the only thread, t2 fills the queue, t3 is executed by the delivering thread
+		executor.onTasks(tasks("t1", "t2", "t3"));
+		Assert.assertSame(Thread.currentThread(), threads.get("t3"));
+		Assert.assertEquals("\"t3\"", server.getTaskResult("t3"));
+		blocker.countDown();
+		Assert.assertEquals("\"t1\"", awaitResult("t1"));
+		Assert.assertEquals("\"t2\"", awaitResult("t2"));
+		Assert.assertNotSame(Thread.currentThread(), threads.get("t1"));
+	}
+
+	@Test
+	public void testMissingResultAndFailureOfProcessor() throws Exception {
+		executor = new AbridgedTaskExecutor(client, SERVER_IDENTITY, new AbridgedTaskProcessor() {
+			@Override
+			public InputStreamSource process(JSONObject task) {
+				String id = task.getString("id");
+				if (id.equals("failing")) {
+					throw new IllegalStateException("processing failed");
+				} else if (id.equals("empty")) {
+					return null;
+				}
+				return result("\"" + id + "\"");
+			}
+		}, 1, 10);
+		executor.onTasks(tasks("failing", "empty", "ok"));
+		executor.onTasks("not a JSON");
+		Assert.assertEquals("\"ok\"", awaitResult("ok"));
+		Assert.assertNull(server.getTaskResult("failing"));
+		Assert.assertNull(server.getTaskResult("empty"));
+	}
+
+	private String awaitResult(String taskId) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		String result;
+		while ((result = server.getTaskResult(taskId)) == null && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		return result;
+	}
+
+	private static String tasks(String... ids) {
+		StringBuilder tasks = new StringBuilder("[");
+		for (String id : ids) {
+			if (tasks.length() > 1) {
+				tasks.append(',');
+			}
+			tasks.append("{\"id\":\"").append(id).append("\",\"method\":\"GET\",\"url\":\"/status\"}");
+		}
+		return tasks.append(']').toString();
+	}
+
+	private static InputStreamSource result(final String json) {
+		return new InputStreamSource() {
+			@Override
+			public InputStream getInputStream() {
+				return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+			}
+		};
+	}
+}
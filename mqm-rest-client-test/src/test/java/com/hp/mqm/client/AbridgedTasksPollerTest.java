@@ -0,0 +1,199 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hp.mqm.client;
+
+import com.hp.mqm.client.model.AbridgedTaskPluginInfo;
+import com.hp.mqm.client.standin.OctaneStandInServer;
+import net.sf.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class AbridgedTasksPollerTest {
+
+	private static final String SERVER_IDENTITY = "poller-test";
+
+	@Test
+	public void testTasksAreDelivered() throws Exception {
+		OctaneStandInServer server = new OctaneStandInServer();
+		server.setTaskPollTimeout(200, TimeUnit.MILLISECONDS);
+		server.start();
+		MqmRestClient client = new MqmRestClientImpl(server.createConnectionConfig());
+		final BlockingQueue<String> delivered = new LinkedBlockingQueue<>();
+		AbridgedTasksPoller poller = new AbridgedTasksPoller(client, createInfo(), new AbridgedTasksListener() {
+			@Override
+			public void onTasks(String tasksJSON) {
+				delivered.add(tasksJSON);
+			}
+		});
+		try {
+			poller.start();
+			Assert.assertTrue(poller.isRunning());
+			JSONObject task = new JSONObject();
+			task.put("id", "task-1");
+			server.addTask(SERVER_IDENTITY, task);
+			String tasks = delivered.poll(5, TimeUnit.SECONDS);
+			Assert.assertNotNull(tasks);
+			Assert.assertTrue(tasks.contains("task-1"));
+		} finally {
+			poller.stop();
+			client.close();
+			server.stop();
+		}
+		Assert.assertFalse(poller.isRunning());
+	}
+
+	@Test
+	public void testFailingListenerDoesNotDelayPolling() throws Exception {
+		OctaneStandInServer server = new OctaneStandInServer();
+		server.setTaskPollTimeout(200, TimeUnit.MILLISECONDS);
+		server.start();
+		MqmRestClient client = new MqmRestClientImpl(server.createConnectionConfig());
+		final BlockingQueue<String> delivered = new LinkedBlockingQueue<>();
+		AbridgedTasksPoller poller = new AbridgedTasksPoller(client, createInfo(), new AbridgedTasksListener() {
+			@Override
+			public void onTasks(String tasksJSON) {
+				delivered.add(tasksJSON);
+				if (tasksJSON.contains("task-1")) {
+					throw new IllegalStateException("listener failure");
+				}
+			}
+		});
+		try {
+			poller.start();
+			JSONObject task = new JSONObject();
+			task.put("id", "task-1");
+			server.addTask(SERVER_IDENTITY, task);
+			Assert.assertNotNull(delivered.poll(5, TimeUnit.SECONDS));
+
+			task.put("id", "task-2");
+			long start = System.nanoTime();
+			server.addTask(SERVER_IDENTITY, task);
+			String tasks = delivered.poll(5, TimeUnit.SECONDS);
+			Assert.assertNotNull(tasks);
+			Assert.assertTrue(tasks.contains("task-2"));
+			// failure of the listener must not trigger the error back-off of the poller
+			Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 800);
+		} finally {
+			poller.stop();
+			client.close();
+			server.stop();
+		}
+	}
+
+	@Test
+	public void testLongPollDoesNotHoldRequestConnections() throws Exception {
+		OctaneStandInServer server = new OctaneStandInServer();
+		server.setTaskPollTimeout(2, TimeUnit.SECONDS);
+		server.start();
+		MqmConnectionConfig config = server.createConnectionConfig();
+		config.setMaxConcurrentRequests(1);
+		MqmRestClient client = new MqmRestClientImpl(config);
+		client.validateConfiguration();
+		AbridgedTasksPoller poller = new AbridgedTasksPoller(client, createInfo(), new AbridgedTasksListener() {
+			@Override
+			public void onTasks(String tasksJSON) {
+			}
+		});
+		try {
+			poller.start();
+			long deadline = System.currentTimeMillis() + 5000;
+			while (server.getRequestCount() < 3 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			// the only connection of the regular pool is available while the poll is waiting for tasks
+			long start = System.nanoTime();
+			client.validateConfigurationWithoutLogin();
+			Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+		} finally {
+			poller.stop();
+			client.close();
+			server.stop();
+		}
+	}
+
+	@Test
+	public void testRestartDuringPoll() throws Exception {
+		final CountDownLatch firstPollEntered = new CountDownLatch(1);
+		final CountDownLatch firstPollReleased = new CountDownLatch(1);
+		final List<Thread> pollingThreads = new CopyOnWriteArrayList<>();
+		MqmRestClient client = MqmRestClientStub.create(new MqmRestClientStub.Handler() {
+			@Override
+			public Object handle(String methodName, Object[] args) throws InterruptedException {
+				if (!pollingThreads.contains(Thread.currentThread())) {
+					pollingThreads.add(Thread.currentThread());
+				}
+				if (pollingThreads.get(0) == Thread.currentThread() && firstPollEntered.getCount() > 0) {
+					firstPollEntered.countDown();
+					// like the long poll, waiting is not aborted by the interruption
+					while (true) {
+						try {
+							firstPollReleased.await();
+							break;
+						} catch (InterruptedException e) {
+							// ignored
+						}
+					}
+				} else {
+					Thread.sleep(10);
+				}
+				return null;
+			}
+		}, "getAbridgedTasks");
+		AbridgedTasksPoller poller = new AbridgedTasksPoller(client, createInfo(), new AbridgedTasksListener() {
+			@Override
+			public void onTasks(String tasksJSON) {
+			}
+		});
+		poller.start();
+		Assert.assertTrue(firstPollEntered.await(5, TimeUnit.SECONDS));
+		poller.stop();
+		poller.start();
+		long deadline = System.currentTimeMillis() + 5000;
+		while (pollingThreads.size() < 2 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		Assert.assertEquals(2, pollingThreads.size());
+
+		firstPollReleased.countDown();
+		Thread oldThread = pollingThreads.get(0);
+		oldThread.join(5000);
+		Assert.assertFalse("Previous polling thread should end", oldThread.isAlive());
+		Assert.assertTrue(pollingThreads.get(1).isAlive());
+		poller.stop();
+		pollingThreads.get(1).join(5000);
+		Assert.assertFalse(pollingThreads.get(1).isAlive());
+	}
+
+	private static AbridgedTaskPluginInfo createInfo() {
+		return new AbridgedTaskPluginInfo()
+				.setSelfIdentity(SERVER_IDENTITY)
+				.setSelfType("jenkins")
+				.setSelfLocation("http://localhost:8080")
+				.setApiVersion(1)
+				.setSdkVersion("1.0")
+				.setPluginVersion("1.0")
+				.setOctaneUser("admin")
+				.setCiServerUser("jenkins");
+	}
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hp.mqm.client;
+
+import com.hp.mqm.client.model.Entity;
+import com.hp.mqm.client.model.PagedList;
+import com.hp.mqm.client.standin.OctaneStandInServer;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Allocation budgets of the main client operations, a test fails when an operation allocates more bytes than its budget.
+ *
+ * Budgets are set with headroom of about 50 % above the measured values, so that differences of JVMs and libraries
+ * don't fail the build while regressions (e.g. additional copy of the response body) do. When an optimization lowers
+ * the allocation, lower the budget as well.
+ */
+public class AllocationBudgetTest {
+	private static final Logger logger = Logger.getLogger(AllocationBudgetTest.class.getName());
+
+	private static final int WARMUP = 300;
+	private static final int ITERATIONS = 300;
+	private static final int PAGE_SIZE = 100;
+
+	private static OctaneStandInServer server;
+	private static MqmRestClientImpl client;
+
+	@BeforeClass
+	public static void init() throws Exception {
+		Assume.assumeTrue("Thread allocation counters are not supported", AllocationMeter.isSupported());
+		server = new OctaneStandInServer();
+		server.start();
+		for (int i = 0; i < PAGE_SIZE; i++) {
+			JSONObject release = new JSONObject();
+			release.put("name", "Release " + i);
+			server.getEntityStore().add(OctaneStandInServer.WORKSPACE, "releases", release);
+		}
+		client = new MqmRestClientImpl(server.createConnectionConfig());
+		client.validateConfiguration();
+	}
+
+	@AfterClass
+	public static void cleanup() {
+		if (client != null) {
+			client.close();
+		}
+		if (server != null) {
+			server.stop();
+		}
+	}
+
+	@Test
+	public void testExecute() throws Exception {
+		assertBudget("execute", 20 * 1024, new AllocationMeter.Operation() {
+			@Override
+			public void run() {
+				client.validateConfigurationWithoutLogin();
+			}
+		});
+	}
+
+	@Test
+	public void testPutEvents() throws Exception {
+		final String events = createEvents(10);
+		assertBudget("putEvents", 30 * 1024, new AllocationMeter.Operation() {
+			@Override
+			public void run() {
+				client.putEvents(events);
+			}
+		});
+	}
+
+	@Test
+	public void testPostTestResult() throws Exception {
+		final byte[] testResult = createTestResult(100);
+		assertBudget("postTestResult", 64 * 1024, new AllocationMeter.Operation() {
+			@Override
+			public void run() {
+				client.postTestResult(new InputStreamSource() {
+					@Override
+					public InputStream getInputStream() {
+						return new ByteArrayInputStream(testResult);
+					}
+				}, false);
+			}
+		});
+	}
+
+	@Test
+	public void testGetTestResultStatus() throws Exception {
+		final long id = client.postTestResult(new InputStreamSource() {
+			@Override
+			public InputStream getInputStream() {
+				return new ByteArrayInputStream(createTestResult(1));
+			}
+		}, false);
+		assertBudget("getTestResultStatus", 56 * 1024, new AllocationMeter.Operation() {
+			@Override
+			public void run() {
+				client.getTestResultStatus(id);
+			}
+		});
+	}
+
+	@Test
+	public void testGetEntities() throws Exception {
+		final List<String> conditions = Collections.singletonList(QueryHelper.condition("name", "Release*"));
+		assertBudget("getEntities", 5 * 1024 * 1024, new AllocationMeter.Operation() {
+			@Override
+			public void run() {
+				Assert.assertEquals(PAGE_SIZE, client.getEntities(OctaneStandInServer.WORKSPACE, "releases", conditions, null).size());
+			}
+		});
+	}
+
+	@Test
+	public void testConvertPagedList() throws Exception {
+		final byte[] body = createPage(PAGE_SIZE);
+		final MqmRestClientImpl.GeneralEntityFactory factory = new MqmRestClientImpl.GeneralEntityFactory();
+		assertBudget("convertResponceToPagedList", 4608 * 1024, new AllocationMeter.Operation() {
+			@Override
+			public void run() throws Exception {
+				HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+				response.setEntity(new ByteArrayEntity(body, ContentType.APPLICATION_JSON));
+				PagedList<Entity> page = client.convertResponceToPagedList(factory, 0, response);
+				Assert.assertEquals(PAGE_SIZE, page.getItems().size());
+			}
+		});
+	}
+
+	@Test
+	public void testGetEntityUri() throws Exception {
+		final List<String> conditions = Arrays.asList(QueryHelper.condition("name", "Release*"), QueryHelper.conditionRef("release", 1001L));
+		final List<String> fields = Arrays.asList("name", "last_modified");
+		assertBudget("getEntityURI", 32 * 1024, new AllocationMeter.Operation() {
+			@Override
+			public void run() {
+				client.getEntityURI("releases", conditions, fields, OctaneStandInServer.WORKSPACE, 0, PAGE_SIZE, "name");
+			}
+		});
+	}
+
+	@Test
+	public void testResolveTemplate() throws Exception {
+		final Map<String, Object> params = new HashMap<>();
+		params.put("serverIdentity", "4b1c3d7e-server");
+		params.put("jobName", "job name with spaces");
+		assertBudget("resolveTemplate", 8 * 1024, new AllocationMeter.Operation() {
+			@Override
+			public void run() {
+				client.resolveTemplate("analytics/ci/servers/{serverIdentity}/jobs/{jobName}/configuration", params);
+			}
+		});
+	}
+
+	private static void assertBudget(String operation, long budget, AllocationMeter.Operation op) throws Exception {
+		long allocated = AllocationMeter.measure(WARMUP, ITERATIONS, op);
+		logger.info(operation + " allocates " + allocated + " bytes (budget " + budget + " bytes)");
+		Assert.assertTrue(operation + " allocates " + allocated + " bytes per operation, budget is " + budget + " bytes", allocated <= budget);
+	}
+
+	private static String createEvents(int count) {
+		JSONArray events = new JSONArray();
+		for (int i = 0; i < count; i++) {
+			JSONObject event = new JSONObject();
+			event.put("eventType", "started");
+			event.put("buildCiId", String.valueOf(i));
+			event.put("project", "job");
+			event.put("number", String.valueOf(i));
+			events.add(event);
+		}
+		JSONObject result = new JSONObject();
+		result.put("server", new JSONObject());
+		result.put("events", events);
+		return result.toString();
+	}
+
+	private static byte[] createTestResult(int testRuns) {
+		StringBuilder xml = new StringBuilder("<test_result><test_runs>");
+		for (int i = 0; i < testRuns; i++) {
+			xml.append("<test_run module=\"module\" package=\"com.example\" class=\"Test\" name=\"test").append(i)
+					.append("\" duration=\"10\" status=\"Passed\" started=\"1494842400000\"/>");
+		}
+		xml.append("</test_runs></test_result>");
+		return xml.toString().getBytes();
+	}
+
+	private static byte[] createPage(int count) {
+		JSONArray data = new JSONArray();
+		for (int i = 0; i < count; i++) {
+			JSONObject entity = new JSONObject();
+			entity.put("type", "release");
+			entity.put("id", 1000 + i);
+			entity.put("name", "Release " + i);
+			entity.put("last_modified", "2017-05-15T10:00:00Z");
+			data.add(entity);
+		}
+		JSONObject page = new JSONObject();
+		page.put("total_count", count);
+		page.put("data", data);
+		return page.toString().getBytes();
+	}
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hp.mqm.client;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measures bytes allocated by the current thread using the thread allocation counters of HotSpot
+ * ({@code com.sun.management.ThreadMXBean}). Allocation of the other threads (e.g. stand-in server) is not counted.
+ */
+final class AllocationMeter {
+
+	interface Operation {
+		void run() throws Exception;
+	}
+
+	private AllocationMeter() {
+	}
+
+	/**
+	 * @return true if the JVM supports and enables allocation measurement
+	 */
+	static boolean isSupported() {
+		ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+		if (!(threadMXBean instanceof com.sun.management.ThreadMXBean)) {
+			return false;
+		}
+		com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) threadMXBean;
+		if (!bean.isThreadAllocatedMemorySupported()) {
+			return false;
+		}
+		if (!bean.isThreadAllocatedMemoryEnabled()) {
+			bean.setThreadAllocatedMemoryEnabled(true);
+		}
+		return true;
+	}
+
+	/**
+	 * Runs the operation repeatedly, first without measurement to get rid of the one-off allocations
+	 * (class loading, lazy initialization, JIT compilation).
+	 *
+	 * @return average number of bytes allocated by single run of the operation
+	 */
+	static long measure(int warmup, int iterations, Operation operation) throws Exception {
+		com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		for (int i = 0; i < warmup; i++) {
+			operation.run();
+		}
+		long threadId = Thread.currentThread().getId();
+		long before = bean.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < iterations; i++) {
+			operation.run();
+		}
+		return (bean.getThreadAllocatedBytes(threadId) - before) / iterations;
+	}
+}
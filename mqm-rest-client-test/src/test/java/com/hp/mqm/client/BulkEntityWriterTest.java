@@ -0,0 +1,103 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client;
+
+import com.hp.mqm.client.exception.RequestErrorException;
+import com.hp.mqm.client.model.BulkWriteResult;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BulkEntityWriterTest {
+
+	@Test
+	public void testCreateInChunks() {
+		AtomicInteger requests = new AtomicInteger();
+		BulkEntityWriter writer = new BulkEntityWriter(createClient(requests, -1), 1001, "tests");
+		writer.setMaxChunkEntities(3);
+		writer.setParallelism(2);
+
+		BulkWriteResult result = writer.create(entities(10));
+		Assert.assertTrue(result.isSuccessful());
+		Assert.assertEquals(10, result.getEntityCount());
+		Assert.assertEquals(4, requests.get());
+		List<Long> expected = new ArrayList<>();
+		for (long i = 0; i < 10; i++) {
+			expected.add(i);
+		}
+		Assert.assertEquals(expected, result.getIds());
+	}
+
+	@Test
+	public void testChunkBySize() {
+		AtomicInteger requests = new AtomicInteger();
+		BulkEntityWriter writer = new BulkEntityWriter(createClient(requests, -1), 1001, "tests");
+		writer.setMaxChunkBytes(50);
+
+		BulkWriteResult result = writer.create(entities(4));
+		Assert.assertEquals(4, result.getIds().size());
+		Assert.assertEquals(2, requests.get());
+	}
+
+	@Test
+	public void testFailedChunkIsReported() {
+		AtomicInteger requests = new AtomicInteger();
+		BulkEntityWriter writer = new BulkEntityWriter(createClient(requests, 3), 1001, "tests");
+		writer.setMaxChunkEntities(2);
+
+		BulkWriteResult result = writer.update(entities(6));
+		Assert.assertFalse(result.isSuccessful());
+		Assert.assertEquals(Arrays.asList(0L, 1L, 4L, 5L), result.getIds());
+		Assert.assertEquals(1, result.getErrors().size());
+		Assert.assertEquals(2, result.getErrors().get(0).getOffset());
+		Assert.assertEquals(2, result.getErrors().get(0).getSize());
+	}
+
+	private static List<JSONObject> entities(int count) {
+		List<JSONObject> entities = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			JSONObject entity = new JSONObject();
+			entity.put("id", i);
+			entity.put("name", "test" + i);
+			entities.add(entity);
+		}
+		return entities;
+	}
+
+	private static MqmRestClient createClient(final AtomicInteger requests, final long failingId) {
+		return MqmRestClientStub.create(new MqmRestClientStub.Handler() {
+			@Override
+			public Object handle(String methodName, Object[] args) {
+				requests.incrementAndGet();
+				JSONArray data = JSONObject.fromObject(args[2]).getJSONArray("data");
+				for (int i = 0; i < data.size(); i++) {
+					if (data.getJSONObject(i).getLong("id") == failingId) {
+						throw new RequestErrorException("Entity " + failingId + " is invalid");
+					}
+				}
+				JSONObject response = new JSONObject();
+				response.put("data", data);
+				return response;
+			}
+		}, "postEntities", "updateEntities");
+	}
+}
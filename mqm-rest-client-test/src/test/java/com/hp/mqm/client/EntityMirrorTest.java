@@ -0,0 +1,136 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client;
+
+import com.hp.mqm.client.model.Entity;
+import net.sf.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+public class EntityMirrorTest {
+
+	@Test
+	public void testDeltaSync() {
+		StubServer server = new StubServer();
+		server.entities.add(entity(1, "test1", "2017-05-15T10:00:00Z"));
+		server.entities.add(entity(2, "test2", "2017-05-15T11:00:00Z"));
+		EntityMirror mirror = new EntityMirror(server.createClient(), 1001, "tests", null, 60000, 60000);
+
+		Assert.assertEquals(2, mirror.size());
+		Assert.assertEquals("test1", mirror.get(1).getName());
+		Assert.assertNull(server.lastConditions);
+
+		// reads within staleness don't hit the server
+		mirror.getAll();
+		Assert.assertEquals(1, server.requests);
+
+		server.entities.set(0, entity(1, "test1-renamed", "2017-05-15T12:00:00Z"));
+		server.entities.add(entity(3, "test3", "2017-05-15T12:00:00Z"));
+		mirror.sync();
+		Assert.assertEquals(2, server.requests);
+		Assert.assertEquals("[last_modified>=^2017-05-15T11:00:00Z^]", server.lastConditions.toString());
+		Assert.assertEquals(3, mirror.size());
+		Assert.assertEquals("test1-renamed", mirror.get(1).getName());
+		Assert.assertEquals(1, mirror.find("name", "test3").size());
+	}
+
+	@Test
+	public void testFullReloadRemovesDeleted() throws InterruptedException {
+		StubServer server = new StubServer();
+		server.entities.add(entity(1, "test1", "2017-05-15T10:00:00Z"));
+		server.entities.add(entity(2, "test2", "2017-05-15T11:00:00Z"));
+		EntityMirror mirror = new EntityMirror(server.createClient(), 1001, "tests", null, 0, 0);
+		Assert.assertEquals(2, mirror.size());
+
+		server.entities.remove(1);
+		Thread.sleep(1);
+		Assert.assertEquals(1, mirror.size());
+		Assert.assertNull(server.lastConditions);
+	}
+
+	@Test
+	public void testMissingModificationTime() {
+		StubServer server = new StubServer();
+		JSONObject json = new JSONObject();
+		json.put("id", "1");
+		json.put("name", "test1");
+		server.entities.add(new Entity(json));
+		EntityMirror mirror = new EntityMirror(server.createClient(), 1001, "tests", null, 0, 60000);
+		Assert.assertEquals(1, mirror.size());
+
+		// without watermark delta sync is not possible
+		mirror.sync();
+		Assert.assertEquals(2, server.requests);
+		Assert.assertNull(server.lastConditions);
+		Assert.assertEquals(1, mirror.size());
+	}
+
+	@Test
+	public void testMirrorFields() {
+		Assert.assertNull(EntityMirror.getMirrorFields(null));
+		Assert.assertEquals(Arrays.asList("name", "id", "last_modified"), new ArrayList<>(EntityMirror.getMirrorFields(Collections.singletonList("name"))));
+	}
+
+	@Test
+	public void testRegistry() {
+		EntityMirrorRegistry registry = new EntityMirrorRegistry(new StubServer().createClient());
+		EntityMirror mirror = registry.getMirror(1001, "tests");
+		Assert.assertSame(mirror, registry.getMirror(1001, "tests"));
+		Assert.assertNotSame(mirror, registry.getMirror(1002, "tests"));
+		Assert.assertNotSame(mirror, registry.getMirror(1001, "runs"));
+		registry.remove(1001);
+		Assert.assertEquals(1, registry.getMirrors().size());
+	}
+
+	private static Entity entity(long id, String name, String lastModified) {
+		JSONObject json = new JSONObject();
+		json.put("id", String.valueOf(id));
+		json.put("name", name);
+		json.put("last_modified", lastModified);
+		return new Entity(json);
+	}
+
+	private static class StubServer {
+
+		private final List<Entity> entities = new ArrayList<>();
+		private Collection<?> lastConditions;
+		private int requests;
+
+		private MqmRestClient createClient() {
+			return MqmRestClientStub.create(new MqmRestClientStub.Handler() {
+				@Override
+				public Object handle(String methodName, Object[] args) {
+					requests++;
+					lastConditions = (Collection<?>) args[2];
+					List<Entity> result = new LinkedList<>();
+					for (Entity entity : entities) {
+						if (lastConditions == null || entity.getStringValue("last_modified").compareTo("2017-05-15T11:00:00Z") >= 0) {
+							result.add(entity);
+						}
+					}
+					return result;
+				}
+			}, "getEntities");
+		}
+	}
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client;
+
+import com.hp.mqm.client.model.Entity;
+import net.sf.json.JSONObject;
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+public class EntitySnapshotStoreTest {
+
+	@Test
+	public void testSaveAndRestore() throws IOException {
+		testSaveAndRestore(false);
+	}
+
+	@Test
+	public void testSaveAndRestoreMemoryMapped() throws IOException {
+		testSaveAndRestore(true);
+	}
+
+	private void testSaveAndRestore(boolean memoryMapped) throws IOException {
+		File directory = File.createTempFile(getClass().getSimpleName(), "");
+		directory.delete();
+		try {
+			final List<String> requests = new LinkedList<>();
+			MqmRestClient client = createClient(requests);
+			EntityMirrorRegistry registry = new EntityMirrorRegistry(client);
+			Assert.assertEquals(2, registry.getMirror(1001, "tests", Arrays.asList("name")).size());
+			Assert.assertEquals(2, registry.getMirror(1002, "list_nodes").size());
+
+			EntitySnapshotStore store = new EntitySnapshotStore(directory);
+			store.setMemoryMapped(memoryMapped);
+			Assert.assertEquals(2, store.saveAll(registry));
+
+			requests.clear();
+			EntityMirrorRegistry restoredRegistry = new EntityMirrorRegistry(client);
+			final List<Runnable> revalidations = new LinkedList<>();
+			List<EntityMirror> restored = store.restoreAll(restoredRegistry, new Executor() {
+				@Override
+				public void execute(Runnable command) {
+					revalidations.add(command);
+				}
+			});
+			Assert.assertEquals(2, restored.size());
+
+			// served from the snapshot without a request
+			EntityMirror tests = restoredRegistry.getMirror(1001, "tests", Arrays.asList("name"));
+			Assert.assertEquals("test \u00e9 2", tests.get(2).getName());
+			Assert.assertTrue(requests.isEmpty());
+
+			// revalidation is a delta sync from the stored watermark
+			for (Runnable revalidation : revalidations) {
+				revalidation.run();
+			}
+			Assert.assertEquals(2, requests.size());
+			Assert.assertTrue(requests.get(0).contains("2017-05-15T11:00:00Z"));
+		} finally {
+			FileUtils.deleteDirectory(directory);
+		}
+	}
+
+	private static MqmRestClient createClient(final List<String> requests) {
+		return MqmRestClientStub.create(new MqmRestClientStub.Handler() {
+			@Override
+			public Object handle(String methodName, Object[] args) {
+				requests.add(String.valueOf(args[2]));
+				List<Entity> result = new LinkedList<>();
+				result.add(entity(1, "test 1", "2017-05-15T10:00:00Z"));
+				result.add(entity(2, "test \u00e9 2", "2017-05-15T11:00:00Z"));
+				return result;
+			}
+		}, "getEntities");
+	}
+
+	private static Entity entity(long id, String name, String lastModified) {
+		JSONObject json = new JSONObject();
+		json.put("id", id);
+		json.put("name", name);
+		json.put("last_modified", lastModified);
+		return new Entity(json);
+	}
+}
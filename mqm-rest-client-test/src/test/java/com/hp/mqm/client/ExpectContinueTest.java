@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hp.mqm.client;
+
+import com.hp.mqm.client.standin.OctaneStandInServer;
+import org.apache.commons.lang.StringUtils;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.utils.HttpClientUtils;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.entity.StringEntity;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public class ExpectContinueTest {
+
+	private static final long THRESHOLD = 100;
+
+	private OctaneStandInServer server;
+	private ProbeClient client;
+
+	@Before
+	public void init() throws IOException {
+		server = new OctaneStandInServer();
+		server.start();
+		server.setRecordRequests(true);
+		MqmConnectionConfig config = server.createConnectionConfig();
+		config.setExpectContinueThreshold(THRESHOLD);
+		client = new ProbeClient(config);
+	}
+
+	@After
+	public void cleanup() {
+		client.close();
+		server.stop();
+	}
+
+	@Test
+	public void testExpectContinueAboveThreshold() throws IOException {
+		send(createRequest(new StringEntity(createEvents(10), ContentType.APPLICATION_JSON)));
+		send(createRequest(new StringEntity(createEvents(1000), ContentType.APPLICATION_JSON)));
+		byte[] unknownLength = createEvents(10).getBytes(StandardCharsets.UTF_8);
+		send(createRequest(new InputStreamEntity(new ByteArrayInputStream(unknownLength), -1, ContentType.APPLICATION_JSON)));
+
+		List<OctaneStandInServer.RecordedRequest> requests = server.getRecordedRequests();
+		Assert.assertEquals(3, requests.size());
+		Assert.assertNull(requests.get(0).getHeader("Expect"));
+		Assert.assertEquals("100-continue", requests.get(1).getHeader("Expect"));
+		Assert.assertEquals("100-continue", requests.get(2).getHeader("Expect"));
+	}
+
+	@Test
+	public void testCallerRequestConfigIsPreserved() throws IOException {
+		RequestConfig callerConfig = RequestConfig.custom().setSocketTimeout(12345).setConnectTimeout(2345).build();
+		HttpPut small = createRequest(new StringEntity(createEvents(10), ContentType.APPLICATION_JSON));
+		small.setConfig(callerConfig);
+		send(small);
+		Assert.assertSame(callerConfig, small.getConfig());
+
+		HttpPut large = createRequest(new StringEntity(createEvents(1000), ContentType.APPLICATION_JSON));
+		large.setConfig(callerConfig);
+		send(large);
+		Assert.assertTrue(large.getConfig().isExpectContinueEnabled());
+		Assert.assertEquals(12345, large.getConfig().getSocketTimeout());
+		Assert.assertEquals(2345, large.getConfig().getConnectTimeout());
+		Assert.assertFalse(callerConfig.isExpectContinueEnabled());
+		Assert.assertEquals("100-continue", server.getRecordedRequests().get(1).getHeader("Expect"));
+	}
+
+	private HttpPut createRequest(HttpEntity entity) {
+		HttpPut request = new HttpPut(server.getLocation() + "/internal-api/shared_spaces/" + OctaneStandInServer.SHARED_SPACE + "/analytics/ci/events");
+		request.setEntity(entity);
+		return request;
+	}
+
+	private void send(HttpUriRequest request) throws IOException {
+		HttpResponse response = client.send(request);
+		try {
+			Assert.assertEquals(200, response.getStatusLine().getStatusCode());
+		} finally {
+			HttpClientUtils.closeQuietly(response);
+		}
+	}
+
+	private static String createEvents(int padding) {
+		return "{\"events\":[],\"padding\":\"" + StringUtils.repeat("x", padding) + "\"}";
+	}
+
+	private static class ProbeClient extends AbstractMqmRestClient {
+
+		private ProbeClient(MqmConnectionConfig connectionConfig) {
+			super(connectionConfig);
+		}
+
+		private HttpResponse send(HttpUriRequest request) throws IOException {
+			return execute(request);
+		}
+	}
+}
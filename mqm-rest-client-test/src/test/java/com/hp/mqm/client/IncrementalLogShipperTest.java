@@ -0,0 +1,162 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+public class IncrementalLogShipperTest {
+
+	@Test
+	public void testShipGrowingLog() throws IOException {
+		File log = File.createTempFile(getClass().getSimpleName(), ".log");
+		log.deleteOnExit();
+		RecordingSink sink = new RecordingSink();
+		IncrementalLogShipper shipper = new IncrementalLogShipper(log, sink, 4);
+
+		FileUtils.write(log, "line1\n");
+		Assert.assertEquals(6, shipper.shipAvailable());
+		Assert.assertEquals(2, sink.segments.size());
+		Assert.assertEquals(0, shipper.shipAvailable());
+
+		FileUtils.write(log, "line2\n", true);
+		Assert.assertEquals(6, shipper.shipAvailable());
+
+		FileUtils.write(log, "end", true);
+		Assert.assertEquals(3, shipper.finish());
+		Assert.assertTrue(sink.lastReceived);
+		Assert.assertEquals("line1\nline2\nend", new String(sink.content.toByteArray(), "UTF-8"));
+		Assert.assertEquals(0, shipper.shipAvailable());
+		log.delete();
+	}
+
+	@Test
+	public void testRejectedSegmentIsSentAgain() throws IOException {
+		File log = File.createTempFile(getClass().getSimpleName(), ".log");
+		log.deleteOnExit();
+		RecordingSink sink = new RecordingSink();
+		IncrementalLogShipper shipper = new IncrementalLogShipper(log, sink, 1024);
+
+		FileUtils.write(log, "abc");
+		sink.accept = false;
+		Assert.assertEquals(0, shipper.shipAvailable());
+		Assert.assertEquals(0, shipper.getOffset());
+
+		sink.accept = true;
+		Assert.assertEquals(3, shipper.finish());
+		Assert.assertEquals("abc", new String(sink.content.toByteArray(), "UTF-8"));
+		log.delete();
+	}
+
+	@Test
+	public void testPeriodicShipping() throws Exception {
+		File log = File.createTempFile(getClass().getSimpleName(), ".log");
+		log.deleteOnExit();
+		RecordingSink sink = new RecordingSink();
+		IncrementalLogShipper shipper = new IncrementalLogShipper(log, sink, 1024);
+		ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+		try {
+			ScheduledFuture<?> future = shipper.start(executor, 10, TimeUnit.MILLISECONDS);
+			FileUtils.write(log, "line1\n");
+			long deadline = System.currentTimeMillis() + 5000;
+			while (shipper.getOffset() < 6 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			Assert.assertEquals(6, shipper.getOffset());
+			Assert.assertFalse(sink.lastReceived);
+
+			FileUtils.write(log, "end", true);
+			shipper.finish();
+			Assert.assertTrue(future.isCancelled());
+			Assert.assertTrue(sink.lastReceived);
+			Assert.assertEquals("line1\nend", new String(sink.content.toByteArray(), "UTF-8"));
+		} finally {
+			executor.shutdownNow();
+			log.delete();
+		}
+	}
+
+	@Test
+	public void testRejectedLastSegmentIsSentAgain() throws IOException {
+		File log = File.createTempFile(getClass().getSimpleName(), ".log");
+		log.deleteOnExit();
+		RecordingSink sink = new RecordingSink();
+		IncrementalLogShipper shipper = new IncrementalLogShipper(log, sink, 1024);
+
+		FileUtils.write(log, "abc");
+		Assert.assertEquals(3, shipper.shipAvailable());
+		FileUtils.write(log, "def", true);
+		sink.accept = false;
+		Assert.assertEquals(0, shipper.finish());
+		Assert.assertFalse(shipper.isFinished());
+		Assert.assertEquals(3, shipper.getOffset());
+
+		sink.accept = true;
+		Assert.assertEquals(3, shipper.finish());
+		Assert.assertTrue(shipper.isFinished());
+		Assert.assertTrue(sink.lastReceived);
+		Assert.assertEquals("abcdef", new String(sink.content.toByteArray(), "UTF-8"));
+		Assert.assertEquals(0, shipper.finish());
+		log.delete();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSinkIsRequired() throws IOException {
+		File log = File.createTempFile(getClass().getSimpleName(), ".log");
+		try {
+			new IncrementalLogShipper(log, null, 1024);
+		} finally {
+			log.delete();
+		}
+	}
+
+	private static class RecordingSink implements LogSegmentSink {
+
+		private final List<Long> segments = new LinkedList<>();
+		private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+		private boolean accept = true;
+		private boolean lastReceived;
+
+		@Override
+		public boolean postSegment(InputStream segment, long offset, long length, boolean last) {
+			if (!accept) {
+				return false;
+			}
+			Assert.assertEquals(content.size(), offset);
+			try {
+				IOUtils.copy(segment, content);
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+			segments.add(length);
+			lastReceived = last;
+			return true;
+		}
+	}
+}
@@ -43,6 +43,7 @@ import static org.junit.Assert.fail;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -56,6 +57,7 @@ import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
 
 public class MqmRestClientImplTest {
 
@@ -251,6 +253,16 @@ public class MqmRestClientImplTest {
 		}, false);
 		assertPublishResult(id, "success");
 
+		// already compressed content is sent as is
+		final File testResultsGz = File.createTempFile(getClass().getSimpleName(), ".gz");
+		testResultsGz.deleteOnExit();
+		OutputStream gzip = new GZIPOutputStream(new FileOutputStream(testResultsGz));
+		gzip.write(testResultsXml.getBytes("UTF-8"));
+		gzip.close();
+		id = client.postTestResult(testResultsGz, false);
+		assertPublishResult(id, "success");
+		testResultsGz.delete();
+
 
 		// try content that fails unless skip-errors is specified
 
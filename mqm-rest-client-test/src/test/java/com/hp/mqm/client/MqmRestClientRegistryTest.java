@@ -0,0 +1,256 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hp.mqm.client;
+
+import com.hp.mqm.client.standin.OctaneStandInServer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class MqmRestClientRegistryTest {
+
+	private static final String OTHER_USER = "other";
+
+	private OctaneStandInServer server;
+
+	@Before
+	public void init() throws IOException {
+		server = new OctaneStandInServer();
+		server.start();
+	}
+
+	@After
+	public void cleanup() {
+		server.stop();
+	}
+
+	@Test
+	public void testTenantsShareTransport() {
+		MqmRestClientRegistry registry = new MqmRestClientRegistry();
+		try {
+			MqmRestClient admin = registry.acquire(server.createConnectionConfig());
+			Assert.assertSame(admin, registry.acquire(server.createConnectionConfig()));
+
+			MqmRestClient other = registry.acquire(createOtherConfig());
+			Assert.assertNotSame(admin, other);
+			Assert.assertEquals(2, registry.getTenantCount());
+			Assert.assertEquals(1, registry.getTransportCount());
+
+			// each tenant has own session
+			admin.validateConfiguration();
+			other.validateConfiguration();
+			admin.validateConfigurationWithoutLogin();
+			other.validateConfigurationWithoutLogin();
+			Assert.assertEquals(2, server.getLoginCount());
+		} finally {
+			registry.close();
+		}
+		Assert.assertEquals(0, registry.getTenantCount());
+		Assert.assertEquals(0, registry.getTransportCount());
+	}
+
+	@Test
+	public void testRequestsCarryTenantSession() throws Exception {
+		MqmRestClientRegistry registry = new MqmRestClientRegistry();
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			MqmRestClient admin = registry.acquire(server.createConnectionConfig());
+			MqmRestClient other = registry.acquire(createOtherConfig());
+			server.setRecordRequests(true);
+			// tenants are told apart by the page size of their requests
+			List<Future<?>> futures = new ArrayList<>();
+			futures.addAll(submitQueries(executor, admin, 11, 4, 5));
+			futures.addAll(submitQueries(executor, other, 12, 4, 5));
+			waitFor(futures);
+
+			int adminRequests = 0;
+			int otherRequests = 0;
+			for (OctaneStandInServer.RecordedRequest request : server.getRecordedRequests()) {
+				if (request.getUri().contains("limit=11")) {
+					Assert.assertEquals(OctaneStandInServer.USER, request.getUser());
+					adminRequests++;
+				} else if (request.getUri().contains("limit=12")) {
+					Assert.assertEquals(OTHER_USER, request.getUser());
+					otherRequests++;
+				}
+			}
+			Assert.assertEquals(20, adminRequests);
+			Assert.assertEquals(20, otherRequests);
+		} finally {
+			executor.shutdownNow();
+			registry.close();
+		}
+	}
+
+	@Test
+	public void testMaxConnectionsPerTenant() throws Exception {
+		MqmRestClientRegistry registry = new MqmRestClientRegistry(60000, 1);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			MqmRestClient admin = registry.acquire(server.createConnectionConfig());
+			MqmRestClient other = registry.acquire(createOtherConfig());
+			admin.validateConfiguration();
+			other.validateConfiguration();
+			server.setLatency(20, 20, TimeUnit.MILLISECONDS);
+			List<Future<?>> futures = new ArrayList<>();
+			futures.addAll(submitQueries(executor, admin, 10, 4, 3));
+			futures.addAll(submitQueries(executor, other, 10, 4, 3));
+			waitFor(futures);
+
+			Assert.assertEquals(1, server.getMaxConcurrentRequests(OctaneStandInServer.USER));
+			Assert.assertEquals(1, server.getMaxConcurrentRequests(OTHER_USER));
+		} finally {
+			executor.shutdownNow();
+			registry.close();
+		}
+	}
+
+	@Test
+	public void testFairShare() throws Exception {
+		// default pool of 20 connections
+		MqmRestClientRegistry registry = new MqmRestClientRegistry();
+		ExecutorService executor = Executors.newFixedThreadPool(36);
+		final AtomicBoolean stop = new AtomicBoolean();
+		try {
+			final MqmRestClientImpl admin = (MqmRestClientImpl) registry.acquire(server.createConnectionConfig());
+			MqmRestClientImpl other = (MqmRestClientImpl) registry.acquire(createOtherConfig());
+			Assert.assertEquals(1, registry.getTransportCount());
+			admin.validateConfiguration();
+			other.validateConfiguration();
+			server.setLatency(100, 100, TimeUnit.MILLISECONDS);
+
+			// busy tenant alone is not limited to a part of the pool
+			List<Future<?>> busy = new ArrayList<>();
+			for (int i = 0; i < 24; i++) {
+				busy.add(executor.submit(new Callable<Void>() {
+					@Override
+					public Void call() {
+						while (!stop.get()) {
+							admin.queryWorkspaces("", 0, 10);
+						}
+						return null;
+					}
+				}));
+			}
+			long deadline = System.currentTimeMillis() + 5000;
+			while (admin.getConnectionsInFlight() <= 10 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			Assert.assertTrue(admin.getConnectionsInFlight() > 10);
+
+			// other tenant gets through meanwhile, both are limited to half of the pool
+			List<Future<?>> queries = submitQueries(executor, other, 10, 12, 5);
+			int otherMax = 0;
+			boolean adminYielded = false;
+			while (!isDone(queries)) {
+				otherMax = Math.max(otherMax, other.getConnectionsInFlight());
+				adminYielded |= admin.getConnectionsInFlight() <= 10;
+				Thread.sleep(5);
+			}
+			waitFor(queries);
+			Assert.assertTrue("Other tenant used " + otherMax + " connections", otherMax > 0 && otherMax <= 10);
+			Assert.assertTrue(adminYielded);
+			stop.set(true);
+			waitFor(busy);
+		} finally {
+			stop.set(true);
+			executor.shutdownNow();
+			registry.close();
+		}
+	}
+
+	private MqmConnectionConfig createOtherConfig() {
+		MqmConnectionConfig config = server.createConnectionConfig();
+		config.setUsername(OTHER_USER);
+		return config;
+	}
+
+	private static List<Future<?>> submitQueries(ExecutorService executor, final MqmRestClient client, final int limit, int threads, final int requests) {
+		List<Future<?>> futures = new ArrayList<>();
+		for (int i = 0; i < threads; i++) {
+			futures.add(executor.submit(new Callable<Void>() {
+				@Override
+				public Void call() {
+					for (int j = 0; j < requests; j++) {
+						client.queryWorkspaces("", 0, limit);
+					}
+					return null;
+				}
+			}));
+		}
+		return futures;
+	}
+
+	private static boolean isDone(List<Future<?>> futures) {
+		for (Future<?> future : futures) {
+			if (!future.isDone()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static void waitFor(List<Future<?>> futures) throws Exception {
+		for (Future<?> future : futures) {
+			future.get(30, TimeUnit.SECONDS);
+		}
+	}
+
+	@Test
+	public void testEvictIdle() {
+		MqmRestClientRegistry registry = new MqmRestClientRegistry(0, 1);
+		MqmRestClient client = registry.acquire(server.createConnectionConfig());
+		MqmRestClient client2 = registry.acquire(server.createConnectionConfig());
+		registry.release(client);
+		Assert.assertEquals(0, registry.evictIdle());
+
+		registry.release(client2);
+		client.validateConfiguration();
+		Assert.assertEquals(1, registry.evictIdle());
+		Assert.assertEquals(0, registry.getTenantCount());
+		Assert.assertEquals(0, registry.getTransportCount());
+		try {
+			client.validateConfigurationWithoutLogin();
+			Assert.fail("Closed client should not be usable");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		try {
+			registry.release(client);
+			Assert.fail("Evicted client should not be released");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+
+		// new tenant is created on the next acquisition
+		MqmRestClient reacquired = registry.acquire(server.createConnectionConfig());
+		Assert.assertNotSame(client, reacquired);
+		reacquired.validateConfigurationWithoutLogin();
+		registry.close();
+	}
+}
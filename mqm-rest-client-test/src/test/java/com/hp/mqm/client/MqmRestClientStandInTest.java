@@ -0,0 +1,553 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hp.mqm.client;
+
+import com.hp.mqm.client.exception.AuthenticationException;
+import com.hp.mqm.client.exception.PartialDeleteException;
+import com.hp.mqm.client.exception.RequestErrorException;
+import com.hp.mqm.client.exception.RequestException;
+import com.hp.mqm.client.exception.SharedSpaceNotExistException;
+import com.hp.mqm.client.exception.TemporarilyUnavailableException;
+import com.hp.mqm.client.metrics.InMemoryMetrics;
+import com.hp.mqm.client.metrics.MetricsListener;
+import com.hp.mqm.client.metrics.RequestMetrics;
+import com.hp.mqm.client.model.AbridgedTaskPluginInfo;
+import com.hp.mqm.client.model.BatchResult;
+import com.hp.mqm.client.model.CircuitBreakerStatus;
+import com.hp.mqm.client.model.CoverageReport;
+import com.hp.mqm.client.model.Entity;
+import com.hp.mqm.client.model.JobConfiguration;
+import com.hp.mqm.client.model.PagedList;
+import com.hp.mqm.client.model.Pipeline;
+import com.hp.mqm.client.model.Workspace;
+import com.hp.mqm.client.standin.OctaneStandInServer;
+import net.sf.json.JSONObject;
+import org.apache.commons.io.FileUtils;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests of the client against {@link OctaneStandInServer}, unlike {@link MqmRestClientImplTest} these don't need
+ * a running Octane server.
+ */
+public class MqmRestClientStandInTest {
+
+	private static final String SERVER_IDENTITY = "stand-in-server";
+
+	private OctaneStandInServer server;
+	private InMemoryMetrics metrics;
+	private MqmRestClientImpl client;
+
+	@Before
+	public void init() throws IOException {
+		server = new OctaneStandInServer();
+		server.setTaskPollTimeout(100, TimeUnit.MILLISECONDS);
+		server.start();
+		client = createClient(server.createConnectionConfig());
+	}
+
+	@After
+	public void cleanup() {
+		client.close();
+		server.stop();
+	}
+
+	@Test
+	public void testValidateConfiguration() {
+		client.validateConfiguration();
+		Assert.assertEquals(1, server.getLoginCount());
+
+		MqmConnectionConfig config = server.createConnectionConfig();
+		config.setUsername(OctaneStandInServer.REJECTED_USER);
+		MqmRestClientImpl rejectedClient = createClient(config);
+		try {
+			rejectedClient.validateConfiguration();
+			Assert.fail("Authentication should fail");
+		} catch (AuthenticationException e) {
+			// expected
+		} finally {
+			rejectedClient.close();
+		}
+
+		config = server.createConnectionConfig();
+		config.setSharedSpace("1");
+		MqmRestClientImpl otherSpaceClient = createClient(config);
+		try {
+			otherSpaceClient.validateConfiguration();
+			Assert.fail("Shared space should not exist");
+		} catch (SharedSpaceNotExistException e) {
+			// expected
+		} finally {
+			otherSpaceClient.close();
+		}
+	}
+
+	@Test
+	public void testPostTestResult() throws IOException {
+		File testResults = File.createTempFile(getClass().getSimpleName(), ".xml");
+		try {
+			FileUtils.write(testResults, "<test_result><test_runs/></test_result>", "UTF-8");
+			long id = client.postTestResult(testResults, false);
+			Assert.assertEquals("success", client.getTestResultStatus(id).getStatus());
+
+			final ByteArrayOutputStream log = new ByteArrayOutputStream();
+			client.getTestResultLog(id, new LogOutput() {
+				@Override
+				public OutputStream getOutputStream() {
+					return log;
+				}
+
+				@Override
+				public void setContentType(String contentType) {
+				}
+			});
+			Assert.assertTrue(log.toString("UTF-8").startsWith("Test results " + id));
+			Assert.assertEquals(1, server.getTestResultCount());
+		} finally {
+			testResults.delete();
+		}
+	}
+
+	@Test
+	public void testPutEventsLogsAndCoverage() {
+		Assert.assertTrue(client.putEvents("{\"server\":{},\"events\":[{\"eventType\":\"started\"},{\"eventType\":\"finished\"}]}"));
+		Assert.assertEquals(2, server.getEventCount());
+
+		byte[] log = "build log".getBytes();
+		Assert.assertTrue(client.postLogs(OctaneStandInServer.WORKSPACE, SERVER_IDENTITY, "job", "1", new ByteArrayInputStream(log), (long) log.length));
+		Assert.assertEquals(log.length, server.getLogBytes());
+
+		byte[] report = "<coverage/>".getBytes();
+		Assert.assertTrue(client.postCoverageReports(SERVER_IDENTITY, "job", "1", new ByteArrayInputStream(report), (long) report.length, "JACOCOXML"));
+		Assert.assertEquals(1, server.getCoverageReportCount());
+	}
+
+	@Test
+	public void testPostCoverageReports() {
+		server.addFailureRule("file-type=BROKEN", 400);
+		List<CoverageReport> reports = new ArrayList<>();
+		for (int i = 0; i < 6; i++) {
+			reports.add(new CoverageReport(createSource("<coverage id=\"" + i + "\"/>", null), i == 3 ? "BROKEN" : "JACOCOXML"));
+		}
+		List<Boolean> result = client.postCoverageReports(SERVER_IDENTITY, "job", "1", reports);
+		Assert.assertEquals(Arrays.asList(true, true, true, false, true, true), result);
+		Assert.assertEquals(5, server.getCoverageReportCount());
+		List<String> received = server.getCoverageReports();
+		Assert.assertFalse(received.contains("<coverage id=\"3\"/>"));
+		Assert.assertTrue(received.contains("<coverage id=\"5\"/>"));
+	}
+
+	@Test
+	public void testPostTestResultOpensSourceOnce() {
+		final AtomicInteger opened = new AtomicInteger();
+		final InputStream content = new ByteArrayInputStream("<test_result><test_runs/></test_result>".getBytes(StandardCharsets.UTF_8));
+		long id = client.postTestResult(new InputStreamSource() {
+			@Override
+			public InputStream getInputStream() {
+				// pre-opened stream, the same instance on every call
+				opened.incrementAndGet();
+				return content;
+			}
+		}, false);
+		Assert.assertEquals(1, opened.get());
+		Assert.assertEquals("success", client.getTestResultStatus(id).getStatus());
+		Assert.assertEquals(1, server.getTestResultCount());
+	}
+
+	@Test
+	public void testCoverageReportIsReplayedOnRetry() {
+		MqmConnectionConfig config = server.createConnectionConfig();
+		MqmRestClientImpl retryingClient = createClient(config);
+		config.getRetryPolicy().setMaxAttempts("PUT", 2);
+		try {
+			retryingClient.validateConfiguration();
+			server.failNextRequests(1, 503);
+			AtomicInteger opened = new AtomicInteger();
+			Assert.assertTrue(retryingClient.postCoverageReports(SERVER_IDENTITY, "job", "1", createSource("<coverage/>", opened), "JACOCOXML"));
+			Assert.assertEquals(1, server.getFailureCount());
+			// once for the gzip detection, once per attempt
+			Assert.assertEquals(3, opened.get());
+		} finally {
+			retryingClient.close();
+		}
+		Assert.assertEquals(Collections.singletonList("<coverage/>"), server.getCoverageReports());
+	}
+
+	private static InputStreamSource createSource(final String content, final AtomicInteger opened) {
+		return new InputStreamSource() {
+			@Override
+			public InputStream getInputStream() {
+				if (opened != null) {
+					opened.incrementAndGet();
+				}
+				return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+			}
+		};
+	}
+
+	@Test
+	public void testPipeline() {
+		Pipeline pipeline = client.createPipeline(SERVER_IDENTITY, "job", "pipeline", OctaneStandInServer.WORKSPACE, null, "{}", "{}");
+		Assert.assertEquals("pipeline", pipeline.getName());
+		Assert.assertTrue(pipeline.isRoot());
+
+		List<Pipeline> pipelines = client.getJobConfiguration(SERVER_IDENTITY, "job").getRelatedPipelines();
+		Assert.assertEquals(1, pipelines.size());
+		Assert.assertEquals(pipeline.getId(), pipelines.get(0).getId());
+		Assert.assertEquals(Collections.singletonList(String.valueOf(OctaneStandInServer.WORKSPACE)), client.getJobWorkspaceId(SERVER_IDENTITY, "job"));
+	}
+
+	@Test
+	public void testConcurrentJobConfigurationRequestsShared() throws Exception {
+		client.createPipeline(SERVER_IDENTITY, "job", "pipeline", OctaneStandInServer.WORKSPACE, null, "{}", "{}");
+		client.validateConfiguration();
+		server.setLatency(500, 500, TimeUnit.MILLISECONDS);
+		server.setRecordRequests(true);
+		final CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<JobConfiguration>> futures = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				futures.add(executor.submit(new Callable<JobConfiguration>() {
+					@Override
+					public JobConfiguration call() throws Exception {
+						start.await();
+						return client.getJobConfiguration(SERVER_IDENTITY, "job");
+					}
+				}));
+			}
+			start.countDown();
+			for (Future<JobConfiguration> future : futures) {
+				Assert.assertEquals(1, future.get(10, TimeUnit.SECONDS).getRelatedPipelines().size());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		Assert.assertEquals(1, countRequests("GET", "/jobs/job/configuration"));
+	}
+
+	@Test
+	public void testJobConfigurations() {
+		client.createPipeline(SERVER_IDENTITY, "job-1", "pipeline", OctaneStandInServer.WORKSPACE, null, "{}", "{}");
+		server.addFailureRule("/jobs/broken-job/", 400);
+		server.setRecordRequests(true);
+		BatchResult<String, JobConfiguration> result = client.getJobConfigurations(SERVER_IDENTITY,
+				Arrays.asList("job-1", "job-2", "broken-job", "job-1"));
+
+		// error of one job doesn't fail the others, duplicates are requested once
+		Assert.assertFalse(result.isSuccessful());
+		Assert.assertEquals(Arrays.asList("job-1", "job-2"), new ArrayList<>(result.getResults().keySet()));
+		Assert.assertEquals(1, result.getResults().get("job-1").getRelatedPipelines().size());
+		Assert.assertEquals(0, result.getResults().get("job-2").getRelatedPipelines().size());
+		Assert.assertEquals(Collections.singleton("broken-job"), result.getErrors().keySet());
+		Assert.assertTrue(result.getErrors().get("broken-job") instanceof RequestException);
+		Assert.assertEquals(1, countRequests("GET", "/jobs/job-1/configuration"));
+	}
+
+	private int countRequests(String method, String uriFragment) {
+		int count = 0;
+		for (OctaneStandInServer.RecordedRequest request : server.getRecordedRequests()) {
+			if (method.equals(request.getMethod()) && request.getUri().contains(uriFragment)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@Test
+	public void testEntities() {
+		for (String name : Arrays.asList("release 1", "release 2", "other")) {
+			JSONObject release = new JSONObject();
+			release.put("name", name);
+			server.getEntityStore().add(OctaneStandInServer.WORKSPACE, "releases", release);
+		}
+		Assert.assertEquals(2, client.queryReleases("release", OctaneStandInServer.WORKSPACE, 0, 10).getTotalCount());
+
+		List<Entity> entities = client.getEntities(OctaneStandInServer.WORKSPACE, "releases",
+				Collections.singletonList(QueryHelper.condition("name", "other")), null);
+		Assert.assertEquals(1, entities.size());
+		PagedList<Entity> deleted = client.deleteEntities(OctaneStandInServer.WORKSPACE, "releases", Collections.singletonList(entities.get(0).getId()));
+		Assert.assertEquals(1, deleted.getTotalCount());
+		Assert.assertEquals(2, server.getEntityStore().size(OctaneStandInServer.WORKSPACE, "releases"));
+
+		PagedList<Workspace> workspaces = client.queryWorkspaces("", 0, 10);
+		Assert.assertEquals(1, workspaces.getItems().size());
+		Assert.assertEquals(OctaneStandInServer.WORKSPACE, workspaces.getItems().get(0).getId());
+	}
+
+	@Test
+	public void testDeleteEntitiesInChunks() {
+		int maxUrlLength = 300;
+		MqmConnectionConfig config = server.createConnectionConfig();
+		config.setMaxUrlLength(maxUrlLength);
+		MqmRestClientImpl chunkingClient = createClient(config);
+		try {
+			List<Long> ids = addReleases(100000, 200);
+			List<Long> duplicated = new ArrayList<>(ids);
+			duplicated.addAll(ids.subList(0, 10));
+			server.setRecordRequests(true);
+			PagedList<Entity> deleted = chunkingClient.deleteEntities(OctaneStandInServer.WORKSPACE, "releases", duplicated);
+
+			int chunks = 0;
+			for (OctaneStandInServer.RecordedRequest request : server.getRecordedRequests()) {
+				if ("DELETE".equals(request.getMethod())) {
+					chunks++;
+					Assert.assertTrue("URL too long: " + request.getUri(), server.getLocation().length() + request.getUri().length() <= maxUrlLength);
+				}
+			}
+			Assert.assertTrue(chunks > 1);
+			// merged count is the sum of the chunks
+			Assert.assertEquals(200, deleted.getTotalCount());
+			Assert.assertEquals(200, deleted.getItems().size());
+			Assert.assertEquals(0, server.getEntityStore().size(OctaneStandInServer.WORKSPACE, "releases"));
+
+			ids = addReleases(200000, 200);
+			server.addFailureRule(String.valueOf(ids.get(ids.size() - 1)), 400);
+			try {
+				chunkingClient.deleteEntities(OctaneStandInServer.WORKSPACE, "releases", ids);
+				Assert.fail("Failure of the chunk should be reported");
+			} catch (PartialDeleteException e) {
+				// entities deleted by the other chunks are reported together with the failure
+				Assert.assertEquals(400, ((RequestException) e.getCause()).getStatusCode());
+				long[] failedIds = e.getFailedIds();
+				Assert.assertTrue(failedIds.length > 0);
+				Assert.assertEquals(ids.get(ids.size() - 1).longValue(), failedIds[failedIds.length - 1]);
+				Assert.assertEquals(200 - failedIds.length, e.getDeleted().getTotalCount());
+				Assert.assertEquals(200 - failedIds.length, e.getDeleted().getItems().size());
+				Assert.assertEquals(failedIds.length, server.getEntityStore().size(OctaneStandInServer.WORKSPACE, "releases"));
+			}
+
+			// nothing deleted, failure of the request is thrown as is
+			server.addFailureRule("/releases", 400);
+			try {
+				chunkingClient.deleteEntities(OctaneStandInServer.WORKSPACE, "releases", ids);
+				Assert.fail("Failure of the chunks should be reported");
+			} catch (RequestException e) {
+				Assert.assertFalse(e instanceof PartialDeleteException);
+			}
+		} finally {
+			chunkingClient.close();
+		}
+	}
+
+	private List<Long> addReleases(long firstId, int count) {
+		List<Long> ids = new ArrayList<>(count);
+		for (long id = firstId; id < firstId + count; id++) {
+			JSONObject release = new JSONObject();
+			release.put("id", id);
+			release.put("name", "release " + id);
+			server.getEntityStore().add(OctaneStandInServer.WORKSPACE, "releases", release);
+			ids.add(id);
+		}
+		return ids;
+	}
+
+	@Test(timeout = 10000)
+	public void testPostAndUpdateEntitiesReleaseConnection() {
+		MqmConnectionConfig config = server.createConnectionConfig();
+		config.setMaxConcurrentRequests(1);
+		MqmRestClientImpl limitedClient = createClient(config);
+		try {
+			// failed requests leave the body unread, connection has to be returned nevertheless
+			server.addFailureRule("/releases", 503);
+			for (int i = 0; i < 2; i++) {
+				try {
+					limitedClient.postEntities(OctaneStandInServer.WORKSPACE, "releases", "{\"data\":[{\"name\":\"release\"}]}");
+					Assert.fail("Post should fail");
+				} catch (TemporarilyUnavailableException e) {
+					// expected
+				}
+				try {
+					limitedClient.updateEntities(OctaneStandInServer.WORKSPACE, "releases", "{\"data\":[]}");
+					Assert.fail("Update should fail");
+				} catch (TemporarilyUnavailableException e) {
+					// expected
+				}
+			}
+			server.clearFailureRules();
+
+			JSONObject created = limitedClient.postEntities(OctaneStandInServer.WORKSPACE, "releases", "{\"data\":[{\"name\":\"release\"}]}");
+			long id = created.getJSONArray("data").getJSONObject(0).getLong("id");
+			JSONObject updated = limitedClient.updateEntity(OctaneStandInServer.WORKSPACE, "releases", id, "{\"name\":\"renamed\"}");
+			Assert.assertEquals("renamed", updated.getString("name"));
+		} finally {
+			limitedClient.close();
+		}
+	}
+
+	@Test
+	public void testAbridgedTasks() {
+		AbridgedTaskPluginInfo info = createPluginInfo();
+		Assert.assertNull(client.getAbridgedTasks(info));
+
+		JSONObject task = new JSONObject();
+		task.put("id", "task-1");
+		task.put("method", "GET");
+		task.put("url", "/nga/api/v1/status");
+		server.addTask(SERVER_IDENTITY, task);
+		String tasks = client.getAbridgedTasks(info);
+		Assert.assertTrue(tasks.contains("task-1"));
+
+		Assert.assertEquals(200, client.putAbridgedResult(SERVER_IDENTITY, "task-1", "{\"status\":200}"));
+		Assert.assertEquals("{\"status\":200}", server.getTaskResult("task-1"));
+	}
+
+	@Test
+	public void testLongPollTimeoutsDoNotOpenCircuitBreaker() {
+		MqmConnectionConfig config = server.createConnectionConfig();
+		config.setTaskPollingTimeout(100);
+		config.setCircuitBreakerWindowSize(4);
+		config.setCircuitBreakerFailureRateThreshold(50);
+		MqmRestClientImpl pollingClient = createClient(config);
+		try {
+			server.setTaskPollTimeout(2, TimeUnit.SECONDS);
+			for (int i = 0; i < 5; i++) {
+				try {
+					pollingClient.getAbridgedTasks(createPluginInfo());
+					Assert.fail("Long poll should time out");
+				} catch (RequestErrorException e) {
+					// expected
+				}
+			}
+			CircuitBreakerStatus status = pollingClient.getCircuitBreakerStatus().get("tasks");
+			Assert.assertEquals(CircuitBreakerStatus.State.CLOSED, status.getState());
+			Assert.assertEquals(0, status.getWindowFailures());
+			Assert.assertEquals(200, pollingClient.putAbridgedResult(SERVER_IDENTITY, "task-1", "{}"));
+		} finally {
+			pollingClient.close();
+		}
+	}
+
+	@Test
+	public void testClientSideFailures() {
+		Assert.assertTrue(AbstractMqmRestClient.isClientSideFailure(new ConnectionPoolTimeoutException(), false));
+		Assert.assertTrue(AbstractMqmRestClient.isClientSideFailure(new SocketTimeoutException(), true));
+		Assert.assertFalse(AbstractMqmRestClient.isClientSideFailure(new SocketTimeoutException(), false));
+		Assert.assertFalse(AbstractMqmRestClient.isClientSideFailure(new ConnectException(), true));
+	}
+
+	@Test(timeout = 10000)
+	public void testConcurrencyPermitHeldUntilResponseConsumed() throws IOException {
+		MqmConnectionConfig config = server.createConnectionConfig();
+		config.setMaxConcurrentRequests(1);
+		MqmRestClientImpl limitedClient = createClient(config);
+		try {
+			// permit of each response has to be returned once its body is read, otherwise the next request waits
+			for (int i = 0; i < 5; i++) {
+				Assert.assertEquals(1, limitedClient.queryWorkspaces("", 0, 10).getTotalCount());
+				Assert.assertTrue(limitedClient.putEvents("{\"server\":{},\"events\":[]}"));
+			}
+		} finally {
+			limitedClient.close();
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void testFailingMetricsListener() {
+		MqmConnectionConfig config = server.createConnectionConfig();
+		config.setMaxConcurrentRequests(1);
+		final AtomicInteger calls = new AtomicInteger();
+		MetricsListener failing = new InMemoryMetrics() {
+			@Override
+			public void onRequest(RequestMetrics metrics) {
+				calls.incrementAndGet();
+				throw new IllegalStateException("onRequest");
+			}
+
+			@Override
+			public void onLogin(boolean relogin, boolean success, long duration) {
+				calls.incrementAndGet();
+				throw new IllegalStateException("onLogin");
+			}
+		};
+		config.setMetricsListener(failing);
+		MqmRestClientImpl failingClient = new MqmRestClientImpl(config);
+		try {
+			// failures of the listener neither fail the requests nor leak their connections
+			for (int i = 0; i < 3; i++) {
+				Assert.assertEquals(1, failingClient.queryWorkspaces("", 0, 10).getTotalCount());
+			}
+			Assert.assertEquals(4, calls.get());
+			Assert.assertSame(failing, failingClient.getMetricsListener());
+		} finally {
+			failingClient.close();
+		}
+	}
+
+	@Test
+	public void testReloginAfterSessionExpiration() {
+		client.validateConfiguration();
+		server.expireSessions();
+		Assert.assertTrue(client.putEvents("{\"server\":{},\"events\":[]}"));
+		Assert.assertEquals(2, server.getLoginCount());
+		Assert.assertEquals(1, metrics.getRelogins());
+	}
+
+	@Test
+	public void testRetryOfInjectedFailure() {
+		client.validateConfiguration();
+		server.failNextRequests(2, 503);
+		Assert.assertEquals(1, client.queryWorkspaces("", 0, 10).getTotalCount());
+		Assert.assertEquals(2, server.getFailureCount());
+		Assert.assertEquals(2, metrics.getEndpoints().get("api/shared_spaces/{id}/workspaces").getRetries());
+	}
+
+	private static AbridgedTaskPluginInfo createPluginInfo() {
+		return new AbridgedTaskPluginInfo()
+				.setSelfIdentity(SERVER_IDENTITY)
+				.setSelfType("jenkins")
+				.setSelfLocation("http://localhost:8080")
+				.setApiVersion(1)
+				.setSdkVersion("1.0")
+				.setPluginVersion("1.0")
+				.setOctaneUser("admin")
+				.setCiServerUser("jenkins");
+	}
+
+	private MqmRestClientImpl createClient(MqmConnectionConfig config) {
+		RetryPolicy retryPolicy = new RetryPolicy();
+		retryPolicy.setInitialBackoff(10);
+		config.setRetryPolicy(retryPolicy);
+		metrics = new InMemoryMetrics();
+		config.setMetricsListener(metrics);
+		return new MqmRestClientImpl(config);
+	}
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Creates {@link MqmRestClient} stubs which delegate the named methods to the given handler. Any other method
+ * throws {@link UnsupportedOperationException}, so that tests notice when the code under test starts to use it.
+ */
+final class MqmRestClientStub {
+
+	interface Handler {
+		Object handle(String methodName, Object[] args) throws Exception;
+	}
+
+	private MqmRestClientStub() {
+	}
+
+	static MqmRestClient create(final Handler handler, String... methodNames) {
+		final List<String> handledMethods = Arrays.asList(methodNames);
+		return (MqmRestClient) Proxy.newProxyInstance(MqmRestClient.class.getClassLoader(), new Class[]{MqmRestClient.class}, new InvocationHandler() {
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) throws Exception {
+				if (!handledMethods.contains(method.getName())) {
+					throw new UnsupportedOperationException(method.getName());
+				}
+				return handler.handle(method.getName(), args);
+			}
+		});
+	}
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RetryPolicyTest {
+
+	@Test
+	public void testMaxAttempts() {
+		RetryPolicy policy = new RetryPolicy();
+		Assert.assertEquals(3, policy.getMaxAttempts("GET"));
+		Assert.assertEquals(1, policy.getMaxAttempts("PUT"));
+		policy.setMaxAttempts("put", 5);
+		Assert.assertEquals(5, policy.getMaxAttempts("PUT"));
+
+		// non-idempotent requests are never retried
+		policy.setMaxAttempts("POST", 5);
+		Assert.assertEquals(1, policy.getMaxAttempts("POST"));
+
+		Assert.assertEquals(1, RetryPolicy.none().getMaxAttempts("GET"));
+	}
+
+	@Test
+	public void testDelay() {
+		RetryPolicy policy = new RetryPolicy();
+		policy.setInitialBackoff(100);
+		policy.setMaxBackoff(1000);
+		policy.setMaxRetryAfter(5000);
+		for (int i = 0; i < 100; i++) {
+			Assert.assertTrue(policy.getDelay(1, -1) <= 100);
+			Assert.assertTrue(policy.getDelay(3, -1) <= 400);
+			Assert.assertTrue(policy.getDelay(20, -1) <= 1000);
+			Assert.assertTrue(policy.getDelay(1, 2000) >= 2000);
+		}
+		Assert.assertEquals(-1, policy.getDelay(1, 10000));
+	}
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client.exception;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+public class RequestErrorExceptionTest {
+
+	private static final String STACK_TRACE = "java.lang.IllegalStateException: failure\n" +
+			"\tat com.hp.Server.process(Server.java:10)\n" +
+			"\tat com.hp.Server.main(Server.java:5)\n";
+
+	@Test
+	public void testServerCauseIsParsedOnDemand() {
+		RequestErrorException exception = RequestErrorException.withServerStackTrace("message", "description", "code", 500, "reason", STACK_TRACE, null);
+		Assert.assertEquals(STACK_TRACE, exception.getServerStackTrace());
+
+		Throwable cause = exception.getCause();
+		Assert.assertTrue(cause instanceof ServerException);
+		Assert.assertSame(cause, exception.getCause());
+		Assert.assertEquals("java.lang.IllegalStateException: failure", cause.getCause().toString());
+		Assert.assertEquals(2, cause.getCause().getStackTrace().length);
+
+		StringWriter writer = new StringWriter();
+		exception.printStackTrace(new PrintWriter(writer));
+		Assert.assertTrue(writer.toString().contains("com.hp.Server.process(Server.java:10)"));
+	}
+
+	@Test
+	public void testNoServerStackTrace() {
+		RequestErrorException exception = RequestErrorException.withServerStackTrace("message", "description", "code", 500, "reason", "", null);
+		Assert.assertNull(exception.getCause());
+	}
+
+	@Test
+	public void testConstructorWithoutCause() {
+		// literal null cause must stay unambiguous for the existing callers
+		RequestErrorException exception = new RequestErrorException("message", "description", "code", 500, "reason", null, null);
+		Assert.assertNull(exception.getCause());
+		Assert.assertNull(exception.getServerStackTrace());
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hp.mqm.client.interceptor;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class RequestInterceptorChainTest {
+
+	@Test
+	public void testOrder() {
+		List<String> calls = new LinkedList<>();
+		RequestInterceptorChain chain = new RequestInterceptorChain(Arrays.<RequestInterceptor>asList(
+				new RecordingInterceptor("a", calls), new RecordingInterceptor("b", calls)));
+		RequestContext context = new RequestContext(new HttpGet("http://localhost/test"), "test");
+		chain.beforeSend(context);
+		chain.afterReceive(context, new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK"));
+		chain.onError(context, new IOException());
+		Assert.assertEquals(Arrays.asList("a.before", "b.before", "b.after", "a.after", "b.error", "a.error"), calls);
+	}
+
+	@Test
+	public void testFailingCallbackIsIgnored() {
+		List<String> calls = new LinkedList<>();
+		RequestInterceptorChain chain = new RequestInterceptorChain(Arrays.asList(new RecordingInterceptor("a", calls), new RequestInterceptorAdapter() {
+			@Override
+			public void afterReceive(RequestContext context, HttpResponse response) {
+				throw new IllegalStateException();
+			}
+		}));
+		chain.afterReceive(new RequestContext(new HttpGet("http://localhost/test"), "test"), new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK"));
+		Assert.assertEquals(Arrays.asList("a.after"), calls);
+	}
+
+	@Test
+	public void testCorrelationId() {
+		RequestInterceptorChain chain = new RequestInterceptorChain(Arrays.<RequestInterceptor>asList(new CorrelationIdInterceptor()));
+		HttpGet request = new HttpGet("http://localhost/test");
+		RequestContext context = new RequestContext(request, "test");
+		chain.beforeSend(context);
+		String generated = request.getFirstHeader(CorrelationIdInterceptor.DEFAULT_HEADER).getValue();
+		Assert.assertNotNull(generated);
+
+		// retry of the request keeps the id
+		context.setAttempt(2);
+		chain.beforeSend(context);
+		Assert.assertEquals(generated, request.getFirstHeader(CorrelationIdInterceptor.DEFAULT_HEADER).getValue());
+
+		CorrelationIdInterceptor.setCorrelationId("job#42");
+		try {
+			HttpGet buildRequest = new HttpGet("http://localhost/test");
+			chain.beforeSend(new RequestContext(buildRequest, "test"));
+			Assert.assertEquals("job#42", buildRequest.getFirstHeader(CorrelationIdInterceptor.DEFAULT_HEADER).getValue());
+		} finally {
+			CorrelationIdInterceptor.setCorrelationId(null);
+		}
+		Assert.assertNull(CorrelationIdInterceptor.getCorrelationId());
+	}
+
+	@Test
+	public void testTimingSpan() throws InterruptedException {
+		final List<Long> spans = new LinkedList<>();
+		RequestInterceptorChain chain = new RequestInterceptorChain(Arrays.<RequestInterceptor>asList(new TimingInterceptor(1, TimeUnit.SECONDS) {
+			@Override
+			protected void onSpan(RequestContext context, int statusCode, long duration, Exception error) {
+				Assert.assertEquals(-1, statusCode);
+				Assert.assertNotNull(error);
+				spans.add(duration);
+			}
+		}));
+		RequestContext context = new RequestContext(new HttpGet("http://localhost/test"), "test");
+		chain.beforeSend(context);
+		Thread.sleep(20);
+		chain.onError(context, new IOException());
+		Assert.assertEquals(1, spans.size());
+		Assert.assertTrue(spans.get(0) >= TimeUnit.MILLISECONDS.toNanos(20));
+	}
+
+	private static class RecordingInterceptor implements RequestInterceptor {
+
+		private final String name;
+		private final List<String> calls;
+
+		private RecordingInterceptor(String name, List<String> calls) {
+			this.name = name;
+			this.calls = calls;
+		}
+
+		@Override
+		public void beforeSend(RequestContext context) {
+			calls.add(name + ".before");
+		}
+
+		@Override
+		public void afterReceive(RequestContext context, HttpResponse response) {
+			calls.add(name + ".after");
+		}
+
+		@Override
+		public void onError(RequestContext context, Exception error) {
+			calls.add(name + ".error");
+		}
+	}
+}
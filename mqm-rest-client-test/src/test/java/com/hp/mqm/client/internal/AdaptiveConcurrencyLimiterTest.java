@@ -0,0 +1,73 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client.internal;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+	@Test
+	public void testLimitGrowsWhileLatencyIsStable() throws InterruptedException {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 10, 0);
+		for (int i = 0; i < 100; i++) {
+			int limit = limiter.getLimit();
+			for (int j = 0; j < limit; j++) {
+				Assert.assertTrue(limiter.acquire(0));
+			}
+			for (int j = 0; j < limit; j++) {
+				limiter.release(TimeUnit.MILLISECONDS.toNanos(10), true, false);
+			}
+		}
+		Assert.assertEquals(10, limiter.getLimit());
+		Assert.assertEquals(0, limiter.getInFlight());
+	}
+
+	@Test
+	public void testLimitShrinksOnOverload() throws InterruptedException {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 1, 10, 10, 0);
+		Assert.assertTrue(limiter.acquire(0));
+		limiter.release(TimeUnit.MILLISECONDS.toNanos(10), true, true);
+		Assert.assertEquals(4, limiter.getLimit());
+	}
+
+	@Test
+	public void testLimitShrinksOnLatencyGrowth() throws InterruptedException {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 10, 10, 0);
+		for (int i = 0; i < 20; i++) {
+			limiter.acquire(0);
+			limiter.release(TimeUnit.MILLISECONDS.toNanos(10), true, false);
+		}
+		for (int i = 0; i < 100; i++) {
+			limiter.acquire(0);
+			limiter.release(TimeUnit.MILLISECONDS.toNanos(100), true, false);
+		}
+		Assert.assertTrue(limiter.getLimit() < 10);
+	}
+
+	@Test
+	public void testRejectsOverLimit() throws InterruptedException {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 4, 10);
+		Assert.assertTrue(limiter.acquire(0));
+		Assert.assertFalse(limiter.acquire(2));
+		Assert.assertFalse(limiter.acquire(0));
+		Assert.assertEquals(2, limiter.getRejectedCount());
+		limiter.cancel();
+		Assert.assertTrue(limiter.acquire(2));
+	}
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client.internal;
+
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.impl.cookie.BasicClientCookie;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+
+public class AuthContextTest {
+
+	@Test
+	public void testHttpContextPerRequest() {
+		BasicClientCookie token = new BasicClientCookie("LWSSO_COOKIE_KEY", "token");
+		AuthContext auth = new AuthContext(token, 1);
+		HttpClientContext first = auth.createHttpContext();
+		first.setAttribute(HttpClientContext.HTTP_REQUEST, new Object());
+		HttpClientContext second = auth.createHttpContext();
+
+		// state of one execution is not visible to the others, the session cookie store is shared
+		Assert.assertNotSame(first, second);
+		Assert.assertNull(second.getAttribute(HttpClientContext.HTTP_REQUEST));
+		Assert.assertSame(first.getCookieStore(), second.getCookieStore());
+		Assert.assertEquals(Collections.singletonList(token), second.getCookieStore().getCookies());
+
+		second.getCookieStore().addCookie(new BasicClientCookie("other", "value"));
+		second.getCookieStore().clear();
+		Assert.assertEquals(Collections.singletonList(token), first.getCookieStore().getCookies());
+	}
+}
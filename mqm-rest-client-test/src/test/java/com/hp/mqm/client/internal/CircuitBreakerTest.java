@@ -0,0 +1,77 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client.internal;
+
+import com.hp.mqm.client.model.CircuitBreakerStatus;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CircuitBreakerTest {
+
+	@Test
+	public void testOpensOnFailureRate() {
+		CircuitBreaker breaker = new CircuitBreaker("test", 50, 4, 60000, 1);
+		for (int i = 0; i < 2; i++) {
+			Assert.assertTrue(breaker.tryAcquire());
+			breaker.onSuccess();
+		}
+		Assert.assertTrue(breaker.tryAcquire());
+		breaker.onFailure();
+		Assert.assertEquals(CircuitBreakerStatus.State.CLOSED, breaker.getStatus().getState());
+		Assert.assertTrue(breaker.tryAcquire());
+		breaker.onFailure();
+
+		CircuitBreakerStatus status = breaker.getStatus();
+		Assert.assertEquals(CircuitBreakerStatus.State.OPEN, status.getState());
+		Assert.assertEquals(1, status.getOpenedCount());
+		Assert.assertFalse(breaker.tryAcquire());
+		Assert.assertEquals(1, breaker.getStatus().getRejectedCount());
+	}
+
+	@Test
+	public void testHalfOpenTrials() throws InterruptedException {
+		CircuitBreaker breaker = new CircuitBreaker("test", 100, 2, 200, 2);
+		breaker.tryAcquire();
+		breaker.onFailure();
+		Assert.assertEquals(CircuitBreakerStatus.State.OPEN, breaker.getStatus().getState());
+		Thread.sleep(250);
+
+		// only configured number of trials is permitted
+		Assert.assertTrue(breaker.tryAcquire());
+		Assert.assertTrue(breaker.tryAcquire());
+		Assert.assertFalse(breaker.tryAcquire());
+		breaker.onSuccess();
+		breaker.onSuccess();
+		Assert.assertEquals(CircuitBreakerStatus.State.CLOSED, breaker.getStatus().getState());
+
+		breaker.tryAcquire();
+		breaker.onFailure();
+		Thread.sleep(250);
+		Assert.assertTrue(breaker.tryAcquire());
+		breaker.onFailure();
+		Assert.assertEquals(CircuitBreakerStatus.State.OPEN, breaker.getStatus().getState());
+	}
+
+	@Test
+	public void testDisabled() {
+		CircuitBreaker breaker = new CircuitBreaker("test", 0, 2, 60000, 1);
+		for (int i = 0; i < 10; i++) {
+			Assert.assertTrue(breaker.tryAcquire());
+			breaker.onFailure();
+		}
+		Assert.assertEquals(CircuitBreakerStatus.State.CLOSED, breaker.getStatus().getState());
+	}
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client.internal;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LongHashSetTest {
+
+	@Test
+	public void testInsertionOrder() {
+		LongHashSet set = new LongHashSet();
+		for (long i = 1000; i > 0; i--) {
+			Assert.assertTrue(set.add(i * 31));
+		}
+		Assert.assertFalse(set.add(31));
+		Assert.assertEquals(1000, set.size());
+		Assert.assertEquals(31000, set.get(0));
+		Assert.assertEquals(31, set.get(999));
+		Assert.assertTrue(set.contains(62));
+		Assert.assertFalse(set.contains(63));
+	}
+
+	@Test
+	public void testDistinct() {
+		Assert.assertArrayEquals(new long[]{3, 1, 2, Long.MIN_VALUE}, LongHashSet.distinct(new long[]{3, 1, 3, 2, 1, Long.MIN_VALUE, 2}));
+		long[] unique = new long[]{1, 2};
+		Assert.assertSame(unique, LongHashSet.distinct(unique));
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client.internal;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.util.EntityUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ReleasingEntityTest {
+
+	@Test
+	public void testReleaseAtEndOfContent() throws IOException {
+		AtomicInteger released = new AtomicInteger();
+		ReleasingEntity entity = new ReleasingEntity(createEntity("body"), createCallback(released));
+		InputStream content = entity.getContent();
+		Assert.assertEquals('b', content.read());
+		Assert.assertEquals(0, released.get());
+		Assert.assertEquals("ody", IOUtils.toString(content, "UTF-8"));
+		Assert.assertEquals(1, released.get());
+		content.close();
+		Assert.assertEquals(1, released.get());
+	}
+
+	@Test
+	public void testReleaseOnClose() throws IOException {
+		AtomicInteger released = new AtomicInteger();
+		ReleasingEntity entity = new ReleasingEntity(createEntity("body"), createCallback(released));
+		InputStream content = entity.getContent();
+		content.read();
+		content.close();
+		Assert.assertEquals(1, released.get());
+	}
+
+	@Test
+	public void testReleaseAfterWrite() throws IOException {
+		AtomicInteger released = new AtomicInteger();
+		ReleasingEntity entity = new ReleasingEntity(createEntity("body"), createCallback(released));
+		entity.writeTo(new NullOutputStream());
+		Assert.assertEquals(1, released.get());
+	}
+
+	@Test
+	public void testReleaseWhenConsumed() throws IOException {
+		AtomicInteger released = new AtomicInteger();
+		HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+		response.setEntity(createEntity("body"));
+		ReleasingEntity.releaseWhenConsumed(response, createCallback(released));
+		Assert.assertEquals(0, released.get());
+		EntityUtils.consume(response.getEntity());
+		Assert.assertEquals(1, released.get());
+	}
+
+	@Test
+	public void testReleaseWithoutStreamedContent() {
+		AtomicInteger released = new AtomicInteger();
+		HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 204, "No Content");
+		ReleasingEntity.releaseWhenConsumed(response, createCallback(released));
+		Assert.assertEquals(1, released.get());
+
+		// repeatable entity holds no connection
+		response.setEntity(new StringEntity("body", StandardCharsets.UTF_8));
+		ReleasingEntity.releaseWhenConsumed(response, createCallback(released));
+		Assert.assertEquals(2, released.get());
+		Assert.assertTrue(response.getEntity() instanceof StringEntity);
+	}
+
+	private static BasicHttpEntity createEntity(String body) {
+		BasicHttpEntity entity = new BasicHttpEntity();
+		entity.setContent(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+		return entity;
+	}
+
+	private static Runnable createCallback(final AtomicInteger released) {
+		return new Runnable() {
+			@Override
+			public void run() {
+				released.incrementAndGet();
+			}
+		};
+	}
+}
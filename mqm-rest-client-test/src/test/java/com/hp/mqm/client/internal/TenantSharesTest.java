@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client.internal;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class TenantSharesTest {
+
+	private final Object tenantA = new Object();
+	private final Object tenantB = new Object();
+
+	@Test
+	public void testSoleTenantNotLimited() throws InterruptedException {
+		TenantShares shares = new TenantShares(2);
+		for (int i = 0; i < 5; i++) {
+			Assert.assertTrue(shares.acquire(tenantA, 0, 0));
+		}
+		Assert.assertEquals(5, shares.getInFlight(tenantA));
+		Assert.assertEquals(1, shares.getActiveTenants());
+	}
+
+	@Test
+	public void testFairShare() throws InterruptedException {
+		TenantShares shares = new TenantShares(4);
+		for (int i = 0; i < 4; i++) {
+			Assert.assertTrue(shares.acquire(tenantA, 0, 0));
+		}
+
+		// second active tenant gets half of the pool, the busy one waits until it drops below its half
+		Assert.assertTrue(shares.acquire(tenantB, 0, 0));
+		Assert.assertTrue(shares.acquire(tenantB, 0, 0));
+		Assert.assertFalse(shares.acquire(tenantB, 0, 0));
+		Assert.assertFalse(shares.acquire(tenantA, 0, 0));
+		shares.release(tenantA);
+		shares.release(tenantA);
+		Assert.assertFalse(shares.acquire(tenantA, 0, 0));
+		shares.release(tenantA);
+		Assert.assertTrue(shares.acquire(tenantA, 0, 0));
+		Assert.assertEquals(2, shares.getInFlight(tenantA));
+		Assert.assertEquals(2, shares.getInFlight(tenantB));
+	}
+
+	@Test
+	public void testMaxPerTenant() throws InterruptedException {
+		TenantShares shares = new TenantShares(4);
+		Assert.assertTrue(shares.acquire(tenantA, 1, 0));
+		Assert.assertFalse(shares.acquire(tenantA, 1, 0));
+		Assert.assertTrue(shares.acquire(tenantB, 1, 0));
+	}
+
+	@Test
+	public void testWaitingTenantProceedsOnRelease() throws Exception {
+		final TenantShares shares = new TenantShares(4);
+		Assert.assertTrue(shares.acquire(tenantA, 0, 0));
+		Assert.assertTrue(shares.acquire(tenantA, 0, 0));
+		Assert.assertTrue(shares.acquire(tenantB, 0, 0));
+		Assert.assertTrue(shares.acquire(tenantB, 0, 0));
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<Boolean> waiting = executor.submit(new Callable<Boolean>() {
+				@Override
+				public Boolean call() throws InterruptedException {
+					return shares.acquire(tenantA, 0, 10000);
+				}
+			});
+			Thread.sleep(100);
+			Assert.assertFalse(waiting.isDone());
+
+			// tenant B becomes inactive, tenant A is alone again
+			shares.release(tenantB);
+			shares.release(tenantB);
+			Assert.assertTrue(waiting.get(5, TimeUnit.SECONDS));
+			Assert.assertEquals(0, shares.getInFlight(tenantB));
+			Assert.assertEquals(1, shares.getActiveTenants());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testReleaseWithoutAcquire() {
+		new TenantShares(4).release(tenantA);
+	}
+}
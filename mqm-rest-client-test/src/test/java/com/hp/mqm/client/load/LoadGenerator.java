@@ -0,0 +1,596 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hp.mqm.client.load;
+
+import com.hp.mqm.client.InputStreamSource;
+import com.hp.mqm.client.MqmConnectionConfig;
+import com.hp.mqm.client.MqmRestClient;
+import com.hp.mqm.client.MqmRestClientImpl;
+import com.hp.mqm.client.QueryHelper;
+import com.hp.mqm.client.metrics.LatencyHistogram;
+import com.hp.mqm.client.model.AbridgedTaskPluginInfo;
+import com.hp.mqm.client.standin.OctaneStandInServer;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Drives single {@link MqmRestClient} instance from a fleet of simulated CI servers to find out the load
+ * the client sustains.
+ *
+ * Every simulated server repeatedly picks an operation according to the configured mix (see {@link Operation}),
+ * executes it and waits for the think time. Latency of the successful operations, errors, throughput, heap and
+ * thread usage and GC activity are collected into {@link Report}.
+ *
+ * Running {@link #main(String[])} starts {@link OctaneStandInServer} and drives the client against it, it is
+ * configured by system properties (see 'load' profile of this module):
+ * <ul>
+ *     <li>load.servers - number of simulated CI servers (default 20)</li>
+ *     <li>load.duration - duration of the run in seconds (default 60)</li>
+ *     <li>load.mix - weights of the operations, e.g. 'EVENTS=50,TEST_RESULT=10,LOGS=10,TASKS=10,ENTITY_QUERY=20'</li>
+ *     <li>load.thinkTime - pause of the server between two operations in milliseconds (default 0)</li>
+ *     <li>load.latency - latency of the stand-in server in milliseconds, e.g. '5-50' (default 0)</li>
+ *     <li>load.errorRate - ratio of the requests the stand-in fails with 503 (default 0)</li>
+ *     <li>load.taskRate - abridged tasks queued by the stand-in server per second (default 10)</li>
+ *     <li>load.maxConcurrentRequests - enables adaptive concurrency limit of the client with given maximum</li>
+ * </ul>
+ */
+public class LoadGenerator {
+	private static final Logger logger = Logger.getLogger(LoadGenerator.class.getName());
+
+	/**
+	 * Operations executed by the simulated CI servers.
+	 */
+	public enum Operation {
+		/**
+		 * {@link MqmRestClient#putEvents(String)} with a batch of build events
+		 */
+		EVENTS,
+		/**
+		 * {@link MqmRestClient#postTestResult(InputStreamSource, boolean)} with random number of test runs
+		 */
+		TEST_RESULT,
+		/**
+		 * {@link MqmRestClient#postLogs} of a build log segment
+		 */
+		LOGS,
+		/**
+		 * {@link MqmRestClient#getAbridgedTasks(AbridgedTaskPluginInfo)} long poll, results of received tasks are put back
+		 */
+		TASKS,
+		/**
+		 * {@link MqmRestClient#getEntities} query of releases
+		 */
+		ENTITY_QUERY
+	}
+
+	private final MqmRestClient client;
+	private final Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+	private int servers = 20;
+	private long duration = TimeUnit.SECONDS.toMillis(60);
+	private long thinkTime;
+	private long workspaceId = OctaneStandInServer.WORKSPACE;
+	private int eventsPerRequest = 10;
+	private int minTestRuns = 10;
+	private int maxTestRuns = 2000;
+	private int logSegmentSize = 64 * 1024;
+
+	public LoadGenerator(MqmRestClient client) {
+		if (client == null) {
+			throw new IllegalArgumentException("Client cannot be null.");
+		}
+		this.client = client;
+		mix.put(Operation.EVENTS, 50);
+		mix.put(Operation.TEST_RESULT, 10);
+		mix.put(Operation.LOGS, 10);
+		mix.put(Operation.TASKS, 10);
+		mix.put(Operation.ENTITY_QUERY, 20);
+	}
+
+	public void setServers(int servers) {
+		if (servers < 1) {
+			throw new IllegalArgumentException("Number of servers must be positive.");
+		}
+		this.servers = servers;
+	}
+
+	public void setDuration(long duration, TimeUnit unit) {
+		this.duration = unit.toMillis(duration);
+	}
+
+	public void setThinkTime(long thinkTime, TimeUnit unit) {
+		this.thinkTime = unit.toMillis(thinkTime);
+	}
+
+	/**
+	 * @param weight relative weight of the operation in the mix, 0 excludes the operation
+	 */
+	public void setWeight(Operation operation, int weight) {
+		if (weight < 0) {
+			throw new IllegalArgumentException("Weight cannot be negative.");
+		}
+		mix.put(operation, weight);
+	}
+
+	public void setWorkspaceId(long workspaceId) {
+		this.workspaceId = workspaceId;
+	}
+
+	public void setEventsPerRequest(int eventsPerRequest) {
+		this.eventsPerRequest = eventsPerRequest;
+	}
+
+	/**
+	 * Size of the posted test results is chosen randomly (uniformly) between given number of test runs.
+	 */
+	public void setTestRuns(int min, int max) {
+		if (min < 0 || max < min) {
+			throw new IllegalArgumentException("Invalid test runs range: " + min + " - " + max);
+		}
+		this.minTestRuns = min;
+		this.maxTestRuns = max;
+	}
+
+	public void setLogSegmentSize(int logSegmentSize) {
+		this.logSegmentSize = logSegmentSize;
+	}
+
+	/**
+	 * Runs the load for the configured duration.
+	 */
+	public Report run() throws InterruptedException {
+		int totalWeight = 0;
+		for (int weight : mix.values()) {
+			totalWeight += weight;
+		}
+		if (totalWeight == 0) {
+			throw new IllegalStateException("At least one operation must have positive weight.");
+		}
+
+		final Report report = new Report(servers);
+		ResourceSampler sampler = new ResourceSampler(report);
+		sampler.start();
+		final long deadline = System.currentTimeMillis() + duration;
+		long start = System.nanoTime();
+		ExecutorService executor = Executors.newFixedThreadPool(servers);
+		for (int i = 0; i < servers; i++) {
+			final SimulatedServer server = new SimulatedServer("load-server-" + i, totalWeight, report);
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					while (System.currentTimeMillis() < deadline && !Thread.currentThread().isInterrupted()) {
+						server.executeNext();
+						if (thinkTime > 0) {
+							try {
+								Thread.sleep(thinkTime);
+							} catch (InterruptedException e) {
+								return;
+							}
+						}
+					}
+				}
+			});
+		}
+		executor.shutdown();
+		// long polls may outlast the deadline
+		if (!executor.awaitTermination(duration + TimeUnit.MINUTES.toMillis(5), TimeUnit.MILLISECONDS)) {
+			executor.shutdownNow();
+		}
+		report.elapsed = System.nanoTime() - start;
+		sampler.finish();
+		return report;
+	}
+
+	private class SimulatedServer {
+
+		private final String identity;
+		private final int totalWeight;
+		private final Report report;
+		private final AbridgedTaskPluginInfo pluginInfo;
+		private int buildNumber;
+
+		private SimulatedServer(String identity, int totalWeight, Report report) {
+			this.identity = identity;
+			this.totalWeight = totalWeight;
+			this.report = report;
+			this.pluginInfo = new AbridgedTaskPluginInfo()
+					.setSelfIdentity(identity)
+					.setSelfType("jenkins")
+					.setSelfLocation("http://" + identity + ":8080")
+					.setApiVersion(1)
+					.setSdkVersion("1.0")
+					.setPluginVersion("1.0")
+					.setOctaneUser("admin")
+					.setCiServerUser("jenkins");
+		}
+
+		private void executeNext() {
+			Operation operation = pickOperation();
+			long start = System.nanoTime();
+			try {
+				if (execute(operation)) {
+					report.record(operation, System.nanoTime() - start);
+				} else {
+					report.recordError(operation);
+				}
+			} catch (RuntimeException e) {
+				report.recordError(operation);
+				logger.log(Level.FINE, "Operation " + operation + " of " + identity + " failed", e);
+			}
+		}
+
+		private Operation pickOperation() {
+			int value = ThreadLocalRandom.current().nextInt(totalWeight);
+			for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+				value -= entry.getValue();
+				if (value < 0) {
+					return entry.getKey();
+				}
+			}
+			throw new IllegalStateException();
+		}
+
+		private boolean execute(Operation operation) {
+			String job = "job-" + ThreadLocalRandom.current().nextInt(10);
+			switch (operation) {
+				case EVENTS:
+					if (!client.putEvents(createEvents(job))) {
+						return false;
+					}
+					report.events.addAndGet(eventsPerRequest);
+					return true;
+				case TEST_RESULT:
+					int testRuns = minTestRuns + ThreadLocalRandom.current().nextInt(maxTestRuns - minTestRuns + 1);
+					client.postTestResult(new ByteArraySource(createTestResult(job, testRuns)), false);
+					report.testRuns.addAndGet(testRuns);
+					return true;
+				case LOGS:
+					byte[] log = createLog();
+					return client.postLogs(workspaceId, identity, job, String.valueOf(buildNumber), new ByteArrayInputStream(log), (long) log.length);
+				case TASKS:
+					String tasks = client.getAbridgedTasks(pluginInfo);
+					if (tasks != null) {
+						JSONArray taskArray = JSONArray.fromObject(tasks);
+						for (int i = 0; i < taskArray.size(); i++) {
+							int status = client.putAbridgedResult(identity, taskArray.getJSONObject(i).getString("id"), "{\"status\":200,\"body\":\"{}\"}");
+							if (status < 200 || status >= 300) {
+								return false;
+							}
+						}
+					}
+					return true;
+				case ENTITY_QUERY:
+					client.getEntities(workspaceId, "releases", Collections.singletonList(QueryHelper.condition("name", "*" + job + "*")), null);
+					return true;
+				default:
+					throw new IllegalStateException("Unknown operation " + operation);
+			}
+		}
+
+		private String createEvents(String job) {
+			JSONObject server = new JSONObject();
+			server.put("type", "jenkins");
+			server.put("instanceId", identity);
+			server.put("url", pluginInfo.getSelfLocation());
+			JSONArray events = new JSONArray();
+			for (int i = 0; i < eventsPerRequest; i++) {
+				JSONObject event = new JSONObject();
+				event.put("eventType", i % 2 == 0 ? "started" : "finished");
+				event.put("buildCiId", String.valueOf(++buildNumber));
+				event.put("project", job);
+				event.put("number", String.valueOf(buildNumber));
+				event.put("startTime", System.currentTimeMillis());
+				event.put("causes", new JSONArray());
+				events.add(event);
+			}
+			JSONObject result = new JSONObject();
+			result.put("server", server);
+			result.put("events", events);
+			return result.toString();
+		}
+
+		private byte[] createTestResult(String job, int testRuns) {
+			StringBuilder xml = new StringBuilder(256 + testRuns * 160);
+			xml.append("<?xml version='1.0' encoding='UTF-8'?><test_result><build server_id=\"").append(identity)
+					.append("\" job_id=\"").append(job).append("\" build_id=\"").append(buildNumber).append("\"/><test_runs>");
+			for (int i = 0; i < testRuns; i++) {
+				xml.append("<test_run module=\"module\" package=\"com.example\" class=\"Test").append(i / 20)
+						.append("\" name=\"test").append(i).append("\" duration=\"").append(i % 1000)
+						.append("\" status=\"").append(i % 50 == 0 ? "Failed" : "Passed").append("\" started=\"")
+						.append(System.currentTimeMillis()).append("\"/>");
+			}
+			xml.append("</test_runs></test_result>");
+			return toBytes(xml.toString());
+		}
+
+		private byte[] createLog() {
+			StringBuilder log = new StringBuilder(logSegmentSize);
+			long line = 0;
+			while (log.length() < logSegmentSize) {
+				log.append("[INFO] ").append(identity).append(" build ").append(buildNumber).append(" line ").append(line++).append('\n');
+			}
+			log.setLength(logSegmentSize);
+			return toBytes(log.toString());
+		}
+	}
+
+	private static byte[] toBytes(String value) {
+		try {
+			return value.getBytes("UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static class ByteArraySource implements InputStreamSource {
+
+		private final byte[] content;
+
+		private ByteArraySource(byte[] content) {
+			this.content = content;
+		}
+
+		@Override
+		public InputStream getInputStream() {
+			return new ByteArrayInputStream(content);
+		}
+	}
+
+	/**
+	 * Samples heap and thread usage of the JVM during the run.
+	 */
+	private static class ResourceSampler extends Thread {
+
+		private final Report report;
+		private final MemoryMXBean memoryMXBean = ManagementFactory.getMemoryMXBean();
+		private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+		private final long gcCountBefore;
+		private final long gcTimeBefore;
+		private volatile boolean finished;
+
+		private ResourceSampler(Report report) {
+			super("load-resource-sampler");
+			setDaemon(true);
+			this.report = report;
+			this.gcCountBefore = getGcCount();
+			this.gcTimeBefore = getGcTime();
+			threadMXBean.resetPeakThreadCount();
+		}
+
+		@Override
+		public void run() {
+			while (!finished) {
+				sample();
+				try {
+					Thread.sleep(100);
+				} catch (InterruptedException e) {
+					return;
+				}
+			}
+		}
+
+		private void finish() throws InterruptedException {
+			finished = true;
+			interrupt();
+			join();
+			sample();
+			report.peakThreads = threadMXBean.getPeakThreadCount();
+			report.gcCount = getGcCount() - gcCountBefore;
+			report.gcTime = getGcTime() - gcTimeBefore;
+		}
+
+		private void sample() {
+			report.peakHeap = Math.max(report.peakHeap, memoryMXBean.getHeapMemoryUsage().getUsed());
+		}
+
+		private static long getGcCount() {
+			long count = 0;
+			for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+				count += Math.max(0, gc.getCollectionCount());
+			}
+			return count;
+		}
+
+		private static long getGcTime() {
+			long time = 0;
+			for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+				time += Math.max(0, gc.getCollectionTime());
+			}
+			return time;
+		}
+	}
+
+	/**
+	 * Results of the load run.
+	 */
+	public static class Report {
+
+		private final int servers;
+		private final Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+		private final Map<Operation, AtomicLong> errors = new EnumMap<>(Operation.class);
+		private final AtomicLong events = new AtomicLong();
+		private final AtomicLong testRuns = new AtomicLong();
+		private long elapsed;
+		private volatile long peakHeap;
+		private int peakThreads;
+		private long gcCount;
+		private long gcTime;
+
+		private Report(int servers) {
+			this.servers = servers;
+			for (Operation operation : Operation.values()) {
+				latencies.put(operation, new LatencyHistogram());
+				errors.put(operation, new AtomicLong());
+			}
+		}
+
+		private void record(Operation operation, long duration) {
+			latencies.get(operation).record(duration);
+		}
+
+		private void recordError(Operation operation) {
+			errors.get(operation).incrementAndGet();
+		}
+
+		/**
+		 * @return latency histogram of the successful operations
+		 */
+		public LatencyHistogram getLatency(Operation operation) {
+			return latencies.get(operation);
+		}
+
+		public long getErrors(Operation operation) {
+			return errors.get(operation).get();
+		}
+
+		/**
+		 * @return successful operations per second
+		 */
+		public double getThroughput(Operation operation) {
+			return latencies.get(operation).getCount() * 1e9 / Math.max(1, elapsed);
+		}
+
+		public double getEventsPerSecond() {
+			return events.get() * 1e9 / Math.max(1, elapsed);
+		}
+
+		public double getTestResultsPerMinute() {
+			return getThroughput(Operation.TEST_RESULT) * 60;
+		}
+
+		public long getTestRuns() {
+			return testRuns.get();
+		}
+
+		/**
+		 * @return duration of the run in nanoseconds
+		 */
+		public long getElapsed() {
+			return elapsed;
+		}
+
+		/**
+		 * @return maximum sampled heap usage in bytes
+		 */
+		public long getPeakHeap() {
+			return peakHeap;
+		}
+
+		public int getPeakThreads() {
+			return peakThreads;
+		}
+
+		public long getGcCount() {
+			return gcCount;
+		}
+
+		/**
+		 * @return accumulated GC time in milliseconds
+		 */
+		public long getGcTime() {
+			return gcTime;
+		}
+
+		public void print(PrintStream out) {
+			out.printf("Load of %d CI servers for %.1f s%n", servers, elapsed / 1e9);
+			out.printf("%-14s %10s %8s %10s %10s %10s %10s %10s%n", "operation", "ops/s", "errors", "mean ms", "p50 ms", "p90 ms", "p99 ms", "max ms");
+			for (Operation operation : Operation.values()) {
+				LatencyHistogram latency = latencies.get(operation);
+				out.printf("%-14s %10.1f %8d %10.2f %10.2f %10.2f %10.2f %10.2f%n", operation, getThroughput(operation), getErrors(operation),
+						latency.getMean() / 1000, latency.getPercentile(50) / 1000.0, latency.getPercentile(90) / 1000.0,
+						latency.getPercentile(99) / 1000.0, latency.getMax() / 1000.0);
+			}
+			out.printf("events/s: %.1f, test results/min: %.1f (%d test runs)%n", getEventsPerSecond(), getTestResultsPerMinute(), getTestRuns());
+			out.printf("peak heap: %.1f MB, peak threads: %d, GC: %d collections in %d ms%n", peakHeap / (1024.0 * 1024), peakThreads, gcCount, gcTime);
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		final OctaneStandInServer server = new OctaneStandInServer();
+		String latency = System.getProperty("load.latency");
+		if (latency != null) {
+			String[] range = latency.split("-");
+			server.setLatency(Long.parseLong(range[0].trim()), Long.parseLong(range[range.length - 1].trim()), TimeUnit.MILLISECONDS);
+		}
+		server.setErrorRate(Double.parseDouble(System.getProperty("load.errorRate", "0")), 503);
+		server.start();
+		final int servers = Integer.getInteger("load.servers", 20);
+		ScheduledExecutorService taskFeeder = Executors.newSingleThreadScheduledExecutor();
+		int taskRate = Integer.getInteger("load.taskRate", 10);
+		if (taskRate > 0) {
+			final AtomicLong taskIds = new AtomicLong();
+			taskFeeder.scheduleAtFixedRate(new Runnable() {
+				@Override
+				public void run() {
+					JSONObject task = new JSONObject();
+					task.put("id", "task-" + taskIds.incrementAndGet());
+					task.put("method", "GET");
+					task.put("url", "/nga/api/v1/status");
+					server.addTask("load-server-" + ThreadLocalRandom.current().nextInt(servers), task);
+				}
+			}, 0, TimeUnit.SECONDS.toMicros(1) / taskRate, TimeUnit.MICROSECONDS);
+		}
+		try {
+			MqmConnectionConfig config = server.createConnectionConfig();
+			if (System.getProperty("load.maxConcurrentRequests") != null) {
+				config.setMaxConcurrentRequests(Integer.getInteger("load.maxConcurrentRequests"));
+			}
+			MqmRestClientImpl client = new MqmRestClientImpl(config);
+			try {
+				LoadGenerator generator = new LoadGenerator(client);
+				generator.setServers(servers);
+				generator.setDuration(Long.getLong("load.duration", 60), TimeUnit.SECONDS);
+				generator.setThinkTime(Long.getLong("load.thinkTime", 0), TimeUnit.MILLISECONDS);
+				String mix = System.getProperty("load.mix");
+				if (mix != null) {
+					for (Operation operation : Operation.values()) {
+						generator.setWeight(operation, 0);
+					}
+					for (String entry : mix.split(",")) {
+						String[] pair = entry.split("=");
+						generator.setWeight(Operation.valueOf(pair[0].trim()), Integer.parseInt(pair[1].trim()));
+					}
+				}
+				generator.run().print(System.out);
+			} finally {
+				client.close();
+			}
+		} finally {
+			taskFeeder.shutdownNow();
+			server.stop();
+		}
+	}
+}
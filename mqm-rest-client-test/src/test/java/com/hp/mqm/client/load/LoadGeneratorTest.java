@@ -0,0 +1,74 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hp.mqm.client.load;
+
+import com.hp.mqm.client.MqmRestClientImpl;
+import com.hp.mqm.client.standin.OctaneStandInServer;
+import net.sf.json.JSONObject;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+public class LoadGeneratorTest {
+
+	private OctaneStandInServer server;
+
+	@Before
+	public void init() throws IOException {
+		server = new OctaneStandInServer();
+		server.setTaskPollTimeout(50, TimeUnit.MILLISECONDS);
+		server.start();
+	}
+
+	@After
+	public void cleanup() {
+		server.stop();
+	}
+
+	@Test
+	public void testShortRun() throws InterruptedException {
+		JSONObject task = new JSONObject();
+		task.put("id", "task-1");
+		server.addTask("load-server-0", task);
+
+		MqmRestClientImpl client = new MqmRestClientImpl(server.createConnectionConfig());
+		LoadGenerator.Report report;
+		try {
+			LoadGenerator generator = new LoadGenerator(client);
+			generator.setServers(2);
+			generator.setDuration(1, TimeUnit.SECONDS);
+			generator.setTestRuns(1, 100);
+			generator.setLogSegmentSize(1024);
+			report = generator.run();
+		} finally {
+			client.close();
+		}
+
+		for (LoadGenerator.Operation operation : LoadGenerator.Operation.values()) {
+			Assert.assertEquals(operation.name(), 0, report.getErrors(operation));
+		}
+		Assert.assertTrue(report.getLatency(LoadGenerator.Operation.EVENTS).getCount() > 0);
+		Assert.assertEquals(report.getEventsPerSecond() * report.getElapsed() / 1e9, server.getEventCount(), 1);
+		Assert.assertEquals(report.getLatency(LoadGenerator.Operation.TEST_RESULT).getCount(), server.getTestResultCount());
+		Assert.assertTrue(report.getPeakHeap() > 0);
+		Assert.assertTrue(report.getPeakThreads() > 0);
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hp.mqm.client.metrics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class InMemoryMetricsTest {
+
+	@Test
+	public void testEndpointMetrics() {
+		InMemoryMetrics metrics = new InMemoryMetrics();
+		String endpoint = "analytics/ci/servers/{0}/tasks/{1}/result";
+		metrics.onRequest(new RequestMetrics(endpoint, "PUT", 503, TimeUnit.MILLISECONDS.toNanos(20), 100, -1, 1, false, 0));
+		metrics.onRequest(new RequestMetrics(endpoint, "PUT", 204, TimeUnit.MILLISECONDS.toNanos(10), 100, 0, 2, true, 5));
+		metrics.onRequest(new RequestMetrics(endpoint, "PUT", -1, TimeUnit.MILLISECONDS.toNanos(30), 0, -1, 3, false, 0));
+		metrics.onResponseBody(endpoint, 42);
+		metrics.onCompression(endpoint, 1000, 250, TimeUnit.MILLISECONDS.toNanos(2));
+		metrics.onJsonParsing(endpoint, 42, TimeUnit.MILLISECONDS.toNanos(1));
+
+		InMemoryMetrics.EndpointMetrics endpointMetrics = metrics.getEndpoints().get(endpoint);
+		Assert.assertEquals(3, endpointMetrics.getLatency().getCount());
+		Assert.assertEquals(Long.valueOf(1), endpointMetrics.getStatusCounts().get(503));
+		Assert.assertEquals(Long.valueOf(1), endpointMetrics.getStatusCounts().get(204));
+		Assert.assertEquals(Long.valueOf(1), endpointMetrics.getStatusCounts().get(-1));
+		Assert.assertEquals(200, endpointMetrics.getRequestBytes());
+		Assert.assertEquals(42, endpointMetrics.getResponseBytes());
+		Assert.assertEquals(4.0, endpointMetrics.getCompressionRatio(), 0.001);
+		Assert.assertEquals(1, endpointMetrics.getCompression().getCount());
+		Assert.assertEquals(1000, endpointMetrics.getParsing().getMax());
+		Assert.assertEquals(2, endpointMetrics.getRetries());
+		Assert.assertEquals(5, endpointMetrics.getPoolWait());
+	}
+
+	@Test
+	public void testLogins() {
+		InMemoryMetrics metrics = new InMemoryMetrics();
+		metrics.onLogin(false, true, 1000);
+		metrics.onLogin(true, false, 1000);
+		Assert.assertEquals(2, metrics.getLogins());
+		Assert.assertEquals(1, metrics.getRelogins());
+		Assert.assertEquals(1, metrics.getLoginFailures());
+	}
+
+	@Test
+	public void testHistogramPercentiles() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 1; i <= 1000; i++) {
+			histogram.record(TimeUnit.MILLISECONDS.toNanos(i));
+		}
+		Assert.assertEquals(1000, histogram.getCount());
+		Assert.assertEquals(1000000, histogram.getMax());
+		Assert.assertEquals(500500, histogram.getMean(), 1);
+		// bucket upper bound, relative error below 13 %
+		assertWithin(500000, histogram.getPercentile(50));
+		assertWithin(990000, histogram.getPercentile(99));
+		Assert.assertEquals(1000000, histogram.getPercentile(100));
+	}
+
+	@Test
+	public void testHistogramBuckets() {
+		for (long value = 0; value < 100000; value++) {
+			int bucket = LatencyHistogram.bucket(value);
+			Assert.assertTrue(LatencyHistogram.lowerBound(bucket) <= value);
+			Assert.assertTrue(LatencyHistogram.lowerBound(bucket + 1) > value);
+		}
+	}
+
+	private static void assertWithin(long expected, long actual) {
+		Assert.assertTrue("Expected about " + expected + " but was " + actual, actual >= expected && actual <= expected * 1.13);
+	}
+}
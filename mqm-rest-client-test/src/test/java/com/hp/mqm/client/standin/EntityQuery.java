@@ -0,0 +1,304 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hp.mqm.client.standin;
+
+import net.sf.json.JSONNull;
+import net.sf.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Subset of the Octane query language understood by the stand-in server: conditions joined by ';' (and) and '||' (or),
+ * grouping by parentheses, negation by '!', comparisons '=', '&lt;', '&lt;=', '&gt;', '&gt;=', 'IN' lists, quoted values with
+ * '*' wildcards, '^...^' literals and cross-entity references ('release={id=1001}', 'category={null}').
+ */
+abstract class EntityQuery {
+
+	static final EntityQuery ALL = new EntityQuery() {
+		@Override
+		boolean matches(JSONObject entity) {
+			return true;
+		}
+	};
+
+	abstract boolean matches(JSONObject entity);
+
+	/**
+	 * @param query query without the enclosing quotes
+	 * @throws IllegalArgumentException if the query cannot be parsed
+	 */
+	static EntityQuery parse(String query) {
+		if (query == null || query.trim().isEmpty()) {
+			return ALL;
+		}
+		Parser parser = new Parser(query);
+		EntityQuery result = parser.parseAnd();
+		if (parser.pos < query.length()) {
+			throw new IllegalArgumentException("Unexpected character at " + parser.pos + " of query: " + query);
+		}
+		return result;
+	}
+
+	private static final class Parser {
+
+		private final String query;
+		private int pos;
+
+		private Parser(String query) {
+			this.query = query;
+		}
+
+		private EntityQuery parseAnd() {
+			final List<EntityQuery> terms = new ArrayList<>();
+			terms.add(parseOr());
+			while (consume(";")) {
+				terms.add(parseOr());
+			}
+			if (terms.size() == 1) {
+				return terms.get(0);
+			}
+			return new EntityQuery() {
+				@Override
+				boolean matches(JSONObject entity) {
+					for (EntityQuery term : terms) {
+						if (!term.matches(entity)) {
+							return false;
+						}
+					}
+					return true;
+				}
+			};
+		}
+
+		private EntityQuery parseOr() {
+			final List<EntityQuery> factors = new ArrayList<>();
+			factors.add(parseFactor());
+			while (consume("||")) {
+				factors.add(parseFactor());
+			}
+			if (factors.size() == 1) {
+				return factors.get(0);
+			}
+			return new EntityQuery() {
+				@Override
+				boolean matches(JSONObject entity) {
+					for (EntityQuery factor : factors) {
+						if (factor.matches(entity)) {
+							return true;
+						}
+					}
+					return false;
+				}
+			};
+		}
+
+		private EntityQuery parseFactor() {
+			skipSpaces();
+			if (consume("!")) {
+				final EntityQuery negated = parseFactor();
+				return new EntityQuery() {
+					@Override
+					boolean matches(JSONObject entity) {
+						return !negated.matches(entity);
+					}
+				};
+			}
+			if (consume("(")) {
+				EntityQuery group = parseAnd();
+				expect(")");
+				return group;
+			}
+			return parseComparison();
+		}
+
+		private EntityQuery parseComparison() {
+			skipSpaces();
+			int start = pos;
+			while (pos < query.length() && (Character.isLetterOrDigit(query.charAt(pos)) || query.charAt(pos) == '_' || query.charAt(pos) == '.')) {
+				pos++;
+			}
+			if (start == pos) {
+				throw new IllegalArgumentException("Field name expected at " + pos + " of query: " + query);
+			}
+			final String field = query.substring(start, pos);
+			skipSpaces();
+			if (consume("IN ")) {
+				final List<Object> values = new ArrayList<>();
+				values.add(parseValue());
+				while (consume(",")) {
+					values.add(parseValue());
+				}
+				return new EntityQuery() {
+					@Override
+					boolean matches(JSONObject entity) {
+						for (Object value : values) {
+							if (compare(entity, field, value) == 0) {
+								return true;
+							}
+						}
+						return false;
+					}
+				};
+			}
+			final String operator;
+			if (consume(">=")) {
+				operator = ">=";
+			} else if (consume("<=")) {
+				operator = "<=";
+			} else if (consume(">")) {
+				operator = ">";
+			} else if (consume("<")) {
+				operator = "<";
+			} else {
+				expect("=");
+				operator = "=";
+			}
+			final Object value = parseValue();
+			return new EntityQuery() {
+				@Override
+				boolean matches(JSONObject entity) {
+					int comparison = compare(entity, field, value);
+					switch (operator) {
+						case ">=":
+							return comparison != Integer.MIN_VALUE && comparison >= 0;
+						case "<=":
+							return comparison != Integer.MIN_VALUE && comparison <= 0;
+						case ">":
+							return comparison != Integer.MIN_VALUE && comparison > 0;
+						case "<":
+							return comparison != Integer.MIN_VALUE && comparison < 0;
+						default:
+							return comparison == 0;
+					}
+				}
+			};
+		}
+
+		/**
+		 * @return String (plain value), Pattern (value with wildcards) or EntityQuery (reference, null for '{null}')
+		 */
+		private Object parseValue() {
+			skipSpaces();
+			if (consume("{")) {
+				skipSpaces();
+				if (consume("null")) {
+					expect("}");
+					return NullReference.INSTANCE;
+				}
+				EntityQuery reference = parseAnd();
+				expect("}");
+				return reference;
+			}
+			if (consume("'") || consume("\"")) {
+				char quote = query.charAt(pos - 1);
+				StringBuilder value = new StringBuilder();
+				while (pos < query.length() && query.charAt(pos) != quote) {
+					char c = query.charAt(pos++);
+					if (c == '\\' && pos < query.length()) {
+						c = query.charAt(pos++);
+					}
+					value.append(c);
+				}
+				expect(String.valueOf(quote));
+				return toValue(value.toString());
+			}
+			if (consume("^")) {
+				int end = query.indexOf('^', pos);
+				if (end < 0) {
+					throw new IllegalArgumentException("Unterminated literal in query: " + query);
+				}
+				String value = query.substring(pos, end);
+				pos = end + 1;
+				return value;
+			}
+			int start = pos;
+			while (pos < query.length() && ";|)},".indexOf(query.charAt(pos)) < 0) {
+				pos++;
+			}
+			return toValue(query.substring(start, pos).trim());
+		}
+
+		private static Object toValue(String value) {
+			if (value.indexOf('*') < 0) {
+				return value;
+			}
+			StringBuilder regex = new StringBuilder();
+			for (String part : value.split("\\*", -1)) {
+				if (regex.length() > 0) {
+					regex.append(".*");
+				}
+				regex.append(Pattern.quote(part));
+			}
+			return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+		}
+
+		private boolean consume(String token) {
+			skipSpaces();
+			if (query.startsWith(token, pos)) {
+				pos += token.length();
+				return true;
+			}
+			return false;
+		}
+
+		private void expect(String token) {
+			if (!consume(token)) {
+				throw new IllegalArgumentException("'" + token + "' expected at " + pos + " of query: " + query);
+			}
+		}
+
+		private void skipSpaces() {
+			while (pos < query.length() && query.charAt(pos) == ' ') {
+				pos++;
+			}
+		}
+	}
+
+	private enum NullReference {
+		INSTANCE
+	}
+
+	/**
+	 * @return comparison of the field with the value, 0 for match of pattern or reference,
+	 * Integer.MIN_VALUE if the values cannot be compared
+	 */
+	private static int compare(JSONObject entity, String field, Object value) {
+		Object fieldValue = entity.opt(field);
+		boolean isNull = fieldValue == null || JSONNull.getInstance().equals(fieldValue);
+		if (value == NullReference.INSTANCE) {
+			return isNull ? 0 : Integer.MIN_VALUE;
+		}
+		if (isNull) {
+			return Integer.MIN_VALUE;
+		}
+		if (value instanceof EntityQuery) {
+			return fieldValue instanceof JSONObject && ((EntityQuery) value).matches((JSONObject) fieldValue) ? 0 : Integer.MIN_VALUE;
+		}
+		String actual = fieldValue instanceof JSONObject ? ((JSONObject) fieldValue).optString("id") : fieldValue.toString();
+		if (value instanceof Pattern) {
+			return ((Pattern) value).matcher(actual).matches() ? 0 : Integer.MIN_VALUE;
+		}
+		String expected = (String) value;
+		try {
+			return Long.compare(Long.parseLong(actual), Long.parseLong(expected));
+		} catch (NumberFormatException e) {
+			return actual.compareToIgnoreCase(expected);
+		}
+	}
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hp.mqm.client.standin;
+
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * In-memory entity collections of the stand-in server, keyed by workspace (null for shared space collections).
+ */
+public class EntityStore {
+
+	private final Map<String, Map<Long, JSONObject>> collections = new HashMap<>();
+	private long nextId = 1001;
+
+	/**
+	 * Adds entity to the collection, 'id' and 'last_modified' are assigned unless present.
+	 *
+	 * @return copy of the stored entity
+	 */
+	public synchronized JSONObject add(Long workspaceId, String collection, JSONObject entity) {
+		JSONObject stored = JSONObject.fromObject(entity);
+		long id;
+		if (stored.has("id")) {
+			id = Long.parseLong(stored.getString("id"));
+			nextId = Math.max(nextId, id + 1);
+		} else {
+			id = nextId++;
+		}
+		stored.put("id", String.valueOf(id));
+		if (!stored.has("type")) {
+			stored.put("type", toType(collection));
+		}
+		if (!stored.has("last_modified")) {
+			stored.put("last_modified", now());
+		}
+		getCollection(workspaceId, collection).put(id, stored);
+		return JSONObject.fromObject(stored);
+	}
+
+	/**
+	 * @return copy of the entity, null if there is no such entity
+	 */
+	public synchronized JSONObject get(Long workspaceId, String collection, long id) {
+		JSONObject entity = getCollection(workspaceId, collection).get(id);
+		return entity != null ? JSONObject.fromObject(entity) : null;
+	}
+
+	/**
+	 * Merges given fields into the stored entity and updates 'last_modified'.
+	 *
+	 * @return copy of the updated entity, null if there is no such entity
+	 */
+	public synchronized JSONObject update(Long workspaceId, String collection, long id, JSONObject fields) {
+		JSONObject entity = getCollection(workspaceId, collection).get(id);
+		if (entity == null) {
+			return null;
+		}
+		for (Object key : fields.keySet()) {
+			if (!"id".equals(key)) {
+				entity.put(key, fields.get(key));
+			}
+		}
+		entity.put("last_modified", now());
+		return JSONObject.fromObject(entity);
+	}
+
+	/**
+	 * @return copies of the entities matching the query, ordered by given field ('-' prefix for descending order)
+	 */
+	public synchronized List<JSONObject> query(Long workspaceId, String collection, EntityQuery query, final String orderBy) {
+		List<JSONObject> result = new ArrayList<>();
+		for (JSONObject entity : getCollection(workspaceId, collection).values()) {
+			if (query.matches(entity)) {
+				result.add(JSONObject.fromObject(entity));
+			}
+		}
+		if (orderBy != null && !orderBy.isEmpty()) {
+			final boolean descending = orderBy.startsWith("-");
+			final String field = descending ? orderBy.substring(1) : orderBy;
+			Collections.sort(result, new Comparator<JSONObject>() {
+				@Override
+				public int compare(JSONObject o1, JSONObject o2) {
+					int comparison;
+					if ("id".equals(field)) {
+						comparison = Long.compare(o1.getLong("id"), o2.getLong("id"));
+					} else {
+						comparison = o1.optString(field).compareTo(o2.optString(field));
+					}
+					return descending ? -comparison : comparison;
+				}
+			});
+		}
+		return result;
+	}
+
+	/**
+	 * @return removed entities
+	 */
+	public synchronized List<JSONObject> delete(Long workspaceId, String collection, EntityQuery query) {
+		List<JSONObject> removed = new ArrayList<>();
+		Iterator<JSONObject> it = getCollection(workspaceId, collection).values().iterator();
+		while (it.hasNext()) {
+			JSONObject entity = it.next();
+			if (query.matches(entity)) {
+				removed.add(entity);
+				it.remove();
+			}
+		}
+		return removed;
+	}
+
+	public synchronized int size(Long workspaceId, String collection) {
+		return getCollection(workspaceId, collection).size();
+	}
+
+	static JSONObject toPage(List<JSONObject> entities, int totalCount) {
+		JSONObject page = new JSONObject();
+		page.put("total_count", totalCount);
+		page.put("data", JSONArray.fromObject(entities));
+		return page;
+	}
+
+	private Map<Long, JSONObject> getCollection(Long workspaceId, String collection) {
+		String key = workspaceId + "/" + collection;
+		Map<Long, JSONObject> entities = collections.get(key);
+		if (entities == null) {
+			entities = new LinkedHashMap<>();
+			collections.put(key, entities);
+		}
+		return entities;
+	}
+
+	private static String toType(String collection) {
+		if (collection.endsWith("ies")) {
+			return collection.substring(0, collection.length() - 3) + "y";
+		} else if (collection.endsWith("s")) {
+			return collection.substring(0, collection.length() - 1);
+		} else {
+			return collection;
+		}
+	}
+
+	private static String now() {
+		SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+		format.setTimeZone(TimeZone.getTimeZone("UTC"));
+		return format.format(new Date());
+	}
+}
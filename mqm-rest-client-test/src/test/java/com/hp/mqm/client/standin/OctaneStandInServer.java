@@ -0,0 +1,909 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hp.mqm.client.standin;
+
+import com.hp.mqm.client.MqmConnectionConfig;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONException;
+import net.sf.json.JSONNull;
+import net.sf.json.JSONObject;
+import org.apache.commons.io.IOUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Embedded stand-in of the Octane server for hermetic tests and load generation.
+ *
+ * Server listens on loopback and implements the endpoints used by the client: sign in with LWSSO cookie,
+ * connectivity check, CI endpoints (test results, events, logs, coverage, abridged tasks, job configuration)
+ * and generic entity collections with a subset of the query language (see {@link EntityQuery}). Payloads are
+ * accepted but not validated beyond what the client relies on.
+ *
+ * Latency, error rate, injected failures and session expiration can be configured to exercise retries,
+ * relogin and circuit breaking of the client.
+ */
+public class OctaneStandInServer {
+	private static final Logger logger = Logger.getLogger(OctaneStandInServer.class.getName());
+
+	public static final String SHARED_SPACE = "1001";
+	public static final long WORKSPACE = 1002;
+	public static final String USER = "admin";
+	public static final String PASSWORD = "changeit";
+	/**
+	 * Sign in of this user is rejected with 401.
+	 */
+	public static final String REJECTED_USER = "nonuser";
+
+	private static final String LWSSO_COOKIE_NAME = "LWSSO_COOKIE_KEY";
+	private static final long DEFAULT_TASK_POLL_TIMEOUT = 1000;     // in milliseconds
+
+	static {
+		// server writes response headers and body separately, with Nagle's algorithm every response with body
+		// would wait for the delayed ACK of the client (~40 ms)
+		if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+			System.setProperty("sun.net.httpserver.nodelay", "true");
+		}
+	}
+
+	private final EntityStore entityStore = new EntityStore();
+	private final ConcurrentMap<String, Session> sessions = new ConcurrentHashMap<>();
+	private final ConcurrentMap<Long, String> testResultLogs = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, BlockingQueue<JSONObject>> tasks = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, String> taskResults = new ConcurrentHashMap<>();
+	private final Map<String, List<JSONObject>> pipelines = new HashMap<>();
+	private final AtomicLong nextId = new AtomicLong(1);
+
+	private final AtomicLong requestCount = new AtomicLong();
+	private final AtomicLong loginCount = new AtomicLong();
+	private final AtomicLong failureCount = new AtomicLong();
+	private final AtomicLong eventCount = new AtomicLong();
+	private final AtomicLong testResultCount = new AtomicLong();
+	private final AtomicLong logBytes = new AtomicLong();
+	private final AtomicLong coverageReportCount = new AtomicLong();
+	private final List<String> coverageReports = Collections.synchronizedList(new ArrayList<String>());
+	private final List<RecordedRequest> recordedRequests = Collections.synchronizedList(new ArrayList<RecordedRequest>());
+	private final ConcurrentMap<String, Integer> failureRules = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, AtomicInteger> inFlightRequests = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, AtomicInteger> maxInFlightRequests = new ConcurrentHashMap<>();
+
+	private final AtomicInteger failNextCount = new AtomicInteger();
+	private volatile int failNextStatus;
+	private volatile long minLatency;
+	private volatile long maxLatency;
+	private volatile double errorRate;
+	private volatile int errorStatus = 503;
+	private volatile long sessionTimeout = -1;
+	private volatile long taskPollTimeout = DEFAULT_TASK_POLL_TIMEOUT;
+	private volatile boolean recordRequests;
+
+	private HttpServer server;
+	private ExecutorService executor;
+
+	public OctaneStandInServer() {
+		JSONObject workspace = new JSONObject();
+		workspace.put("id", String.valueOf(WORKSPACE));
+		workspace.put("name", "default_workspace");
+		entityStore.add(null, "workspaces", workspace);
+	}
+
+	/**
+	 * Starts the server on a free port of the loopback interface.
+	 */
+	public synchronized void start() throws IOException {
+		if (server != null) {
+			throw new IllegalStateException("Server is already started.");
+		}
+		executor = Executors.newCachedThreadPool(new ThreadFactory() {
+			private final AtomicInteger threadNumber = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "octane-stand-in-" + threadNumber.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 256);
+		server.setExecutor(executor);
+		server.createContext("/", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				try {
+					dispatch(exchange);
+				} catch (Exception e) {
+					logger.log(Level.WARNING, "Stand-in failed to handle " + exchange.getRequestMethod() + " " + exchange.getRequestURI(), e);
+					sendError(exchange, 500, "platform.unexpected_error", String.valueOf(e.getMessage()));
+				} finally {
+					exchange.close();
+				}
+			}
+		});
+		server.start();
+	}
+
+	public synchronized void stop() {
+		if (server != null) {
+			server.stop(0);
+			executor.shutdownNow();
+			server = null;
+		}
+	}
+
+	/**
+	 * @return location of the server to be used in {@link MqmConnectionConfig}
+	 */
+	public synchronized String getLocation() {
+		if (server == null) {
+			throw new IllegalStateException("Server is not started.");
+		}
+		return "http://" + server.getAddress().getAddress().getHostAddress() + ":" + server.getAddress().getPort();
+	}
+
+	/**
+	 * @return configuration of the client connecting to this server with valid credentials
+	 */
+	public MqmConnectionConfig createConnectionConfig() {
+		return new MqmConnectionConfig(getLocation(), SHARED_SPACE, USER, PASSWORD, "stand-in");
+	}
+
+	/**
+	 * Every response is delayed by random latency from the given range.
+	 */
+	public void setLatency(long min, long max, TimeUnit unit) {
+		if (min < 0 || max < min) {
+			throw new IllegalArgumentException("Invalid latency range: " + min + " - " + max);
+		}
+		minLatency = unit.toMillis(min);
+		maxLatency = unit.toMillis(max);
+	}
+
+	/**
+	 * Given ratio of the authenticated requests fails with the given status.
+	 *
+	 * @param rate   ratio of the failing requests (0 - 1)
+	 * @param status status of the failed requests
+	 */
+	public void setErrorRate(double rate, int status) {
+		if (rate < 0 || rate > 1) {
+			throw new IllegalArgumentException("Error rate must be between 0 and 1.");
+		}
+		errorRate = rate;
+		errorStatus = status;
+	}
+
+	/**
+	 * Next given number of the authenticated requests fails with the given status.
+	 */
+	public void failNextRequests(int count, int status) {
+		failNextStatus = status;
+		failNextCount.set(count);
+	}
+
+	/**
+	 * Authenticated requests whose URI contains given fragment fail with the given status until the rule is removed
+	 * by {@link #clearFailureRules()}.
+	 */
+	public void addFailureRule(String uriFragment, int status) {
+		failureRules.put(uriFragment, status);
+	}
+
+	public void clearFailureRules() {
+		failureRules.clear();
+	}
+
+	/**
+	 * Enables recording of the authenticated requests, see {@link #getRecordedRequests()}.
+	 */
+	public void setRecordRequests(boolean recordRequests) {
+		this.recordRequests = recordRequests;
+	}
+
+	/**
+	 * @return authenticated requests received since the recording was enabled, in the order of arrival
+	 */
+	public List<RecordedRequest> getRecordedRequests() {
+		synchronized (recordedRequests) {
+			return new ArrayList<>(recordedRequests);
+		}
+	}
+
+	/**
+	 * @return maximum number of requests of the user the server was handling at once
+	 */
+	public int getMaxConcurrentRequests(String user) {
+		AtomicInteger max = maxInFlightRequests.get(user);
+		return max != null ? max.get() : 0;
+	}
+
+	/**
+	 * @return content of the received coverage reports (decompressed), in the order of arrival
+	 */
+	public List<String> getCoverageReports() {
+		synchronized (coverageReports) {
+			return new ArrayList<>(coverageReports);
+		}
+	}
+
+	/**
+	 * Sessions expire given time after the sign in, negative value disables expiration (default).
+	 */
+	public void setSessionTimeout(long timeout, TimeUnit unit) {
+		sessionTimeout = timeout < 0 ? -1 : unit.toMillis(timeout);
+	}
+
+	/**
+	 * Invalidates all existing sessions, next request of every client is rejected with 401.
+	 */
+	public void expireSessions() {
+		sessions.clear();
+	}
+
+	/**
+	 * Time the abridged tasks request waits for a task before it is answered with 408.
+	 */
+	public void setTaskPollTimeout(long timeout, TimeUnit unit) {
+		taskPollTimeout = unit.toMillis(timeout);
+	}
+
+	/**
+	 * Queues task returned by the next abridged tasks request of the given CI server.
+	 */
+	public void addTask(String serverIdentity, JSONObject task) {
+		getTaskQueue(serverIdentity).add(task);
+	}
+
+	/**
+	 * @return result of the task put by the client, null if there is none yet
+	 */
+	public String getTaskResult(String taskId) {
+		return taskResults.get(taskId);
+	}
+
+	public EntityStore getEntityStore() {
+		return entityStore;
+	}
+
+	public long getRequestCount() {
+		return requestCount.get();
+	}
+
+	public long getLoginCount() {
+		return loginCount.get();
+	}
+
+	/**
+	 * @return number of the requests which failed because of configured error rate or injected failure
+	 */
+	public long getFailureCount() {
+		return failureCount.get();
+	}
+
+	public long getEventCount() {
+		return eventCount.get();
+	}
+
+	public long getTestResultCount() {
+		return testResultCount.get();
+	}
+
+	public long getLogBytes() {
+		return logBytes.get();
+	}
+
+	public long getCoverageReportCount() {
+		return coverageReportCount.get();
+	}
+
+	private void dispatch(HttpExchange exchange) throws IOException {
+		requestCount.incrementAndGet();
+		simulateLatency();
+
+		String[] path = splitPath(exchange.getRequestURI().getRawPath());
+		if (matches(path, "authentication", "sign_in")) {
+			signIn(exchange);
+			return;
+		}
+		String user = getSessionUser(exchange);
+		if (user == null) {
+			sendError(exchange, 401, "platform.unauthorized", "Session is missing or expired");
+			return;
+		}
+		if (recordRequests) {
+			recordedRequests.add(new RecordedRequest(exchange, user));
+		}
+		AtomicInteger inFlight = getCounter(inFlightRequests, user);
+		AtomicInteger maxInFlight = getCounter(maxInFlightRequests, user);
+		for (int current = inFlight.incrementAndGet(), max = maxInFlight.get(); current > max; max = maxInFlight.get()) {
+			if (maxInFlight.compareAndSet(max, current)) {
+				break;
+			}
+		}
+		try {
+			dispatchAuthenticated(exchange, path);
+		} finally {
+			inFlight.decrementAndGet();
+		}
+	}
+
+	private void dispatchAuthenticated(HttpExchange exchange, String[] path) throws IOException {
+		int failure = nextFailure(exchange.getRequestURI().toString());
+		if (failure > 0) {
+			failureCount.incrementAndGet();
+			sendError(exchange, failure, "platform.service_unavailable", "Injected failure");
+			return;
+		}
+
+		if (path.length >= 3 && path[1].equals("shared_spaces") && (path[0].equals("internal-api") || path[0].equals("api"))) {
+			if (!SHARED_SPACE.equals(path[2])) {
+				sendError(exchange, 404, "platform.shared_space_not_found", "Shared space " + path[2] + " not found");
+				return;
+			}
+			String[] rest = subPath(path, 3);
+			if (path[0].equals("internal-api")) {
+				dispatchInternal(exchange, rest);
+			} else {
+				dispatchEntities(exchange, rest);
+			}
+			return;
+		}
+		sendError(exchange, 404, "platform.not_found", "No stand-in endpoint for " + exchange.getRequestURI().getPath());
+	}
+
+	private void dispatchInternal(HttpExchange exchange, String[] path) throws IOException {
+		String method = exchange.getRequestMethod();
+		if (matches(path, "workspaces", "*", "analytics", "ci", "*", "*", "*", "logs") && "POST".equals(method)) {
+			logBytes.addAndGet(readBody(exchange).length);
+			send(exchange, 200, "text/plain", "OK");
+		} else if (matches(path, "workspaces", "*", "analytics", "ci", "pipelines", "*", "jobs", "*", "tests") && "DELETE".equals(method)) {
+			send(exchange, 200, null, null);
+		} else if (matches(path, "analytics", "ci", "servers", "connectivity", "status")) {
+			send(exchange, 200, null, null);
+		} else if (matches(path, "analytics", "ci", "test-results") && "POST".equals(method)) {
+			postTestResult(exchange);
+		} else if (matches(path, "analytics", "ci", "test-results", "*")) {
+			String log = testResultLogs.get(parseId(path[3]));
+			if (log == null) {
+				sendError(exchange, 404, "platform.not_found", "Test result " + path[3] + " not found");
+			} else {
+				send(exchange, 200, "application/json", "{\"status\":\"success\"}");
+			}
+		} else if (matches(path, "analytics", "ci", "test-results", "*", "log")) {
+			String log = testResultLogs.get(parseId(path[3]));
+			if (log == null) {
+				sendError(exchange, 404, "platform.not_found", "Test result " + path[3] + " not found");
+			} else {
+				send(exchange, 200, "text/plain", log);
+			}
+		} else if (matches(path, "analytics", "ci", "events") && "PUT".equals(method)) {
+			JSONObject events = JSONObject.fromObject(new String(readBody(exchange), "UTF-8"));
+			eventCount.addAndGet(events.optJSONArray("events") != null ? events.getJSONArray("events").size() : 0);
+			send(exchange, 200, null, null);
+		} else if (matches(path, "analytics", "ci", "coverage") && "PUT".equals(method)) {
+			coverageReports.add(new String(readBody(exchange), "UTF-8"));
+			coverageReportCount.incrementAndGet();
+			send(exchange, 200, null, null);
+		} else if (matches(path, "analytics", "ci", "servers", "tests-result-preflight-base64")) {
+			send(exchange, 200, null, null);
+		} else if (matches(path, "analytics", "ci", "servers", "*", "jobs", "*", "tests-result-preflight")) {
+			send(exchange, 200, "text/plain", "true");
+		} else if (matches(path, "analytics", "ci", "servers", "*", "jobs", "*", "workspaceId")) {
+			getJobWorkspaces(exchange, path[3], path[5]);
+		} else if (matches(path, "analytics", "ci", "servers", "*", "jobs", "*", "configuration")) {
+			jobConfiguration(exchange, path[3], path[5]);
+		} else if (matches(path, "analytics", "ci", "servers", "*", "tasks") && "GET".equals(method)) {
+			getTasks(exchange, path[3]);
+		} else if (matches(path, "analytics", "ci", "servers", "*", "tasks", "*", "result") && "PUT".equals(method)) {
+			taskResults.put(path[5], new String(readBody(exchange), "UTF-8"));
+			send(exchange, 200, null, null);
+		} else if (matches(path, "analytics", "bdi", "configuration")) {
+			send(exchange, 204, null, null);
+		} else {
+			sendError(exchange, 404, "platform.not_found", "No stand-in endpoint for " + exchange.getRequestURI().getPath());
+		}
+	}
+
+	private void dispatchEntities(HttpExchange exchange, String[] path) throws IOException {
+		Long workspaceId = null;
+		if (path.length >= 3 && path[0].equals("workspaces")) {
+			workspaceId = parseId(path[1]);
+			path = subPath(path, 2);
+		}
+		if (matches(path, "metadata", "fields")) {
+			send(exchange, 200, "application/json", EntityStore.toPage(new ArrayList<JSONObject>(), 0).toString());
+		} else if (path.length == 1) {
+			entityCollection(exchange, workspaceId, path[0]);
+		} else if (path.length == 2) {
+			entity(exchange, workspaceId, path[0], parseId(path[1]));
+		} else {
+			sendError(exchange, 404, "platform.not_found", "No stand-in endpoint for " + exchange.getRequestURI().getPath());
+		}
+	}
+
+	private void signIn(HttpExchange exchange) throws IOException {
+		JSONObject credentials = JSONObject.fromObject(new String(readBody(exchange), "UTF-8"));
+		if (REJECTED_USER.equals(credentials.optString("user"))) {
+			sendError(exchange, 401, "platform.authentication_failed", "Authentication failed");
+			return;
+		}
+		String token = UUID.randomUUID().toString();
+		sessions.put(token, new Session(credentials.optString("user"), System.currentTimeMillis()));
+		loginCount.incrementAndGet();
+		exchange.getResponseHeaders().add("Set-Cookie", LWSSO_COOKIE_NAME + "=" + token + "; Path=/; HttpOnly");
+		send(exchange, 200, null, null);
+	}
+
+	/**
+	 * @return user of the valid session of the request, null if there is none
+	 */
+	private String getSessionUser(HttpExchange exchange) {
+		List<String> cookies = exchange.getRequestHeaders().get("Cookie");
+		if (cookies == null) {
+			return null;
+		}
+		for (String header : cookies) {
+			for (String cookie : header.split(";")) {
+				String[] pair = cookie.trim().split("=", 2);
+				if (pair.length == 2 && pair[0].equals(LWSSO_COOKIE_NAME)) {
+					Session session = sessions.get(pair[1]);
+					if (session == null) {
+						continue;
+					}
+					if (sessionTimeout >= 0 && System.currentTimeMillis() - session.created > sessionTimeout) {
+						sessions.remove(pair[1]);
+						continue;
+					}
+					return session.user;
+				}
+			}
+		}
+		return null;
+	}
+
+	private static AtomicInteger getCounter(ConcurrentMap<String, AtomicInteger> counters, String key) {
+		AtomicInteger counter = counters.get(key);
+		if (counter == null) {
+			AtomicInteger newCounter = new AtomicInteger();
+			counter = counters.putIfAbsent(key, newCounter);
+			if (counter == null) {
+				counter = newCounter;
+			}
+		}
+		return counter;
+	}
+
+	private int nextFailure(String uri) {
+		for (Map.Entry<String, Integer> rule : failureRules.entrySet()) {
+			if (uri.contains(rule.getKey())) {
+				return rule.getValue();
+			}
+		}
+		for (int count = failNextCount.get(); count > 0; count = failNextCount.get()) {
+			if (failNextCount.compareAndSet(count, count - 1)) {
+				return failNextStatus;
+			}
+		}
+		if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+			return errorStatus;
+		}
+		return 0;
+	}
+
+	private void simulateLatency() {
+		long min = minLatency;
+		long max = maxLatency;
+		long latency = max > min ? min + ThreadLocalRandom.current().nextLong(max - min + 1) : min;
+		if (latency > 0) {
+			try {
+				Thread.sleep(latency);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private void postTestResult(HttpExchange exchange) throws IOException {
+		byte[] body = readBody(exchange);
+		String content = new String(body, "UTF-8").trim();
+		if (!content.startsWith("<")) {
+			sendError(exchange, 400, "platform.invalid_payload", "Test results are not XML");
+			return;
+		}
+		long id = nextId.getAndIncrement();
+		testResultLogs.put(id, "Test results " + id + " processed (" + body.length + " bytes)\n");
+		testResultCount.incrementAndGet();
+		send(exchange, 202, "application/json", "{\"id\":" + id + "}");
+	}
+
+	private void getJobWorkspaces(HttpExchange exchange, String serverIdentity, String jobName) throws IOException {
+		JSONArray workspaces = new JSONArray();
+		synchronized (pipelines) {
+			List<JSONObject> jobPipelines = pipelines.get(serverIdentity + "/" + jobName);
+			if (jobPipelines != null) {
+				for (JSONObject pipeline : jobPipelines) {
+					String workspaceId = pipeline.getString("workspaceId");
+					if (!workspaces.contains(workspaceId)) {
+						workspaces.add(workspaceId);
+					}
+				}
+			}
+		}
+		if (workspaces.isEmpty()) {
+			send(exchange, 204, null, null);
+		} else {
+			send(exchange, 200, "application/json", workspaces.toString());
+		}
+	}
+
+	private void jobConfiguration(HttpExchange exchange, String serverIdentity, String jobName) throws IOException {
+		String key = serverIdentity + "/" + jobName;
+		String method = exchange.getRequestMethod();
+		JSONObject body = "GET".equals(method) ? null : JSONObject.fromObject(new String(readBody(exchange), "UTF-8"));
+		int status = 200;
+		JSONObject result = new JSONObject();
+		synchronized (pipelines) {
+			List<JSONObject> jobPipelines = pipelines.get(key);
+			if (jobPipelines == null) {
+				jobPipelines = new ArrayList<>();
+				pipelines.put(key, jobPipelines);
+			}
+			if ("POST".equals(method)) {
+				JSONObject pipeline = new JSONObject();
+				pipeline.put("contextEntityType", "pipeline");
+				pipeline.put("contextEntityId", nextId.getAndIncrement());
+				pipeline.put("contextEntityName", body.getString("contextEntityName"));
+				pipeline.put("workspaceId", body.getLong("workspaceId"));
+				pipeline.put("pipelineRoot", true);
+				pipeline.put("releaseId", body.has("releaseId") ? body.get("releaseId") : JSONNull.getInstance());
+				pipeline.put("ignoreTests", false);
+				pipeline.put("taxonomies", new JSONArray());
+				pipeline.put("listFields", new JSONObject());
+				jobPipelines.add(pipeline);
+				status = 201;
+			} else if ("PUT".equals(method)) {
+				for (JSONObject update : getJSONObjects(body.getJSONArray("data"))) {
+					for (JSONObject pipeline : jobPipelines) {
+						if (pipeline.getLong("contextEntityId") == update.getLong("contextEntityId")) {
+							for (String field : new String[]{"contextEntityName", "releaseId", "ignoreTests", "taxonomies", "listFields"}) {
+								if (update.has(field)) {
+									pipeline.put(field, update.get(field));
+								}
+							}
+						}
+					}
+				}
+			}
+			result.put("data", JSONArray.fromObject(jobPipelines));
+		}
+		send(exchange, status, "application/json", result.toString());
+	}
+
+	private void getTasks(HttpExchange exchange, String serverIdentity) throws IOException {
+		BlockingQueue<JSONObject> queue = getTaskQueue(serverIdentity);
+		JSONObject task;
+		try {
+			task = queue.poll(taskPollTimeout, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			task = null;
+		}
+		JSONArray result = new JSONArray();
+		if (task != null) {
+			result.add(task);
+			while ((task = queue.poll()) != null) {
+				result.add(task);
+			}
+		}
+		try {
+			if (result.isEmpty()) {
+				send(exchange, 408, "text/plain", "No tasks");
+			} else {
+				send(exchange, 200, "application/json", result.toString());
+			}
+		} catch (IOException e) {
+			// client stopped waiting (its socket timeout can be shorter than the poll), tasks are kept for the next poll
+			logger.log(Level.FINE, "Client of " + serverIdentity + " is gone, tasks were not delivered", e);
+			for (int i = 0; i < result.size(); i++) {
+				queue.add(result.getJSONObject(i));
+			}
+		}
+	}
+
+	private BlockingQueue<JSONObject> getTaskQueue(String serverIdentity) {
+		BlockingQueue<JSONObject> queue = tasks.get(serverIdentity);
+		if (queue == null) {
+			BlockingQueue<JSONObject> newQueue = new LinkedBlockingQueue<>();
+			queue = tasks.putIfAbsent(serverIdentity, newQueue);
+			if (queue == null) {
+				queue = newQueue;
+			}
+		}
+		return queue;
+	}
+
+	private void entityCollection(HttpExchange exchange, Long workspaceId, String collection) throws IOException {
+		Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+		EntityQuery query;
+		try {
+			query = EntityQuery.parse(unquote(params.get("query")));
+		} catch (IllegalArgumentException e) {
+			sendError(exchange, 400, "platform.invalid_query", e.getMessage());
+			return;
+		}
+		List<JSONObject> result;
+		int totalCount;
+		switch (exchange.getRequestMethod()) {
+			case "GET":
+				List<JSONObject> matching = entityStore.query(workspaceId, collection, query, params.get("order_by"));
+				int offset = params.containsKey("offset") ? Integer.parseInt(params.get("offset")) : 0;
+				int limit = params.containsKey("limit") ? Integer.parseInt(params.get("limit")) : 100;
+				result = matching.subList(Math.min(offset, matching.size()), Math.min(offset + limit, matching.size()));
+				totalCount = matching.size();
+				break;
+			case "POST":
+				result = new ArrayList<>();
+				for (JSONObject entity : getJSONObjects(readEntities(exchange))) {
+					result.add(entityStore.add(workspaceId, collection, entity));
+				}
+				totalCount = result.size();
+				send(exchange, 201, "application/json", EntityStore.toPage(result, totalCount).toString());
+				return;
+			case "PUT":
+				result = new ArrayList<>();
+				for (JSONObject entity : getJSONObjects(readEntities(exchange))) {
+					JSONObject updated = entityStore.update(workspaceId, collection, entity.getLong("id"), entity);
+					if (updated != null) {
+						result.add(updated);
+					}
+				}
+				totalCount = result.size();
+				break;
+			case "DELETE":
+				result = entityStore.delete(workspaceId, collection, query);
+				totalCount = result.size();
+				break;
+			default:
+				sendError(exchange, 405, "platform.method_not_allowed", exchange.getRequestMethod());
+				return;
+		}
+		send(exchange, 200, "application/json", EntityStore.toPage(result, totalCount).toString());
+	}
+
+	private void entity(HttpExchange exchange, Long workspaceId, String collection, long id) throws IOException {
+		JSONObject entity;
+		switch (exchange.getRequestMethod()) {
+			case "GET":
+				entity = entityStore.get(workspaceId, collection, id);
+				break;
+			case "PUT":
+				byte[] body = readBody(exchange);
+				JSONObject fields = body.length > 0 ? JSONObject.fromObject(new String(body, "UTF-8")) : new JSONObject();
+				entity = entityStore.update(workspaceId, collection, id, fields);
+				break;
+			case "DELETE":
+				List<JSONObject> removed = entityStore.delete(workspaceId, collection, EntityQuery.parse("id=" + id));
+				entity = removed.isEmpty() ? null : removed.get(0);
+				break;
+			default:
+				sendError(exchange, 405, "platform.method_not_allowed", exchange.getRequestMethod());
+				return;
+		}
+		if (entity == null) {
+			sendError(exchange, 404, "platform.entity_not_found", collection + " " + id + " not found");
+		} else {
+			send(exchange, 200, "application/json", entity.toString());
+		}
+	}
+
+	private static JSONArray readEntities(HttpExchange exchange) throws IOException {
+		JSONObject body = JSONObject.fromObject(new String(readBody(exchange), "UTF-8"));
+		return body.getJSONArray("data");
+	}
+
+	private static List<JSONObject> getJSONObjects(JSONArray array) {
+		List<JSONObject> result = new ArrayList<>(array.size());
+		for (int i = 0; i < array.size(); i++) {
+			result.add(array.getJSONObject(i));
+		}
+		return result;
+	}
+
+	/**
+	 * @return request body, decompressed if it is sent with gzip content encoding or as gzip stream (logs, coverage)
+	 */
+	private static byte[] readBody(HttpExchange exchange) throws IOException {
+		// request body stream is left open, it is drained before the response is sent (see send)
+		byte[] body = IOUtils.toByteArray(exchange.getRequestBody());
+		boolean gzipMagic = body.length >= 2 && (body[0] & 0xff) == 0x1f && (body[1] & 0xff) == 0x8b;
+		if (gzipMagic || "gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+			InputStream is = new GZIPInputStream(new ByteArrayInputStream(body));
+			try {
+				body = IOUtils.toByteArray(is);
+			} finally {
+				is.close();
+			}
+		}
+		return body;
+	}
+
+	private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+		// unread request body makes the server close the connection instead of keeping it alive
+		IOUtils.skip(exchange.getRequestBody(), Long.MAX_VALUE);
+		Headers headers = exchange.getResponseHeaders();
+		if (contentType != null) {
+			headers.set("Content-Type", contentType + "; charset=UTF-8");
+		}
+		if (body == null) {
+			exchange.sendResponseHeaders(status, -1);
+			return;
+		}
+		byte[] bytes = body.getBytes("UTF-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+		OutputStream os = exchange.getResponseBody();
+		os.write(bytes);
+		os.close();
+	}
+
+	private static void sendError(HttpExchange exchange, int status, String errorCode, String description) throws IOException {
+		JSONObject error = new JSONObject();
+		error.put("error_code", errorCode);
+		error.put("description", description);
+		try {
+			send(exchange, status, "application/json", error.toString());
+		} catch (IOException | JSONException e) {
+			logger.log(Level.FINE, "Failed to send error response", e);
+		}
+	}
+
+	private static boolean matches(String[] path, String... pattern) {
+		if (path.length != pattern.length) {
+			return false;
+		}
+		for (int i = 0; i < path.length; i++) {
+			if (!pattern[i].equals("*") && !pattern[i].equals(path[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static String[] splitPath(String rawPath) throws UnsupportedEncodingException {
+		List<String> segments = new ArrayList<>();
+		for (String segment : rawPath.split("/")) {
+			if (!segment.isEmpty()) {
+				segments.add(URLDecoder.decode(segment.replace("+", "%2B"), "UTF-8"));
+			}
+		}
+		return segments.toArray(new String[segments.size()]);
+	}
+
+	private static String[] subPath(String[] path, int from) {
+		String[] result = new String[path.length - from];
+		System.arraycopy(path, from, result, 0, result.length);
+		return result;
+	}
+
+	private static Map<String, String> parseQuery(String rawQuery) throws UnsupportedEncodingException {
+		Map<String, String> params = new HashMap<>();
+		if (rawQuery != null) {
+			for (String param : rawQuery.split("&")) {
+				if (!param.isEmpty()) {
+					String[] pair = param.split("=", 2);
+					params.put(URLDecoder.decode(pair[0], "UTF-8"), pair.length > 1 ? URLDecoder.decode(pair[1], "UTF-8") : "");
+				}
+			}
+		}
+		return params;
+	}
+
+	private static String unquote(String value) {
+		if (value != null && value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+			return value.substring(1, value.length() - 1);
+		}
+		return value;
+	}
+
+	private static long parseId(String id) {
+		try {
+			return Long.parseLong(id);
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Authenticated request received by the server.
+	 */
+	public static final class RecordedRequest {
+
+		private final String method;
+		private final String uri;
+		private final String user;
+		private final Headers headers;
+
+		private RecordedRequest(HttpExchange exchange, String user) {
+			this.method = exchange.getRequestMethod();
+			this.uri = exchange.getRequestURI().toString();
+			this.user = user;
+			this.headers = new Headers();
+			this.headers.putAll(exchange.getRequestHeaders());
+		}
+
+		public String getMethod() {
+			return method;
+		}
+
+		/**
+		 * @return raw request URI (path and query)
+		 */
+		public String getUri() {
+			return uri;
+		}
+
+		/**
+		 * @return user of the session the request was authenticated with
+		 */
+		public String getUser() {
+			return user;
+		}
+
+		public String getHeader(String name) {
+			return headers.getFirst(name);
+		}
+	}
+
+	private static final class Session {
+
+		private final String user;
+		private final long created;
+
+		private Session(String user, long created) {
+			this.user = user;
+			this.created = created;
+		}
+	}
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client;
+
+import com.hp.mqm.client.internal.ParallelExecutor;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONException;
+import net.sf.json.JSONObject;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Executes abridged tasks concurrently and submits the result of each task as soon as the task completes.
+ *
+ * Tasks are executed on bounded thread pool. When the queue of waiting tasks is full the task is executed
+ * by the thread which delivered it, which slows down the polling. Executor can be used directly as
+ * listener of {@link AbridgedTasksPoller}.
+ */
+public class AbridgedTaskExecutor implements AbridgedTasksListener {
+    private static final Logger logger = Logger.getLogger(AbridgedTaskExecutor.class.getName());
+
+    private static final int DEFAULT_PARALLELISM = 5;
+    private static final int DEFAULT_QUEUE_CAPACITY = 100;
+
+    private final MqmRestClient client;
+    private final String selfIdentity;
+    private final AbridgedTaskProcessor processor;
+    private final ThreadPoolExecutor executor;
+
+    public AbridgedTaskExecutor(MqmRestClient client, String selfIdentity, AbridgedTaskProcessor processor) {
+        this(client, selfIdentity, processor, DEFAULT_PARALLELISM, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param client        client used to submit the results
+     * @param selfIdentity  identity of the server
+     * @param processor     executes the tasks
+     * @param parallelism   maximum number of tasks executed at the same time
+     * @param queueCapacity maximum number of tasks waiting for execution
+     */
+    public AbridgedTaskExecutor(MqmRestClient client, String selfIdentity, AbridgedTaskProcessor processor, int parallelism, int queueCapacity) {
+        if (client == null || selfIdentity == null || processor == null) {
+            throw new IllegalArgumentException("Client, self identity and processor must not be null.");
+        }
+        this.client = client;
+        this.selfIdentity = selfIdentity;
+        this.processor = processor;
+        executor = new ThreadPoolExecutor(parallelism, parallelism, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(queueCapacity),
+                new ParallelExecutor.DaemonThreadFactory("abridged-task-executor"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public void onTasks(String tasksJSON) {
+        JSONArray tasks;
+        try {
+            tasks = JSONArray.fromObject(tasksJSON);
+        } catch (JSONException e) {
+            logger.log(Level.SEVERE, "Failed to parse abridged tasks", e);
+            return;
+        }
+        for (int i = 0; i < tasks.size(); i++) {
+            submit(tasks.getJSONObject(i));
+        }
+    }
+
+    /**
+     * Schedules execution of single task.
+     *
+     * @param task task as retrieved from the server
+     */
+    public void submit(final JSONObject task) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                execute(task);
+            }
+        });
+    }
+
+    /**
+     * Stops accepting new tasks, tasks already submitted are completed.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void execute(JSONObject task) {
+        String taskId = task.optString("id");
+        try {
+            InputStreamSource result = processor.process(task);
+            if (result == null) {
+                logger.warning("Abridged task " + taskId + " has no result");
+                return;
+            }
+            int status = client.putAbridgedResult(selfIdentity, taskId, result);
+            if (status < 200 || status >= 300) {
+                logger.warning("Result of abridged task " + taskId + " was not accepted; status: " + status);
+            }
+        } catch (RuntimeException e) {
+            logger.log(Level.SEVERE, "Failed to execute abridged task " + taskId, e);
+        }
+    }
+}
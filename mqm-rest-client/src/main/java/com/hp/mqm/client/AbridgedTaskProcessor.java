@@ -0,0 +1,32 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client;
+
+import net.sf.json.JSONObject;
+
+/**
+ * Executes single abridged task on behalf of {@link AbridgedTaskExecutor}.
+ */
+public interface AbridgedTaskProcessor {
+
+    /**
+     * Executes the task. Invoked concurrently for the tasks of the same poll.
+     *
+     * @param task task as retrieved from the server
+     * @return source of the result JSON (it may be read more than once), null if there is no result to submit
+     */
+    InputStreamSource process(JSONObject task);
+}
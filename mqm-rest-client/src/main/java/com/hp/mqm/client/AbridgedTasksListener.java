@@ -0,0 +1,30 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client;
+
+/**
+ * Receives abridged tasks retrieved by {@link AbridgedTasksPoller}.
+ */
+public interface AbridgedTasksListener {
+
+    /**
+     * Invoked from the polling thread as soon as tasks arrive. Next poll starts when the method returns,
+     * therefore long running processing should be handed over to another thread.
+     *
+     * @param tasksJSON tasks as returned by {@link MqmRestClient#getAbridgedTasks}
+     */
+    void onTasks(String tasksJSON);
+}
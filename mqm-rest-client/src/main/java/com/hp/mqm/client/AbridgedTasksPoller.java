@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client;
+
+import com.hp.mqm.client.model.AbridgedTaskPluginInfo;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Retrieves abridged tasks in background and delivers them to the listener as soon as they arrive.
+ *
+ * Poller runs in its own daemon thread and uses the long-poll retrieval {@link MqmRestClient#getAbridgedTasks}
+ * repeatedly. In case of failure the next poll is delayed (the delay doubles with each consecutive failure).
+ */
+public class AbridgedTasksPoller implements Runnable {
+    private static final Logger logger = Logger.getLogger(AbridgedTasksPoller.class.getName());
+
+    private static final long MIN_ERROR_DELAY = 1000;         // in milliseconds
+    private static final long MAX_ERROR_DELAY = 60 * 1000;    // in milliseconds
+
+    private final MqmRestClient client;
+    private final AbridgedTaskPluginInfo info;
+    private final AbridgedTasksListener listener;
+
+    // polling thread, the thread stops when it is no longer the current one (the poll in progress can't be aborted)
+    private volatile Thread thread;
+
+    public AbridgedTasksPoller(MqmRestClient client, AbridgedTaskPluginInfo info, AbridgedTasksListener listener) {
+        if (client == null || info == null || listener == null) {
+            throw new IllegalArgumentException("Client, plugin info and listener must not be null.");
+        }
+        this.client = client;
+        this.info = info;
+        this.listener = listener;
+    }
+
+    /**
+     * Starts the polling thread.
+     */
+    public synchronized void start() {
+        if (thread != null) {
+            throw new IllegalStateException("Poller is already started.");
+        }
+        Thread pollingThread = new Thread(this, "abridged-tasks-poller-" + info.getSelfIdentity());
+        pollingThread.setDaemon(true);
+        thread = pollingThread;
+        pollingThread.start();
+    }
+
+    /**
+     * Stops the polling. Poll in progress is not aborted, its tasks are not delivered. Poller can be started again
+     * right away, the thread of the previous start ends when its poll completes.
+     */
+    public synchronized void stop() {
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    public boolean isRunning() {
+        return thread != null;
+    }
+
+    /**
+     * Polling loop, it is run by the thread created in {@link #start()}.
+     */
+    @Override
+    public void run() {
+        long errorDelay = 0;
+        while (isCurrentThread()) {
+            String tasks;
+            try {
+                tasks = client.getAbridgedTasks(info);
+                errorDelay = 0;
+            } catch (RuntimeException e) {
+                errorDelay = Math.min(MAX_ERROR_DELAY, Math.max(MIN_ERROR_DELAY, errorDelay * 2));
+                logger.log(Level.WARNING, "Failed to retrieve abridged tasks, next attempt in " + errorDelay + " ms", e);
+                try {
+                    Thread.sleep(errorDelay);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                continue;
+            }
+            if (isCurrentThread() && tasks != null && !tasks.isEmpty()) {
+                try {
+                    listener.onTasks(tasks);
+                } catch (RuntimeException e) {
+                    // failure of the listener is not a problem of the server, poll again right away
+                    logger.log(Level.WARNING, "Listener failed to handle abridged tasks", e);
+                }
+            }
+        }
+    }
+
+    private boolean isCurrentThread() {
+        return thread == Thread.currentThread();
+    }
+}
@@ -17,15 +17,32 @@ package com.hp.mqm.client;
 
 import com.hp.mqm.client.exception.AuthenticationException;
 import com.hp.mqm.client.exception.AuthorizationException;
-import com.hp.mqm.client.exception.ExceptionStackTraceParser;
 import com.hp.mqm.client.exception.LoginErrorException;
 import com.hp.mqm.client.exception.RequestErrorException;
 import com.hp.mqm.client.exception.RequestException;
-import com.hp.mqm.client.exception.ServerException;
 import com.hp.mqm.client.exception.SharedSpaceNotExistException;
+import com.hp.mqm.client.exception.TemporarilyUnavailableException;
+import com.hp.mqm.client.interceptor.RequestContext;
+import com.hp.mqm.client.interceptor.RequestInterceptorChain;
+import com.hp.mqm.client.internal.AdaptiveConcurrencyLimiter;
+import com.hp.mqm.client.internal.AuthContext;
+import com.hp.mqm.client.internal.CircuitBreaker;
+import com.hp.mqm.client.internal.CountingEntity;
+import com.hp.mqm.client.internal.MeasuredConnectionManager;
+import com.hp.mqm.client.internal.MeteredGzipEntity;
+import com.hp.mqm.client.internal.MeteredResponseEntity;
+import com.hp.mqm.client.internal.ReleasingEntity;
+import com.hp.mqm.client.internal.RequestTrace;
+import com.hp.mqm.client.internal.TenantShares;
+import com.hp.mqm.client.internal.EndpointFamily;
+import com.hp.mqm.client.internal.GuardedMetricsListener;
+import com.hp.mqm.client.internal.HttpTransport;
+import com.hp.mqm.client.metrics.InMemoryMetrics;
+import com.hp.mqm.client.metrics.MetricsListener;
+import com.hp.mqm.client.metrics.RequestMetrics;
+import com.hp.mqm.client.model.CircuitBreakerStatus;
 import com.hp.mqm.client.model.PagedList;
 import org.apache.http.*;
-import org.apache.http.client.CookieStore;
 import org.apache.http.client.CredentialsProvider;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.*;
@@ -38,27 +55,38 @@ import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
-import org.apache.http.protocol.BasicHttpContext;
-import org.apache.http.protocol.HttpContext;
+import org.apache.http.message.BasicHeader;
 import net.sf.json.JSONArray;
 import net.sf.json.JSONException;
 import net.sf.json.JSONObject;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
 import org.apache.commons.lang.StringUtils;
 import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.Credentials;
 import org.apache.http.auth.UsernamePasswordCredentials;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.HttpClientConnectionManager;
 import org.apache.http.client.utils.HttpClientUtils;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.UnsupportedEncodingException;
+import java.net.SocketTimeoutException;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
@@ -69,7 +97,7 @@ public abstract class AbstractMqmRestClient implements BaseMqmRestClient {
 	private static final String HEADER_CLIENT_TYPE = "HPECLIENTTYPE";
 	private static final String LWSSO_COOKIE_NAME = "LWSSO_COOKIE_KEY";
 
-	private Cookie LWSSO_TOKEN = null;
+	private volatile AuthContext authContext;
 
 	private static final String PROJECT_API_URI = "api/shared_spaces/{0}";
 	private static final String SHARED_SPACE_INTERNAL_API_URI = "internal-api/shared_spaces/{0}";
@@ -83,17 +111,37 @@ public abstract class AbstractMqmRestClient implements BaseMqmRestClient {
 	private static final String ORDER_BY_FRAGMENT = "order_by={order}";
 
 	private static final String URI_PARAM_ENCODING = "UTF-8";
+	private static final int MAX_ERROR_BODY_SIZE = 256 * 1024;           // in bytes
 
 	private static final int DEFAULT_CONNECTION_TIMEOUT = 20 * 1000;     // in milliseconds
 	private static final int DEFAULT_SO_TIMEOUT = 2 * 60 * 1000;         // in milliseconds
-
-	private CloseableHttpClient httpClient;
-	private CookieStore cookieStore;
+	private static final long DEFAULT_EXPECT_CONTINUE_THRESHOLD = 1024 * 1024;  // in bytes
+	private static final int DEFAULT_TASK_POLLING_TIMEOUT = 2 * 60 * 1000;   // in milliseconds
+	private static final int TASK_POLLING_MAX_CONNECTIONS = 2;
+	private static final int DEFAULT_CIRCUIT_BREAKER_FAILURE_RATE = 50;     // in percents
+	private static final int DEFAULT_CIRCUIT_BREAKER_WINDOW_SIZE = 20;
+	private static final int DEFAULT_CIRCUIT_BREAKER_OPEN_DURATION = 30 * 1000;  // in milliseconds
+	private static final int CIRCUIT_BREAKER_HALF_OPEN_TRIALS = 3;
+	private static final int DEFAULT_MAX_CONNECTIONS = 20;
+	private static final int CONCURRENCY_INITIAL_LIMIT = 4;
+	private static final int CONCURRENCY_MAX_QUEUED = 100;
+	private static final int CONCURRENCY_QUEUE_TIMEOUT = 30 * 1000;    // in milliseconds
+
+	private final HttpTransport transport;
 	private final String clientType;
 	private final String location;
 	private final String sharedSpace;
 	private final String username;
 	private final String password;
+	private final long expectContinueThreshold;
+	private final Map<EndpointFamily, CircuitBreaker> circuitBreakers;
+	private final RetryPolicy retryPolicy;
+	private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+	private final GuardedMetricsListener metricsListener;
+	private final RequestInterceptorChain interceptorChain;
+	private final String locationPath;
+	private final int maxConnectionsPerTenant;
+	private volatile boolean closed;
 
 	/**
 	 * Constructor for AbstractMqmRestClient.
@@ -101,6 +149,20 @@ public abstract class AbstractMqmRestClient implements BaseMqmRestClient {
 	 * @param connectionConfig MQM connection configuration, Fields 'location', 'domain', 'project' and 'clientType' must not be null or empty.
 	 */
 	protected AbstractMqmRestClient(MqmConnectionConfig connectionConfig) {
+		this(connectionConfig, createTransport(connectionConfig), 0);
+	}
+
+	/**
+	 * Constructor of the client using transport shared with the clients of other tenants (see {@link MqmRestClientRegistry}).
+	 * Session of the client is not shared.
+	 *
+	 * @param connectionConfig        MQM connection configuration, Fields 'location', 'domain', 'project' and 'clientType' must not be null or empty.
+	 * @param transport               transport created by {@link #createTransport(MqmConnectionConfig)}, it is retained by the client
+	 *                                until {@link #close()}
+	 * @param maxConnectionsPerTenant maximum number of connections of the shared pool used by the client at once,
+	 *                                zero for no cap; the client is always limited to its fair share of the pool
+	 */
+	protected AbstractMqmRestClient(MqmConnectionConfig connectionConfig, HttpTransport transport, int maxConnectionsPerTenant) {
 		checkNotEmpty("Parameter 'location' must not be null or empty.", connectionConfig.getLocation());
 		checkNotEmpty("Parameter 'sharedSpace' must not be null or empty.", connectionConfig.getSharedSpace());
 		checkNotEmpty("Parameter 'clientType' must not be null or empty.", connectionConfig.getClientType());
@@ -109,54 +171,92 @@ public abstract class AbstractMqmRestClient implements BaseMqmRestClient {
 		sharedSpace = connectionConfig.getSharedSpace();
 		username = connectionConfig.getUsername();
 		password = connectionConfig.getPassword();
+		expectContinueThreshold = connectionConfig.getExpectContinueThreshold() != null ? connectionConfig.getExpectContinueThreshold() : DEFAULT_EXPECT_CONTINUE_THRESHOLD;
+		circuitBreakers = createCircuitBreakers(connectionConfig);
+		retryPolicy = connectionConfig.getRetryPolicy() != null ? connectionConfig.getRetryPolicy() : new RetryPolicy();
+		metricsListener = new GuardedMetricsListener(connectionConfig.getMetricsListener() != null ? connectionConfig.getMetricsListener() : new InMemoryMetrics());
+		interceptorChain = new RequestInterceptorChain(connectionConfig.getRequestInterceptors());
+		locationPath = StringUtils.defaultString(URI.create(location).getRawPath());
+
+		if (connectionConfig.getMaxConcurrentRequests() != null) {
+			concurrencyLimiter = new AdaptiveConcurrencyLimiter(CONCURRENCY_INITIAL_LIMIT, 1, connectionConfig.getMaxConcurrentRequests(), CONCURRENCY_MAX_QUEUED, CONCURRENCY_QUEUE_TIMEOUT);
+		} else {
+			concurrencyLimiter = null;
+		}
+		this.maxConnectionsPerTenant = maxConnectionsPerTenant;
+		transport.retain();
+		this.transport = transport;
+	}
 
+	/**
+	 * Creates HTTP clients and connection pools for given configuration. Transport doesn't depend on the shared space
+	 * and credentials, clients of several tenants of the same host can share it.
+	 */
+	protected static HttpTransport createTransport(MqmConnectionConfig connectionConfig) {
+		checkNotEmpty("Parameter 'clientType' must not be null or empty.", connectionConfig.getClientType());
+		int maxConnections = connectionConfig.getMaxConcurrentRequests() != null ? connectionConfig.getMaxConcurrentRequests() : DEFAULT_MAX_CONNECTIONS;
 		PoolingHttpClientConnectionManager cm = new PoolingHttpClientConnectionManager();
-		cm.setMaxTotal(20);
-		cm.setDefaultMaxPerRoute(20);
-		cookieStore = new BasicCookieStore();
+		cm.setMaxTotal(maxConnections);
+		cm.setDefaultMaxPerRoute(maxConnections);
+		RequestConfig requestConfig = createRequestConfig(connectionConfig,
+				connectionConfig.getDefaultSocketTimeout() != null ? connectionConfig.getDefaultSocketTimeout() : DEFAULT_SO_TIMEOUT);
+		CloseableHttpClient httpClient = createHttpClient(connectionConfig, cm, requestConfig);
+
+		// long-poll requests hold the connection until the timeout, they have own pool not to starve the other requests
+		PoolingHttpClientConnectionManager taskPollingCm = new PoolingHttpClientConnectionManager();
+		CloseableHttpClient taskPollingHttpClient = createHttpClient(connectionConfig, taskPollingCm, createRequestConfig(connectionConfig,
+				connectionConfig.getTaskPollingTimeout() != null ? connectionConfig.getTaskPollingTimeout() : DEFAULT_TASK_POLLING_TIMEOUT));
+		return new HttpTransport(cm, httpClient, taskPollingCm, taskPollingHttpClient, requestConfig, TASK_POLLING_MAX_CONNECTIONS);
+	}
+
+	private static Map<EndpointFamily, CircuitBreaker> createCircuitBreakers(MqmConnectionConfig connectionConfig) {
+		int failureRateThreshold = connectionConfig.getCircuitBreakerFailureRateThreshold() != null ? connectionConfig.getCircuitBreakerFailureRateThreshold() : DEFAULT_CIRCUIT_BREAKER_FAILURE_RATE;
+		int windowSize = connectionConfig.getCircuitBreakerWindowSize() != null ? connectionConfig.getCircuitBreakerWindowSize() : DEFAULT_CIRCUIT_BREAKER_WINDOW_SIZE;
+		int openDuration = connectionConfig.getCircuitBreakerOpenDuration() != null ? connectionConfig.getCircuitBreakerOpenDuration() : DEFAULT_CIRCUIT_BREAKER_OPEN_DURATION;
+		Map<EndpointFamily, CircuitBreaker> breakers = new EnumMap<>(EndpointFamily.class);
+		for (EndpointFamily family : EndpointFamily.values()) {
+			breakers.put(family, new CircuitBreaker(family.getName(), failureRateThreshold, windowSize, openDuration, CIRCUIT_BREAKER_HALF_OPEN_TRIALS));
+		}
+		return breakers;
+	}
 
+	private static RequestConfig createRequestConfig(MqmConnectionConfig connectionConfig, int socketTimeout) {
+		RequestConfig.Builder builder = RequestConfig.custom()
+				.setConnectTimeout(connectionConfig.getDefaultConnectionTimeout() != null ? connectionConfig.getDefaultConnectionTimeout() : DEFAULT_CONNECTION_TIMEOUT)
+				.setSocketTimeout(socketTimeout);
 		if (connectionConfig.getProxyHost() != null && !connectionConfig.getProxyHost().isEmpty()) {
-			HttpHost proxy = new HttpHost(connectionConfig.getProxyHost(), connectionConfig.getProxyPort());
-
-			RequestConfig requestConfig = RequestConfig.custom()
-					.setProxy(proxy)
-					.setConnectTimeout(connectionConfig.getDefaultConnectionTimeout() != null ? connectionConfig.getDefaultConnectionTimeout() : DEFAULT_CONNECTION_TIMEOUT)
-					.setSocketTimeout(connectionConfig.getDefaultSocketTimeout() != null ? connectionConfig.getDefaultSocketTimeout() : DEFAULT_SO_TIMEOUT).build();
-
-			if (connectionConfig.getProxyCredentials() != null) {
-				AuthScope proxyAuthScope = new AuthScope(connectionConfig.getProxyHost(), connectionConfig.getProxyPort());
-				Credentials credentials = proxyCredentialsToCredentials(connectionConfig.getProxyCredentials());
-
-				CredentialsProvider credsProvider = new BasicCredentialsProvider();
-				credsProvider.setCredentials(proxyAuthScope, credentials);
-
-				httpClient = HttpClients.custom()
-						.setConnectionManager(cm)
-						.setDefaultCookieStore(cookieStore)
-						.setDefaultCredentialsProvider(credsProvider)
-						.setDefaultRequestConfig(requestConfig)
-						.build();
-			} else {
-				httpClient = HttpClients.custom()
-						.setConnectionManager(cm)
-						.setDefaultCookieStore(cookieStore)
-						.setDefaultRequestConfig(requestConfig)
-						.build();
-			}
-		} else {
-			RequestConfig requestConfig = RequestConfig.custom()
-					.setConnectTimeout(connectionConfig.getDefaultConnectionTimeout() != null ? connectionConfig.getDefaultConnectionTimeout() : DEFAULT_CONNECTION_TIMEOUT)
-					.setSocketTimeout(connectionConfig.getDefaultSocketTimeout() != null ? connectionConfig.getDefaultSocketTimeout() : DEFAULT_SO_TIMEOUT)
+			builder.setProxy(new HttpHost(connectionConfig.getProxyHost(), connectionConfig.getProxyPort()));
+		}
+		return builder.build();
+	}
+
+	private static CloseableHttpClient createHttpClient(MqmConnectionConfig connectionConfig, PoolingHttpClientConnectionManager pool, RequestConfig config) {
+		HttpClientConnectionManager cm = new MeasuredConnectionManager(pool);
+		// shared immutable header, it is added to the requests without copying
+		List<Header> defaultHeaders = Collections.<Header>singletonList(new BasicHeader(HEADER_CLIENT_TYPE, connectionConfig.getClientType()));
+		if (connectionConfig.getProxyHost() != null && !connectionConfig.getProxyHost().isEmpty() && connectionConfig.getProxyCredentials() != null) {
+			AuthScope proxyAuthScope = new AuthScope(connectionConfig.getProxyHost(), connectionConfig.getProxyPort());
+			Credentials credentials = proxyCredentialsToCredentials(connectionConfig.getProxyCredentials());
+
+			CredentialsProvider credsProvider = new BasicCredentialsProvider();
+			credsProvider.setCredentials(proxyAuthScope, credentials);
+
+			return HttpClients.custom()
+					.setConnectionManager(cm)
+					.setDefaultHeaders(defaultHeaders)
+					.setDefaultCredentialsProvider(credsProvider)
+					.setDefaultRequestConfig(config)
 					.build();
-			httpClient = HttpClients.custom()
+		} else {
+			return HttpClients.custom()
 					.setConnectionManager(cm)
-					.setDefaultCookieStore(cookieStore)
-					.setDefaultRequestConfig(requestConfig)
+					.setDefaultHeaders(defaultHeaders)
+					.setDefaultRequestConfig(config)
 					.build();
 		}
 	}
 
-	private Credentials proxyCredentialsToCredentials(ProxyCredentials credentials) {
+	private static Credentials proxyCredentialsToCredentials(ProxyCredentials credentials) {
 		if (credentials instanceof UsernamePasswordProxyCredentials) {
 			return new UsernamePasswordCredentials(((UsernamePasswordProxyCredentials) credentials).getUsername(),
 					((UsernamePasswordProxyCredentials) credentials).getPassword());
@@ -171,7 +271,18 @@ public abstract class AbstractMqmRestClient implements BaseMqmRestClient {
 	 * @throws com.hp.mqm.client.exception.LoginException when authentication failed
 	 */
 	protected synchronized void login() {
-		authenticate();
+		login(false);
+	}
+
+	private synchronized void login(boolean relogin) {
+		long start = System.nanoTime();
+		boolean success = false;
+		try {
+			authenticate();
+			success = true;
+		} finally {
+			metricsListener.onLogin(relogin, success, System.nanoTime() - start);
+		}
 	}
 
 	private void authenticate() {
@@ -180,28 +291,30 @@ public abstract class AbstractMqmRestClient implements BaseMqmRestClient {
 				"{\"user\":\"" + (username != null ? username : "") + "\"," +
 						"\"password\":\"" + (password != null ? password : "") + "\"}",
 				ContentType.APPLICATION_JSON);
-		post.setHeader(HEADER_CLIENT_TYPE, clientType);
 		post.setEntity(loginApiJson);
 
+		// own cookie store, the transport may be shared with the clients of other tenants
+		HttpClientContext context = HttpClientContext.create();
+		context.setCookieStore(new BasicCookieStore());
 		HttpResponse response = null;
-		boolean tokenFound = false;
+		Cookie token = null;
 		try {
-			cookieStore.clear();
-			response = httpClient.execute(post);
+			response = transport.getHttpClient().execute(post, context);
 			if (response.getStatusLine().getStatusCode() == HttpStatus.SC_OK) {
-				for (Cookie cookie : cookieStore.getCookies()) {
+				for (Cookie cookie : context.getCookieStore().getCookies()) {
 					if (cookie.getName().equals(LWSSO_COOKIE_NAME)) {
-						LWSSO_TOKEN = cookie;
-						tokenFound = true;
+						token = cookie;
 					}
 				}
 			} else {
 				throw new AuthenticationException("Authentication failed: code=" + response.getStatusLine().getStatusCode() + "; reason=" + response.getStatusLine().getReasonPhrase());
 			}
-			if (!tokenFound) {
-				LWSSO_TOKEN = null;
+			if (token == null) {
+				authContext = null;
 				throw new AuthenticationException("Authentication failed: status code was OK, but no security token found");
 			}
+			AuthContext previous = authContext;
+			authContext = new AuthContext(token, previous != null ? previous.getGeneration() + 1 : 1);
 		} catch (IOException e) {
 			throw new LoginErrorException("Error occurred during authentication", e);
 		} finally {
@@ -209,6 +322,29 @@ public abstract class AbstractMqmRestClient implements BaseMqmRestClient {
 		}
 	}
 
+	@Override
+	public synchronized void close() {
+		if (!closed) {
+			closed = true;
+			transport.release();
+		}
+	}
+
+	@Override
+	public MetricsListener getMetricsListener() {
+		return metricsListener.getListener();
+	}
+
+	@Override
+	public Map<String, CircuitBreakerStatus> getCircuitBreakerStatus() {
+		Map<String, CircuitBreakerStatus> status = new LinkedHashMap<>();
+		for (CircuitBreaker circuitBreaker : circuitBreakers.values()) {
+			CircuitBreakerStatus breakerStatus = circuitBreaker.getStatus();
+			status.put(breakerStatus.getName(), breakerStatus);
+		}
+		return status;
+	}
+
 	//  YG: temporary workaround with optional login; will become unneeded once migrated to SDK
 	@Override
 	public void validateConfigurationWithoutLogin() {
@@ -225,7 +361,7 @@ public abstract class AbstractMqmRestClient implements BaseMqmRestClient {
 		HttpGet request = new HttpGet(createSharedSpaceInternalApiUri(CONNECTIVITY_API_URI));
 		HttpResponse response = null;
 		try {
-			response = execute(request);
+			response = execute(request, CONNECTIVITY_API_URI);
 			if (response.getStatusLine().getStatusCode() == HttpStatus.SC_NOT_FOUND) {
 				throw new SharedSpaceNotExistException("Cannot connect to given shared space.");
 			} else if (response.getStatusLine().getStatusCode() == HttpStatus.SC_FORBIDDEN) {
@@ -326,7 +462,7 @@ public abstract class AbstractMqmRestClient implements BaseMqmRestClient {
 	 * @param params   URI parameters
 	 * @return resolved URI template
 	 */
-	private String resolveTemplate(String template, Map<String, ?> params) {
+	String resolveTemplate(String template, Map<String, ?> params) {
 		String result = template;
 		for (String param : params.keySet()) {
 			Object value = params.get(param);
@@ -358,35 +494,395 @@ public abstract class AbstractMqmRestClient implements BaseMqmRestClient {
 	 *
 	 * Method does not support request with non-repeatable entity (see {@link HttpEntity#isRepeatable()}).
 	 *
+	 * Request failing with IO error or with temporary server error is retried according to the {@link RetryPolicy}.
+	 * When adaptive concurrency limit is enabled, request over the limit waits until it may be executed.
+	 *
 	 * @param request which should be executed
 	 * @return response for given request
 	 * @throws IllegalArgumentException when request entity is not repeatable
 	 */
 	protected HttpResponse execute(HttpUriRequest request) throws IOException {
-		HttpResponse response;
+		return execute(request, getEndpoint(request));
+	}
 
-		if (LWSSO_TOKEN == null) {
-			login();
+	/**
+	 * Same as {@link #execute(HttpUriRequest)}, metrics of the request are reported under given endpoint.
+	 *
+	 * @param request  which should be executed
+	 * @param endpoint URI template of the endpoint (e.g. 'analytics/ci/servers/{0}/tasks/{1}/result')
+	 * @return response for given request
+	 */
+	protected HttpResponse execute(HttpUriRequest request, String endpoint) throws IOException {
+		endpoint = StringUtils.substringBefore(endpoint, "?");
+		int maxAttempts = isReplayable(request) ? retryPolicy.getMaxAttempts(request.getMethod()) : 1;
+		RequestContext context = createRequestContext(request, endpoint);
+		for (int attempt = 1; ; attempt++) {
+			HttpResponse response;
+			try {
+				response = executeMeasured(request, endpoint, attempt, false, context);
+			} catch (IOException e) {
+				if (attempt >= maxAttempts) {
+					throw e;
+				}
+				waitBeforeRetry(request, attempt, retryPolicy.getDelay(attempt, -1), e.getMessage());
+				continue;
+			}
+			int statusCode = response.getStatusLine().getStatusCode();
+			if (attempt < maxAttempts && retryPolicy.isRetryableStatus(statusCode)) {
+				long delay = retryPolicy.getDelay(attempt, getRetryAfter(response));
+				if (delay >= 0) {
+					HttpClientUtils.closeQuietly(response);
+					waitBeforeRetry(request, attempt, delay, "status " + statusCode);
+					continue;
+				}
+			}
+			return response;
+		}
+	}
+
+	private static boolean isReplayable(HttpUriRequest request) {
+		if (request instanceof HttpEntityEnclosingRequest) {
+			HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+			return entity == null || entity.isRepeatable();
 		}
-		HttpContext localContext = new BasicHttpContext();
-		CookieStore localCookies = new BasicCookieStore();
-		localCookies.addCookie(LWSSO_TOKEN);
-		localContext.setAttribute(HttpClientContext.COOKIE_STORE, localCookies);
+		return true;
+	}
 
-		addRequestHeaders(request);
-		response = httpClient.execute(request, localContext);
+	private static void waitBeforeRetry(HttpUriRequest request, int attempt, long delay, String reason) throws IOException {
+		logger.info("Request " + request.getMethod() + " " + request.getURI().getPath() + " failed (" + reason + "), attempt " + (attempt + 1) + " in " + delay + " ms");
+		try {
+			Thread.sleep(delay);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for retry of the request");
+		}
+	}
+
+	/**
+	 * @return delay (in milliseconds) requested by 'Retry-After' header of the response, negative if there is none
+	 */
+	private static long getRetryAfter(HttpResponse response) {
+		Header header = response.getFirstHeader(HttpHeaders.RETRY_AFTER);
+		if (header == null || StringUtils.isBlank(header.getValue())) {
+			return -1;
+		}
+		String value = header.getValue().trim();
+		if (StringUtils.isNumeric(value)) {
+			try {
+				return Long.parseLong(value) * 1000;
+			} catch (NumberFormatException e) {
+				return -1;
+			}
+		}
+		Date date = DateUtils.parseDate(value);
+		return date != null ? Math.max(0, date.getTime() - System.currentTimeMillis()) : -1;
+	}
+
+	/**
+	 * Same as {@link #execute(HttpUriRequest)} but for long-poll requests. Request is executed using dedicated
+	 * connection pool with own timeout so that it doesn't hold connections needed by the other requests.
+	 *
+	 * @param request  which should be executed
+	 * @param endpoint URI template of the endpoint
+	 * @return response for given request
+	 */
+	protected HttpResponse executeLongPoll(HttpUriRequest request, String endpoint) throws IOException {
+		endpoint = StringUtils.substringBefore(endpoint, "?");
+		return executeMeasured(request, endpoint, 1, true, createRequestContext(request, endpoint));
+	}
+
+	/**
+	 * Creates entity compressing given entity on the fly, sizes before and after the compression are reported to the metrics.
+	 */
+	protected HttpEntity createGzipCompressingEntity(HttpEntity entity, String endpoint) {
+		return new MeteredGzipEntity(entity, metricsListener, endpoint);
+	}
+
+	/**
+	 * Reports compression of the request body done by the caller.
+	 */
+	protected void recordCompression(String endpoint, long uncompressedBytes, long compressedBytes, long duration) {
+		metricsListener.onCompression(endpoint, uncompressedBytes, compressedBytes, duration);
+	}
+
+	/**
+	 * Parses JSON object of the response body, time spent by the parsing is reported to the metrics.
+	 */
+	protected JSONObject parseJSONObject(String json, HttpResponse response) {
+		long start = System.nanoTime();
+		JSONObject object = JSONObject.fromObject(json);
+		metricsListener.onJsonParsing(getEndpoint(response), json.length(), System.nanoTime() - start);
+		return object;
+	}
+
+	/**
+	 * Parses JSON array of the response body, time spent by the parsing is reported to the metrics.
+	 */
+	protected JSONArray parseJSONArray(String json, HttpResponse response) {
+		long start = System.nanoTime();
+		JSONArray array = JSONArray.fromObject(json);
+		metricsListener.onJsonParsing(getEndpoint(response), json.length(), System.nanoTime() - start);
+		return array;
+	}
+
+	private static String getEndpoint(HttpResponse response) {
+		HttpEntity entity = response.getEntity();
+		return entity instanceof MeteredResponseEntity ? ((MeteredResponseEntity) entity).getEndpoint() : "";
+	}
+
+	private RequestContext createRequestContext(HttpUriRequest request, String endpoint) {
+		return interceptorChain.isEmpty() ? null : new RequestContext(request, endpoint);
+	}
+
+	private HttpResponse executeMeasured(HttpUriRequest request, String endpoint, int attempt, boolean longPoll, RequestContext context) throws IOException {
+		if (closed) {
+			throw new IllegalStateException("Client is closed");
+		}
+		if (context != null) {
+			context.setAttempt(attempt);
+			interceptorChain.beforeSend(context);
+		}
+		CountingEntity requestEntity = null;
+		if (request instanceof HttpEntityEnclosingRequest && ((HttpEntityEnclosingRequest) request).getEntity() != null) {
+			HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+			if (entity instanceof CountingEntity) {
+				requestEntity = (CountingEntity) entity;
+				requestEntity.reset();
+			} else {
+				requestEntity = new CountingEntity(entity);
+				((HttpEntityEnclosingRequest) request).setEntity(requestEntity);
+			}
+		}
+		RequestTrace trace = RequestTrace.current();
+		trace.reset();
+		long start = System.nanoTime();
+		int statusCode = -1;
+		long responseContentLength = -1;
+		try {
+			HttpResponse response = longPoll ?
+					execute(request, EndpointFamily.of(request.getURI()), transport.getTaskPollingHttpClient(), true) :
+					executeFair(request);
+			statusCode = response.getStatusLine().getStatusCode();
+			HttpEntity responseEntity = response.getEntity();
+			if (responseEntity != null) {
+				responseContentLength = responseEntity.getContentLength();
+				response.setEntity(new MeteredResponseEntity(responseEntity, metricsListener, endpoint));
+			}
+			if (context != null) {
+				interceptorChain.afterReceive(context, response);
+			}
+			return response;
+		} catch (IOException | RuntimeException e) {
+			if (context != null) {
+				interceptorChain.onError(context, e);
+			}
+			throw e;
+		} finally {
+			metricsListener.onRequest(new RequestMetrics(endpoint, request.getMethod(), statusCode, System.nanoTime() - start,
+					requestEntity != null ? requestEntity.getBytesWritten() : 0, responseContentLength, attempt, trace.isRelogin(), trace.getPoolWait()));
+		}
+	}
+
+	/**
+	 * Derives the endpoint from the request URI: path relative to the location with numeric segments replaced by '{id}'.
+	 */
+	private String getEndpoint(HttpUriRequest request) {
+		String path = request.getURI().getRawPath();
+		if (path == null) {
+			return "";
+		}
+		int start = path.startsWith(locationPath) ? locationPath.length() : 0;
+		StringBuilder endpoint = new StringBuilder(path.length() - start);
+		for (String segment : StringUtils.split(path.substring(start), '/')) {
+			if (endpoint.length() > 0) {
+				endpoint.append('/');
+			}
+			endpoint.append(StringUtils.isNumeric(segment) ? "{id}" : segment);
+		}
+		return endpoint.toString();
+	}
+
+	/**
+	 * Limits the connections of the shared pool used by the client to its fair share, so that single tenant can't
+	 * starve the others. Connection is held until the response body is consumed.
+	 */
+	private HttpResponse executeFair(HttpUriRequest request) throws IOException {
+		final TenantShares tenantShares = transport.getTenantShares();
+		try {
+			if (!tenantShares.acquire(this, maxConnectionsPerTenant, CONCURRENCY_QUEUE_TIMEOUT)) {
+				throw new TemporarilyUnavailableException("Too many concurrent requests of the tenant, its share of the shared connection pool reached");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for execution of the request");
+		}
+		boolean released = false;
+		try {
+			HttpResponse response = executeLimited(request);
+			ReleasingEntity.releaseWhenConsumed(response, new Runnable() {
+				@Override
+				public void run() {
+					tenantShares.release(AbstractMqmRestClient.this);
+				}
+			});
+			released = true;
+			return response;
+		} finally {
+			if (!released) {
+				tenantShares.release(this);
+			}
+		}
+	}
+
+	/**
+	 * @return number of requests of the client holding (or waiting in the pool for) connections of its share
+	 */
+	int getConnectionsInFlight() {
+		return transport.getTenantShares().getInFlight(this);
+	}
+
+	private HttpResponse executeLimited(HttpUriRequest request) throws IOException {
+		EndpointFamily family = EndpointFamily.of(request.getURI());
+		if (concurrencyLimiter == null) {
+			return execute(request, family, transport.getHttpClient(), false);
+		}
+		try {
+			if (!concurrencyLimiter.acquire(family.getPriority())) {
+				throw new TemporarilyUnavailableException("Too many concurrent requests, limit " + concurrencyLimiter.getLimit() + " reached");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for execution of the request");
+		}
+		final long start = System.nanoTime();
+		boolean released = false;
+		try {
+			HttpResponse response = execute(request, family, transport.getHttpClient(), false);
+			int statusCode = response.getStatusLine().getStatusCode();
+			final boolean useLatency = !family.isBulkTransfer();
+			final boolean overload = statusCode == HttpStatus.SC_SERVICE_UNAVAILABLE || statusCode == 429;
+			// permit is held (and latency sampled) until the body is consumed and the connection returns to the pool
+			ReleasingEntity.releaseWhenConsumed(response, new Runnable() {
+				@Override
+				public void run() {
+					concurrencyLimiter.release(System.nanoTime() - start, useLatency, overload);
+				}
+			});
+			released = true;
+			return response;
+		} catch (SocketTimeoutException | ConnectTimeoutException e) {
+			concurrencyLimiter.release(System.nanoTime() - start, false, true);
+			released = true;
+			throw e;
+		} finally {
+			if (!released) {
+				concurrencyLimiter.cancel();
+			}
+		}
+	}
+
+	private HttpResponse execute(HttpUriRequest request, EndpointFamily family, CloseableHttpClient httpClient, boolean longPoll) throws IOException {
+		CircuitBreaker circuitBreaker = circuitBreakers.get(family);
+		if (!circuitBreaker.tryAcquire()) {
+			throw new TemporarilyUnavailableException("Requests to '" + family.getName() + "' endpoints are suspended after repeated failures of the server");
+		}
+		boolean recorded = false;
+		try {
+			HttpResponse response = executeWithLogin(request, httpClient);
+			recorded = true;
+			if (isServerFailure(response.getStatusLine().getStatusCode())) {
+				circuitBreaker.onFailure();
+			} else {
+				circuitBreaker.onSuccess();
+			}
+			return response;
+		} catch (IOException e) {
+			if (!isClientSideFailure(e, longPoll)) {
+				recorded = true;
+				circuitBreaker.onFailure();
+			}
+			throw e;
+		} catch (LoginErrorException e) {
+			recorded = true;
+			circuitBreaker.onFailure();
+			throw e;
+		} finally {
+			if (!recorded) {
+				circuitBreaker.onIgnored();
+			}
+		}
+	}
+
+	/**
+	 * Failures which say nothing about the server health: no pooled connection available in time and read timeout
+	 * of the long poll (server had no data to send).
+	 */
+	static boolean isClientSideFailure(IOException e, boolean longPoll) {
+		return e instanceof ConnectionPoolTimeoutException || (longPoll && e instanceof SocketTimeoutException);
+	}
+
+	private static boolean isServerFailure(int statusCode) {
+		return statusCode >= HttpStatus.SC_INTERNAL_SERVER_ERROR;
+	}
+
+	private HttpResponse executeWithLogin(HttpUriRequest request, CloseableHttpClient httpClient) throws IOException {
+		AuthContext auth = authContext;
+		if (auth == null) {
+			auth = renewAuthContext(null);
+		}
+		configureExpectContinue(request);
+		HttpResponse response = httpClient.execute(request, auth.createHttpContext());
 		if (response.getStatusLine().getStatusCode() == 401) {
 			HttpClientUtils.closeQuietly(response);
-			login();
-			localCookies.clear();
-			localCookies.addCookie(LWSSO_TOKEN);
-			localContext.setAttribute(HttpClientContext.COOKIE_STORE, localCookies);
-			addRequestHeaders(request);
-			response = httpClient.execute(request, localContext);
+			RequestTrace.current().setRelogin();
+			auth = renewAuthContext(auth);
+			response = httpClient.execute(request, auth.createHttpContext());
 		}
 		return response;
 	}
 
+	/**
+	 * Logs in unless another thread has already replaced the expired session, so that concurrent requests rejected
+	 * within the same session cause single login.
+	 *
+	 * @param expired session rejected by the server, null if there is no session yet
+	 * @return current session
+	 */
+	private synchronized AuthContext renewAuthContext(AuthContext expired) {
+		AuthContext current = authContext;
+		if (current == null || current == expired) {
+			if (expired != null) {
+				logger.fine("Session " + expired.getGeneration() + " expired, logging in again");
+			}
+			login(expired != null);
+			current = authContext;
+		}
+		return current;
+	}
+
+	/**
+	 * Enables 'Expect: 100-continue' handshake for requests with large body. Server then rejects the request
+	 * (e.g. 401 on expired session or 503) before the body is sent, so large body is not transferred twice.
+	 */
+	private void configureExpectContinue(HttpUriRequest request) {
+		if (expectContinueThreshold < 0 || !(request instanceof HttpEntityEnclosingRequest) || !(request instanceof HttpRequestBase)) {
+			return;
+		}
+		HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+		if (entity == null) {
+			return;
+		}
+		long length = entity.getContentLength();
+		if (length >= 0 && length <= expectContinueThreshold) {
+			return;
+		}
+		HttpRequestBase requestBase = (HttpRequestBase) request;
+		RequestConfig config = requestBase.getConfig() != null ? requestBase.getConfig() : transport.getRequestConfig();
+		if (!config.isExpectContinueEnabled()) {
+			requestBase.setConfig(RequestConfig.copy(config).setExpectContinueEnabled(true).build());
+		}
+	}
+
 	<E> PagedList<E> getEntities(URI uri, int offset, EntityFactory<E> factory) {
 		HttpGet request = new HttpGet(uri);
 		HttpResponse response = null;
@@ -435,14 +931,16 @@ public abstract class AbstractMqmRestClient implements BaseMqmRestClient {
 		}
 	}
 
-	private <E> PagedList<E> convertResponceToPagedList(EntityFactory<E> factory, int offset, HttpResponse response) throws IOException {
+	<E> PagedList<E> convertResponceToPagedList(EntityFactory<E> factory, int offset, HttpResponse response) throws IOException {
 		String entitiesJson = IOUtils.toString(response.getEntity().getContent(), "UTF-8");
+		long start = System.nanoTime();
 		JSONObject entities = JSONObject.fromObject(entitiesJson);
 
 		LinkedList<E> items = new LinkedList<>();
 		for (JSONObject entityObject : getJSONObjectCollection(entities, "data")) {
 			items.add(factory.create(entityObject.toString()));
 		}
+		metricsListener.onJsonParsing(getEndpoint(response), entitiesJson.length(), System.nanoTime() - start);
 		return new PagedList<>(items, offset, entities.getInt("total_count"));
 	}
 
@@ -510,7 +1008,7 @@ public abstract class AbstractMqmRestClient implements BaseMqmRestClient {
 		String errorCode = null;
 		JSONObject jsonObject = null;
 		try {
-			String json = IOUtils.toString(response.getEntity().getContent(), "UTF-8");
+			String json = IOUtils.toString(new BoundedInputStream(response.getEntity().getContent(), MAX_ERROR_BODY_SIZE), "UTF-8");
 			jsonObject = JSONObject.fromObject(json);
 			if (jsonObject.has("error_code") && jsonObject.has("description")) {
 				// exception response
@@ -523,32 +1021,19 @@ public abstract class AbstractMqmRestClient implements BaseMqmRestClient {
 			logger.log(Level.SEVERE, "Unable to determine failure message: ", e);
 		}
 
-		ServerException cause = null;
-		if (!StringUtils.isEmpty(stackTrace)) {
-			try {
-				Throwable parsedException = ExceptionStackTraceParser.parseException(stackTrace);
-				cause = new ServerException("Exception thrown on server, see cause", parsedException);
-			} catch (RuntimeException e) {
-				// the parser is best-effort code, don't fail if anything goes wrong
-				logger.log(Level.SEVERE, "Unable to parse server stacktrace: ", e);
-			}
-		}
+		// server stack trace is parsed lazily, only if the cause of the exception is requested
 		int statusCode = response.getStatusLine().getStatusCode();
 		String reason = response.getStatusLine().getReasonPhrase();
 		if (!StringUtils.isEmpty(errorCode)) {
-			return new RequestErrorException(message + "; error code: " + errorCode + "; description: " + description,
-					description, errorCode, statusCode, reason, cause, jsonObject);
+			return RequestErrorException.withServerStackTrace(message + "; error code: " + errorCode + "; description: " + description,
+					description, errorCode, statusCode, reason, stackTrace, jsonObject);
 		} else {
-			return new RequestErrorException(message + "; status code " + statusCode + "; reason " + reason,
-					description, errorCode, statusCode, reason, cause, jsonObject);
+			return RequestErrorException.withServerStackTrace(message + "; status code " + statusCode + "; reason " + reason,
+					description, errorCode, statusCode, reason, stackTrace, jsonObject);
 		}
 	}
 
-	private void addRequestHeaders(HttpUriRequest request) {
-		request.setHeader(HEADER_CLIENT_TYPE, clientType);
-	}
-
-	private void checkNotEmpty(String msg, String value) {
+	private static void checkNotEmpty(String msg, String value) {
 		if (value == null || value.isEmpty()) {
 			throw new IllegalArgumentException(msg);
 		}
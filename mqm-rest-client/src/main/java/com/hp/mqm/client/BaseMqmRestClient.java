@@ -16,6 +16,10 @@
 package com.hp.mqm.client;
 
 import com.hp.mqm.client.exception.SharedSpaceNotExistException;
+import com.hp.mqm.client.metrics.MetricsListener;
+import com.hp.mqm.client.model.CircuitBreakerStatus;
+
+import java.util.Map;
 
 public interface BaseMqmRestClient {
 
@@ -34,4 +38,25 @@ public interface BaseMqmRestClient {
 	void validateConfiguration();
 
 	void validateConfigurationWithoutLogin();
+
+	/**
+	 * Requests are guarded by circuit breakers, one per endpoint family (test-results, events, logs, entities, tasks...).
+	 * When the server fails repeatedly (5xx responses, IO errors), the breaker opens and requests of the family fail fast
+	 * with {@link com.hp.mqm.client.exception.TemporarilyUnavailableException} until trial requests succeed again.
+	 *
+	 * @return current status of the circuit breakers by the endpoint family name
+	 */
+	Map<String, CircuitBreakerStatus> getCircuitBreakerStatus();
+
+	/**
+	 * @return listener receiving the metrics of the requests ({@link com.hp.mqm.client.metrics.InMemoryMetrics} unless
+	 * other listener is configured in {@link MqmConnectionConfig})
+	 */
+	MetricsListener getMetricsListener();
+
+	/**
+	 * Releases the connections of the client, clients acquired from {@link MqmRestClientRegistry} are closed by the registry.
+	 * Client can't be used after it is closed.
+	 */
+	void close();
 }
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client;
+
+import com.hp.mqm.client.exception.RequestErrorException;
+import com.hp.mqm.client.internal.ParallelExecutor;
+import com.hp.mqm.client.model.BulkWriteResult;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Creates or updates large number of entities of one collection.
+ *
+ * Entities are consumed one by one and grouped into chunks ({"data":[...]} payloads) limited by the number of entities
+ * and by the payload size. Chunks are sent concurrently with bounded parallelism; at most 'parallelism' chunks are
+ * held in memory, so the input may be produced lazily. Failure of one chunk doesn't stop the others, it is reported
+ * in the result.
+ */
+public class BulkEntityWriter {
+
+    private static final int DEFAULT_MAX_CHUNK_ENTITIES = 500;
+    private static final int DEFAULT_MAX_CHUNK_BYTES = 1024 * 1024;
+    private static final int DEFAULT_PARALLELISM = 4;
+
+    private final MqmRestClient client;
+    private final long workspaceId;
+    private final String entityCollectionName;
+
+    private int maxChunkEntities = DEFAULT_MAX_CHUNK_ENTITIES;
+    private int maxChunkBytes = DEFAULT_MAX_CHUNK_BYTES;
+    private int parallelism = DEFAULT_PARALLELISM;
+
+    /**
+     * @param client               client used to send the chunks
+     * @param workspaceId          workspace ID
+     * @param entityCollectionName name of the entity collection (e.g. tests, runs)
+     */
+    public BulkEntityWriter(MqmRestClient client, long workspaceId, String entityCollectionName) {
+        if (client == null) {
+            throw new IllegalArgumentException("Client cannot be null.");
+        }
+        this.client = client;
+        this.workspaceId = workspaceId;
+        this.entityCollectionName = entityCollectionName;
+    }
+
+    /**
+     * @param maxChunkEntities maximum number of entities sent in one request
+     */
+    public void setMaxChunkEntities(int maxChunkEntities) {
+        if (maxChunkEntities <= 0) {
+            throw new IllegalArgumentException("Maximum number of entities in chunk must be positive.");
+        }
+        this.maxChunkEntities = maxChunkEntities;
+    }
+
+    /**
+     * @param maxChunkBytes maximum size of the request body in bytes, entity larger than the limit is sent alone
+     */
+    public void setMaxChunkBytes(int maxChunkBytes) {
+        if (maxChunkBytes <= 0) {
+            throw new IllegalArgumentException("Maximum chunk size must be positive.");
+        }
+        this.maxChunkBytes = maxChunkBytes;
+    }
+
+    /**
+     * @param parallelism maximum number of requests sent at the same time
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive.");
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Creates the entities through {@link MqmRestClient#postEntities}.
+     *
+     * @param entities entities to create
+     * @return IDs of the created entities and errors of the failed chunks
+     */
+    public BulkWriteResult create(Iterable<JSONObject> entities) {
+        return write(entities.iterator(), false);
+    }
+
+    /**
+     * Updates the entities through {@link MqmRestClient#updateEntities}. Each entity must contain its ID.
+     *
+     * @param entities entities to update
+     * @return IDs of the updated entities and errors of the failed chunks
+     */
+    public BulkWriteResult update(Iterable<JSONObject> entities) {
+        return write(entities.iterator(), true);
+    }
+
+    private BulkWriteResult write(Iterator<JSONObject> entities, boolean update) {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, new ParallelExecutor.DaemonThreadFactory("bulk-entity-writer"));
+        Semaphore inFlight = new Semaphore(parallelism);
+        List<Future<List<Long>>> futures = new LinkedList<>();
+        List<int[]> chunkBounds = new LinkedList<>();
+        int entityCount = 0;
+        try {
+            StringBuilder payload = new StringBuilder();
+            int chunkSize = 0;
+            int chunkBytes = 0;
+            while (entities.hasNext()) {
+                String entity = entities.next().toString();
+                int entityBytes = utf8Length(entity) + 1;
+                if (chunkSize > 0 && (chunkSize >= maxChunkEntities || chunkBytes + entityBytes > maxChunkBytes)) {
+                    futures.add(submit(executor, inFlight, payload.append("]}").toString(), update));
+                    chunkBounds.add(new int[]{entityCount - chunkSize, chunkSize});
+                    payload.setLength(0);
+                    chunkSize = 0;
+                    chunkBytes = 0;
+                }
+                payload.append(chunkSize == 0 ? "{\"data\":[" : ",").append(entity);
+                chunkSize++;
+                chunkBytes += entityBytes;
+                entityCount++;
+            }
+            if (chunkSize > 0) {
+                futures.add(submit(executor, inFlight, payload.append("]}").toString(), update));
+                chunkBounds.add(new int[]{entityCount - chunkSize, chunkSize});
+            }
+            return collectResult(futures, chunkBounds, entityCount);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Future<List<Long>> submit(ExecutorService executor, final Semaphore inFlight, final String payload, final boolean update) {
+        try {
+            // bounds the number of payloads held in memory
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RequestErrorException("Interrupted while writing " + entityCollectionName, e);
+        }
+        return executor.submit(new Callable<List<Long>>() {
+            @Override
+            public List<Long> call() {
+                try {
+                    JSONObject response = update ?
+                            client.updateEntities(workspaceId, entityCollectionName, payload) :
+                            client.postEntities(workspaceId, entityCollectionName, payload);
+                    return getIds(response);
+                } finally {
+                    inFlight.release();
+                }
+            }
+        });
+    }
+
+    private BulkWriteResult collectResult(List<Future<List<Long>>> futures, List<int[]> chunkBounds, int entityCount) {
+        List<Long> ids = new ArrayList<>(entityCount);
+        List<BulkWriteResult.ChunkError> errors = new LinkedList<>();
+        Iterator<int[]> bounds = chunkBounds.iterator();
+        for (Future<List<Long>> future : futures) {
+            int[] chunk = bounds.next();
+            try {
+                ids.addAll(future.get());
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                RuntimeException exception = cause instanceof RuntimeException ? (RuntimeException) cause :
+                        new RequestErrorException("Write of " + entityCollectionName + " failed", cause);
+                errors.add(new BulkWriteResult.ChunkError(chunk[0], chunk[1], exception));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RequestErrorException("Interrupted while writing " + entityCollectionName, e);
+            }
+        }
+        return new BulkWriteResult(ids, errors, entityCount);
+    }
+
+    private static List<Long> getIds(JSONObject response) {
+        List<Long> ids = new LinkedList<>();
+        JSONArray data = response.optJSONArray("data");
+        if (data != null) {
+            for (int i = 0; i < data.size(); i++) {
+                ids.add(data.getJSONObject(i).getLong("id"));
+            }
+        }
+        return ids;
+    }
+
+    private static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client;
+
+import com.hp.mqm.client.model.Entity;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+/**
+ * In-memory copy of one entity collection of a workspace.
+ *
+ * Mirror loads the whole collection once and then keeps it up to date by loading only entities modified since
+ * the last sync (by 'last_modified' field). Reads are served from the memory; when the copy is older than
+ * the maximum staleness, the reading thread syncs it first (other threads keep reading the current copy meanwhile).
+ * Deleted entities are not visible to the delta sync, the collection is therefore fully reloaded periodically.
+ */
+public class EntityMirror {
+    private static final Logger logger = Logger.getLogger(EntityMirror.class.getName());
+
+    static final String LAST_MODIFIED_FIELD = "last_modified";
+
+    private final MqmRestClient client;
+    private final long workspaceId;
+    private final String collectionName;
+    private final Collection<String> fields;
+    private final long maxStalenessNanos;
+    private final long fullReloadPeriodNanos;
+
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private volatile Map<Long, Entity> entities;
+    private volatile long lastSync;
+    private long lastFullLoad;
+    private String watermark;
+    private boolean missingWatermarkLogged;
+
+    /**
+     * @param client           client used to load the entities
+     * @param workspaceId      workspace ID
+     * @param collectionName   name of the entity collection (e.g. tests, runs)
+     * @param fields           fields to load, null for the default fields of the collection (delta sync needs
+     *                         'last_modified' among them, otherwise the collection is fully reloaded on every sync)
+     * @param maxStaleness     maximum age (in milliseconds) of the data served
+     * @param fullReloadPeriod period (in milliseconds) of the full reload which removes deleted entities
+     */
+    public EntityMirror(MqmRestClient client, long workspaceId, String collectionName, Collection<String> fields, long maxStaleness, long fullReloadPeriod) {
+        if (client == null) {
+            throw new IllegalArgumentException("Client cannot be null.");
+        }
+        this.client = client;
+        this.workspaceId = workspaceId;
+        this.collectionName = collectionName;
+        this.fields = getMirrorFields(fields);
+        this.maxStalenessNanos = TimeUnit.MILLISECONDS.toNanos(maxStaleness);
+        this.fullReloadPeriodNanos = TimeUnit.MILLISECONDS.toNanos(fullReloadPeriod);
+    }
+
+    /**
+     * @param id entity ID
+     * @return entity of given ID or null if there is no such entity
+     */
+    public Entity get(long id) {
+        return getEntities().get(id);
+    }
+
+    /**
+     * @return all entities of the collection
+     */
+    public List<Entity> getAll() {
+        return new ArrayList<>(getEntities().values());
+    }
+
+    /**
+     * @param fieldName name of the field
+     * @param value     value of the field
+     * @return entities with given string value of the field
+     */
+    public List<Entity> find(String fieldName, String value) {
+        List<Entity> result = new ArrayList<>();
+        for (Entity entity : getEntities().values()) {
+            if (entity.containsField(fieldName) && value.equals(entity.getStringValue(fieldName))) {
+                result.add(entity);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return number of entities in the mirror
+     */
+    public int size() {
+        return getEntities().size();
+    }
+
+    /**
+     * Syncs the mirror with the server immediately.
+     */
+    public void sync() {
+        syncLock.lock();
+        try {
+            doSync(true);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Drops the data, next read loads the collection again.
+     */
+    public void invalidate() {
+        syncLock.lock();
+        try {
+            entities = null;
+            watermark = null;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    public long getWorkspaceId() {
+        return workspaceId;
+    }
+
+    public String getCollectionName() {
+        return collectionName;
+    }
+
+    /**
+     * @return fields loaded by the mirror of given fields (ID and modification time are always needed)
+     */
+    static Collection<String> getMirrorFields(Collection<String> fields) {
+        if (fields == null) {
+            return null;
+        }
+        Set<String> mirrorFields = new LinkedHashSet<>(fields);
+        mirrorFields.add(Entity.ID_FIELD);
+        mirrorFields.add(LAST_MODIFIED_FIELD);
+        return mirrorFields;
+    }
+
+    Collection<String> getFields() {
+        return fields;
+    }
+
+    /**
+     * Fills the mirror with previously stored data (e.g. local snapshot). Data is served right away,
+     * call {@link #sync()} to revalidate it against the server.
+     *
+     * @param restored  entities
+     * @param watermark last modification time of the newest entity
+     */
+    void restore(Collection<Entity> restored, String watermark) {
+        syncLock.lock();
+        try {
+            Map<Long, Entity> restoredEntities = new ConcurrentHashMap<>(Math.max(16, restored.size() * 2));
+            for (Entity entity : restored) {
+                restoredEntities.put(entity.getId(), entity);
+            }
+            long now = System.nanoTime();
+            this.watermark = watermark;
+            entities = restoredEntities;
+            lastSync = now;
+            lastFullLoad = now;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Passes consistent state of the mirror to the visitor, state doesn't change during the visit.
+     */
+    void visit(Visitor visitor) {
+        syncLock.lock();
+        try {
+            Map<Long, Entity> current = entities;
+            if (current != null) {
+                visitor.visit(current.values(), watermark);
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    interface Visitor {
+
+        void visit(Collection<Entity> entities, String watermark);
+    }
+
+    private Map<Long, Entity> getEntities() {
+        Map<Long, Entity> current = entities;
+        if (current == null) {
+            syncLock.lock();
+            try {
+                doSync(false);
+            } finally {
+                syncLock.unlock();
+            }
+        } else if (System.nanoTime() - lastSync > maxStalenessNanos && syncLock.tryLock()) {
+            // only one thread syncs, the others are served the current data
+            try {
+                doSync(false);
+            } finally {
+                syncLock.unlock();
+            }
+        }
+        current = entities;
+        return current != null ? current : Collections.<Long, Entity>emptyMap();
+    }
+
+    private void doSync(boolean force) {
+        long now = System.nanoTime();
+        if (entities == null || watermark == null || now - lastFullLoad > fullReloadPeriodNanos) {
+            loadAll(now);
+        } else if (force || now - lastSync > maxStalenessNanos) {
+            loadModified(now);
+        }
+    }
+
+    private void loadAll(long now) {
+        List<Entity> loaded = client.getEntities(workspaceId, collectionName, null, fields);
+        Map<Long, Entity> reloaded = new ConcurrentHashMap<>(Math.max(16, loaded.size() * 2));
+        String newWatermark = null;
+        for (Entity entity : loaded) {
+            reloaded.put(entity.getId(), entity);
+            newWatermark = newer(newWatermark, entity);
+        }
+        if (newWatermark == null && !reloaded.isEmpty() && !missingWatermarkLogged) {
+            logger.warning("Entities of " + collectionName + " in workspace " + workspaceId + " have no " + LAST_MODIFIED_FIELD
+                    + " field, mirror reloads the whole collection on every sync; list the fields of the mirror explicitly");
+            missingWatermarkLogged = true;
+        }
+        entities = reloaded;
+        watermark = newWatermark;
+        lastFullLoad = now;
+        lastSync = now;
+        logger.fine("Mirror of " + collectionName + " in workspace " + workspaceId + " loaded, " + reloaded.size() + " entities");
+    }
+
+    private void loadModified(long now) {
+        // entities modified in the same second as the watermark are loaded again, update is idempotent
+        List<Entity> modified = client.getEntities(workspaceId, collectionName,
+                Collections.singletonList(LAST_MODIFIED_FIELD + ">=^" + watermark + "^"), fields);
+        String newWatermark = watermark;
+        for (Entity entity : modified) {
+            entities.put(entity.getId(), entity);
+            newWatermark = newer(newWatermark, entity);
+        }
+        watermark = newWatermark;
+        lastSync = now;
+    }
+
+    private static String newer(String watermark, Entity entity) {
+        if (!entity.containsField(LAST_MODIFIED_FIELD)) {
+            return watermark;
+        }
+        String lastModified = entity.getStringValue(LAST_MODIFIED_FIELD);
+        // ISO-8601 times in the same zone are ordered as strings
+        return watermark == null || lastModified.compareTo(watermark) > 0 ? lastModified : watermark;
+    }
+}
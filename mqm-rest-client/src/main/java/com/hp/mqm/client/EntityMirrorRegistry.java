@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Holds {@link EntityMirror}s of the client, one per workspace, entity collection and set of fields.
+ */
+public class EntityMirrorRegistry {
+
+    private static final long DEFAULT_MAX_STALENESS = 60 * 1000;             // in milliseconds
+    private static final long DEFAULT_FULL_RELOAD_PERIOD = 30 * 60 * 1000;   // in milliseconds
+
+    private final MqmRestClient client;
+    private final long maxStaleness;
+    private final long fullReloadPeriod;
+    private final ConcurrentMap<String, EntityMirror> mirrors = new ConcurrentHashMap<>();
+
+    public EntityMirrorRegistry(MqmRestClient client) {
+        this(client, DEFAULT_MAX_STALENESS, DEFAULT_FULL_RELOAD_PERIOD);
+    }
+
+    /**
+     * @param client           client used to load the entities
+     * @param maxStaleness     maximum age (in milliseconds) of the data served by the mirrors
+     * @param fullReloadPeriod period (in milliseconds) of the full reload which removes deleted entities
+     */
+    public EntityMirrorRegistry(MqmRestClient client, long maxStaleness, long fullReloadPeriod) {
+        this.client = client;
+        this.maxStaleness = maxStaleness;
+        this.fullReloadPeriod = fullReloadPeriod;
+    }
+
+    /**
+     * @param workspaceId    workspace ID
+     * @param collectionName name of the entity collection
+     * @return mirror of the collection with default fields
+     */
+    public EntityMirror getMirror(long workspaceId, String collectionName) {
+        return getMirror(workspaceId, collectionName, null);
+    }
+
+    /**
+     * Returns mirror of the collection, it is created on the first request (data are loaded on the first read).
+     *
+     * @param workspaceId    workspace ID
+     * @param collectionName name of the entity collection
+     * @param fields         fields to load, null for the default fields of the collection
+     * @return mirror of the collection
+     */
+    public EntityMirror getMirror(long workspaceId, String collectionName, Collection<String> fields) {
+        String key = createKey(workspaceId, collectionName, EntityMirror.getMirrorFields(fields));
+        EntityMirror mirror = mirrors.get(key);
+        if (mirror == null) {
+            EntityMirror created = new EntityMirror(client, workspaceId, collectionName, fields, maxStaleness, fullReloadPeriod);
+            mirror = mirrors.putIfAbsent(key, created);
+            if (mirror == null) {
+                mirror = created;
+            }
+        }
+        return mirror;
+    }
+
+    /**
+     * @return all mirrors created so far
+     */
+    public Collection<EntityMirror> getMirrors() {
+        return Collections.unmodifiableCollection(mirrors.values());
+    }
+
+    /**
+     * Drops mirrors of the workspace (e.g. when the workspace is removed from the configuration).
+     *
+     * @param workspaceId workspace ID
+     */
+    public void remove(long workspaceId) {
+        for (EntityMirror mirror : mirrors.values()) {
+            if (mirror.getWorkspaceId() == workspaceId) {
+                mirrors.values().remove(mirror);
+            }
+        }
+    }
+
+    private static String createKey(long workspaceId, String collectionName, Collection<String> fields) {
+        String key = workspaceId + "/" + collectionName;
+        if (fields != null) {
+            List<String> sortedFields = new ArrayList<>(fields);
+            Collections.sort(sortedFields);
+            key += "?" + StringUtils.join(sortedFields, ",");
+        }
+        return key;
+    }
+}
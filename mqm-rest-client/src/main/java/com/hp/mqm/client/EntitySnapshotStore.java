@@ -0,0 +1,314 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client;
+
+import com.hp.mqm.client.model.Entity;
+import net.sf.json.JSONObject;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Stores {@link EntityMirror}s on the local disk, so that after restart they are served right away instead of being
+ * loaded from the server again.
+ *
+ * Each mirror is stored in own file: header (format version, workspace, collection, fields, watermark) followed by
+ * the entities as length-prefixed UTF-8 JSON. File is written to a temporary file first and then renamed, so that
+ * crash during save doesn't leave corrupted snapshot. Restored mirrors are revalidated against the server
+ * in the background (delta sync from the stored watermark).
+ */
+public class EntitySnapshotStore {
+    private static final Logger logger = Logger.getLogger(EntitySnapshotStore.class.getName());
+
+    private static final int MAGIC = 0x4d514d53;    // MQMS
+    private static final short VERSION = 1;
+    private static final String SUFFIX = ".snapshot";
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final File directory;
+    private boolean memoryMapped;
+
+    /**
+     * @param directory directory of the snapshot files, created if it doesn't exist
+     */
+    public EntitySnapshotStore(File directory) {
+        if (directory == null) {
+            throw new IllegalArgumentException("Directory cannot be null.");
+        }
+        this.directory = directory;
+    }
+
+    /**
+     * @param memoryMapped true to read the snapshots through memory-mapped files (faster for large snapshots,
+     *                     but on some platforms mapped file cannot be replaced until the mapping is garbage collected)
+     */
+    public void setMemoryMapped(boolean memoryMapped) {
+        this.memoryMapped = memoryMapped;
+    }
+
+    /**
+     * Saves all loaded mirrors of the registry.
+     *
+     * @param registry registry of the mirrors
+     * @return number of mirrors saved
+     */
+    public int saveAll(EntityMirrorRegistry registry) {
+        int saved = 0;
+        for (EntityMirror mirror : registry.getMirrors()) {
+            try {
+                if (save(mirror)) {
+                    saved++;
+                }
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Failed to save snapshot of " + mirror.getCollectionName() + " in workspace " + mirror.getWorkspaceId(), e);
+            }
+        }
+        return saved;
+    }
+
+    /**
+     * Saves the mirror.
+     *
+     * @param mirror mirror to save
+     * @return false if the mirror has no data loaded yet
+     * @throws IOException when the snapshot cannot be written
+     */
+    public boolean save(final EntityMirror mirror) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create directory " + directory);
+        }
+        final File target = getFile(mirror.getWorkspaceId(), mirror.getCollectionName(), mirror.getFields());
+        final File temp = new File(directory, target.getName() + ".tmp");
+        final IOException[] failure = new IOException[1];
+        final boolean[] written = new boolean[1];
+        mirror.visit(new EntityMirror.Visitor() {
+            @Override
+            public void visit(Collection<Entity> entities, String watermark) {
+                try {
+                    write(temp, mirror, entities, watermark);
+                    written[0] = true;
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            }
+        });
+        if (failure[0] != null) {
+            temp.delete();
+            throw failure[0];
+        }
+        if (written[0]) {
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        return written[0];
+    }
+
+    /**
+     * Restores all stored snapshots into mirrors of the registry and revalidates them in the background.
+     *
+     * @param registry  registry the mirrors are restored to
+     * @param executor  executor of the revalidation, null to skip it (mirrors are then revalidated when their data gets stale)
+     * @return restored mirrors
+     */
+    public List<EntityMirror> restoreAll(EntityMirrorRegistry registry, Executor executor) {
+        List<EntityMirror> restored = new LinkedList<>();
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return restored;
+        }
+        for (File file : files) {
+            if (!file.getName().endsWith(SUFFIX)) {
+                continue;
+            }
+            try {
+                final EntityMirror mirror = read(file, registry);
+                restored.add(mirror);
+                if (executor != null) {
+                    executor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                mirror.sync();
+                            } catch (RuntimeException e) {
+                                logger.log(Level.WARNING, "Failed to revalidate " + mirror.getCollectionName() + " in workspace " + mirror.getWorkspaceId(), e);
+                            }
+                        }
+                    });
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.log(Level.WARNING, "Ignoring unreadable snapshot " + file, e);
+            }
+        }
+        return restored;
+    }
+
+    private void write(File file, EntityMirror mirror, Collection<Entity> entities, String watermark) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeLong(mirror.getWorkspaceId());
+            out.writeUTF(mirror.getCollectionName());
+            Collection<String> fields = mirror.getFields();
+            out.writeInt(fields != null ? fields.size() : -1);
+            if (fields != null) {
+                for (String field : fields) {
+                    out.writeUTF(field);
+                }
+            }
+            out.writeBoolean(watermark != null);
+            if (watermark != null) {
+                out.writeUTF(watermark);
+            }
+            out.writeInt(entities.size());
+            for (Entity entity : entities) {
+                byte[] json = entity.toJSONString().getBytes(UTF8);
+                out.writeInt(json.length);
+                out.write(json);
+            }
+        }
+    }
+
+    private EntityMirror read(File file, EntityMirrorRegistry registry) throws IOException {
+        if (memoryMapped) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                return read(new ByteBufferInput(buffer), registry, file);
+            }
+        } else {
+            try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+                // whole file is read into memory at once, reading it in small chunks is slower
+                byte[] content = new byte[(int) file.length()];
+                in.readFully(content);
+                return read(new ByteBufferInput(ByteBuffer.wrap(content)), registry, file);
+            }
+        }
+    }
+
+    private EntityMirror read(ByteBufferInput in, EntityMirrorRegistry registry, File file) throws IOException {
+        if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+            throw new IOException("Unsupported format of snapshot " + file);
+        }
+        long workspaceId = in.readLong();
+        String collectionName = in.readUTF();
+        int fieldCount = in.readInt();
+        List<String> fields = null;
+        if (fieldCount >= 0) {
+            fields = new ArrayList<>(fieldCount);
+            for (int i = 0; i < fieldCount; i++) {
+                fields.add(in.readUTF());
+            }
+        }
+        String watermark = in.readBoolean() ? in.readUTF() : null;
+        int count = in.readInt();
+        List<Entity> entities = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            entities.add(new Entity(JSONObject.fromObject(in.readString(in.readInt()))));
+        }
+        EntityMirror mirror = registry.getMirror(workspaceId, collectionName, fields);
+        mirror.restore(entities, watermark);
+        return mirror;
+    }
+
+    private File getFile(long workspaceId, String collectionName, Collection<String> fields) {
+        String fieldsHash = fields != null ? Integer.toHexString(new ArrayList<>(fields).hashCode()) : "default";
+        return new File(directory, workspaceId + "-" + collectionName.replaceAll("[^A-Za-z0-9_]", "_") + "-" + fieldsHash + SUFFIX);
+    }
+
+    /**
+     * Reads primitives from the buffer, used for both memory-mapped and in-memory content.
+     */
+    private static class ByteBufferInput {
+
+        private final ByteBuffer buffer;
+        private final DataInput utfReader;
+
+        private ByteBufferInput(ByteBuffer buffer) {
+            this.buffer = buffer;
+            this.utfReader = new DataInputStream(new ByteBufferInputStream(buffer));
+        }
+
+        private int readInt() {
+            return buffer.getInt();
+        }
+
+        private short readShort() {
+            return buffer.getShort();
+        }
+
+        private long readLong() {
+            return buffer.getLong();
+        }
+
+        private boolean readBoolean() {
+            return buffer.get() != 0;
+        }
+
+        private String readUTF() throws IOException {
+            return utfReader.readUTF();
+        }
+
+        private String readString(int length) {
+            ByteBuffer slice = buffer.slice();
+            slice.limit(length);
+            buffer.position(buffer.position() + length);
+            return UTF8.decode(slice).toString();
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int read = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, read);
+            return read;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client;
+
+import com.hp.mqm.client.exception.RequestErrorException;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Ships a log file which is still being written (log of a running build) in segments.
+ *
+ * Shipper remembers the offset of the data already sent and each invocation of {@link #shipAvailable()}
+ * sends only the data appended since. Memory used is bounded by the maximum segment size regardless of the log size.
+ * When the build is over, {@link #finish()} must be called to send the rest of the log.
+ *
+ * Target of the segments must understand their offsets, {@link MqmRestClient#postLogs} accepts only the whole log
+ * and can't be used as the sink (it is used to send the complete log after the build).
+ */
+public class IncrementalLogShipper implements Runnable {
+    private static final Logger logger = Logger.getLogger(IncrementalLogShipper.class.getName());
+
+    private static final int DEFAULT_MAX_SEGMENT_SIZE = 4 * 1024 * 1024;
+
+    private final File logFile;
+    private final LogSegmentSink sink;
+    private final int maxSegmentSize;
+
+    private byte[] buffer;
+    private long offset;
+    private boolean finished;
+    private ScheduledFuture<?> scheduledFuture;
+
+    /**
+     * @param logFile        log file of the running build
+     * @param sink           target of the segments
+     * @param maxSegmentSize maximum size of single segment in bytes
+     */
+    public IncrementalLogShipper(File logFile, LogSegmentSink sink, int maxSegmentSize) {
+        if (logFile == null) {
+            throw new IllegalArgumentException("Log file cannot be null.");
+        }
+        if (sink == null) {
+            throw new IllegalArgumentException("LogSegmentSink cannot be null.");
+        }
+        if (maxSegmentSize <= 0) {
+            throw new IllegalArgumentException("Maximum segment size must be positive.");
+        }
+        this.logFile = logFile;
+        this.sink = sink;
+        this.maxSegmentSize = maxSegmentSize;
+    }
+
+    /**
+     * Starts periodic shipping of the log.
+     *
+     * @param executor executor used for the periodic invocation
+     * @param period   period between two shipments
+     * @param unit     time unit of the period
+     * @return future of the periodic task, it is cancelled by {@link #finish()}
+     */
+    public synchronized ScheduledFuture<?> start(ScheduledExecutorService executor, long period, TimeUnit unit) {
+        if (scheduledFuture != null) {
+            throw new IllegalStateException("Shipper is already started.");
+        }
+        scheduledFuture = executor.scheduleWithFixedDelay(this, period, period, unit);
+        return scheduledFuture;
+    }
+
+    @Override
+    public void run() {
+        try {
+            shipAvailable();
+        } catch (RuntimeException e) {
+            // keep the periodic task alive, the data is sent again in the next run
+            logger.log(Level.WARNING, "Failed to ship log segment of " + logFile, e);
+        }
+    }
+
+    /**
+     * Sends all the data appended to the log since the last invocation.
+     *
+     * @return number of bytes sent
+     */
+    public synchronized long shipAvailable() {
+        if (finished) {
+            return 0;
+        }
+        return ship(false);
+    }
+
+    /**
+     * Sends the rest of the log and marks the last segment. Periodic shipping is stopped.
+     *
+     * The shipper is finished only when the sink accepts the last segment. If any segment is rejected,
+     * the data from the rejected offset is kept and {@link #finish()} can be called again to retry.
+     *
+     * @return number of bytes sent
+     */
+    public synchronized long finish() {
+        if (finished) {
+            return 0;
+        }
+        if (scheduledFuture != null) {
+            scheduledFuture.cancel(false);
+        }
+        long shipped = ship(true);
+        if (finished) {
+            buffer = null;
+        }
+        return shipped;
+    }
+
+    /**
+     * @return true if the last segment of the log was accepted by the sink
+     */
+    public synchronized boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * @return offset of the data which is not sent yet
+     */
+    public synchronized long getOffset() {
+        return offset;
+    }
+
+    private long ship(boolean last) {
+        if (!last && !logFile.exists()) {
+            // build has not written anything yet
+            return 0;
+        }
+        long shipped = 0;
+        RandomAccessFile file = null;
+        try {
+            file = new RandomAccessFile(logFile, "r");
+            long length = file.length();
+            if (length < offset) {
+                logger.warning("Log " + logFile + " was truncated, shipping it from the beginning");
+                offset = 0;
+            }
+            if (buffer == null) {
+                buffer = new byte[(int) Math.min(maxSegmentSize, Math.max(length - offset, 1))];
+            }
+            do {
+                int segmentSize = (int) Math.min(maxSegmentSize, length - offset);
+                if (segmentSize > buffer.length) {
+                    buffer = new byte[segmentSize];
+                }
+                file.seek(offset);
+                file.readFully(buffer, 0, segmentSize);
+                boolean lastSegment = last && offset + segmentSize == length;
+                if (segmentSize == 0 && !lastSegment) {
+                    break;
+                }
+                if (!sink.postSegment(new ByteArrayInputStream(buffer, 0, segmentSize), offset, segmentSize, lastSegment)) {
+                    logger.warning("Log segment of " + logFile + " at offset " + offset + " was not accepted, it will be sent again");
+                    break;
+                }
+                offset += segmentSize;
+                shipped += segmentSize;
+                if (lastSegment) {
+                    finished = true;
+                }
+            } while (offset < length);
+        } catch (IOException e) {
+            throw new RequestErrorException("Cannot read log " + logFile, e);
+        } finally {
+            if (file != null) {
+                try {
+                    file.close();
+                } catch (IOException ioe) {
+                    logger.warning("failed to close silently log file " + logFile);
+                }
+            }
+        }
+        return shipped;
+    }
+}
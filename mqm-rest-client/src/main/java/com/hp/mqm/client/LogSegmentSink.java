@@ -0,0 +1,35 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client;
+
+import java.io.InputStream;
+
+/**
+ * Target of the log segments produced by {@link IncrementalLogShipper}.
+ */
+public interface LogSegmentSink {
+
+    /**
+     * Sends one segment of the log.
+     *
+     * @param segment segment content, closed by the caller
+     * @param offset  position of the segment in the log
+     * @param length  segment size in bytes
+     * @param last    true if this is the final segment of the log
+     * @return true if the segment was accepted, false if it should be sent again later
+     */
+    boolean postSegment(InputStream segment, long offset, long length, boolean last);
+}
@@ -15,6 +15,13 @@
 
 package com.hp.mqm.client;
 
+import com.hp.mqm.client.interceptor.RequestInterceptor;
+import com.hp.mqm.client.metrics.MetricsListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 public class MqmConnectionConfig {
 
     private String location;
@@ -29,6 +36,16 @@ public class MqmConnectionConfig {
     private Integer defaultSocketTimeout;
     private Integer defaultConnectionTimeout;
     private Integer defaultConnectionRequestTimeout;
+    private Long expectContinueThreshold;
+    private Integer taskPollingTimeout;
+    private Integer circuitBreakerFailureRateThreshold;
+    private Integer circuitBreakerWindowSize;
+    private Integer circuitBreakerOpenDuration;
+    private RetryPolicy retryPolicy;
+    private Integer maxConcurrentRequests;
+    private Integer maxUrlLength;
+    private MetricsListener metricsListener;
+    private final List<RequestInterceptor> requestInterceptors = new ArrayList<>();
 
     public MqmConnectionConfig(String location, String sharedSpace, String username, String password, String clientType) {
         this.location = location;
@@ -128,6 +145,132 @@ public class MqmConnectionConfig {
         this.defaultConnectionRequestTimeout = defaultConnectionRequestTimeout;
     }
 
+    public Long getExpectContinueThreshold() {
+        return expectContinueThreshold;
+    }
+
+    /**
+     * Requests with body larger than the threshold (or of unknown length) are sent with 'Expect: 100-continue'
+     * so that authentication failure or unavailability is detected before the body is transferred.
+     *
+     * @param expectContinueThreshold body size in bytes, negative value disables the feature
+     */
+    public void setExpectContinueThreshold(Long expectContinueThreshold) {
+        this.expectContinueThreshold = expectContinueThreshold;
+    }
+
+    public Integer getTaskPollingTimeout() {
+        return taskPollingTimeout;
+    }
+
+    /**
+     * @param taskPollingTimeout socket timeout (in milliseconds) of the long-poll retrieval of abridged tasks
+     */
+    public void setTaskPollingTimeout(Integer taskPollingTimeout) {
+        this.taskPollingTimeout = taskPollingTimeout;
+    }
+
+    public Integer getCircuitBreakerFailureRateThreshold() {
+        return circuitBreakerFailureRateThreshold;
+    }
+
+    /**
+     * @param circuitBreakerFailureRateThreshold failure rate (in percents) of the endpoint family which opens its circuit breaker,
+     *                                           zero disables the circuit breakers
+     */
+    public void setCircuitBreakerFailureRateThreshold(Integer circuitBreakerFailureRateThreshold) {
+        this.circuitBreakerFailureRateThreshold = circuitBreakerFailureRateThreshold;
+    }
+
+    public Integer getCircuitBreakerWindowSize() {
+        return circuitBreakerWindowSize;
+    }
+
+    /**
+     * @param circuitBreakerWindowSize number of last requests of the endpoint family the failure rate is computed from
+     */
+    public void setCircuitBreakerWindowSize(Integer circuitBreakerWindowSize) {
+        this.circuitBreakerWindowSize = circuitBreakerWindowSize;
+    }
+
+    public Integer getCircuitBreakerOpenDuration() {
+        return circuitBreakerOpenDuration;
+    }
+
+    /**
+     * @param circuitBreakerOpenDuration time (in milliseconds) requests fail fast before trial requests are permitted
+     */
+    public void setCircuitBreakerOpenDuration(Integer circuitBreakerOpenDuration) {
+        this.circuitBreakerOpenDuration = circuitBreakerOpenDuration;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * @param retryPolicy policy of automatic retries, when not set the default {@link RetryPolicy} is used
+     */
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    public Integer getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    /**
+     * Enables adaptive limiting of concurrent requests. Client then looks for the number of concurrent requests
+     * the server handles without latency growth (up to given maximum) and queues the requests over it.
+     *
+     * @param maxConcurrentRequests maximum number of concurrent requests (and size of the connection pool),
+     *                              null disables the adaptive limit
+     */
+    public void setMaxConcurrentRequests(Integer maxConcurrentRequests) {
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    public Integer getMaxUrlLength() {
+        return maxUrlLength;
+    }
+
+    /**
+     * @param maxUrlLength maximum length of the request URL accepted by the server and proxies on the way,
+     *                     requests with long list of IDs are split to fit the limit
+     */
+    public void setMaxUrlLength(Integer maxUrlLength) {
+        this.maxUrlLength = maxUrlLength;
+    }
+
+    public MetricsListener getMetricsListener() {
+        return metricsListener;
+    }
+
+    /**
+     * @param metricsListener listener receiving the metrics of the requests, {@link com.hp.mqm.client.metrics.InMemoryMetrics}
+     *                        is used when not set
+     */
+    public void setMetricsListener(MetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
+    public List<RequestInterceptor> getRequestInterceptors() {
+        return Collections.unmodifiableList(requestInterceptors);
+    }
+
+    /**
+     * Appends interceptor to the chain invoked around the execution of the requests
+     * (see {@link com.hp.mqm.client.interceptor.CorrelationIdInterceptor} and {@link com.hp.mqm.client.interceptor.TimingInterceptor}).
+     *
+     * @param interceptor interceptor to add
+     */
+    public void addRequestInterceptor(RequestInterceptor interceptor) {
+        if (interceptor == null) {
+            throw new IllegalArgumentException("Request interceptor cannot be null.");
+        }
+        requestInterceptors.add(interceptor);
+    }
+
     public ProxyCredentials getProxyCredentials() {
         return proxyCredentials;
     }
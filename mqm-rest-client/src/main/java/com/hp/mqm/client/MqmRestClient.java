@@ -41,6 +41,8 @@ public interface MqmRestClient extends BaseMqmRestClient {
 	 * (multiple invocation of this method) to avoid HTTP request timeout.
 	 *
 	 * InputStream obtained from InputStreamSource is automatically closed after all data are read.
+	 * The source is opened once, unless its content is already gzip compressed: such content is sent as is and
+	 * the source is opened again for every attempt of the request, it must then return new stream on every call.
 	 *
 	 * @param inputStreamSource input stream source with test results in MQM XML format.
 	 * @param skipErrors        try to continue if non-fatal issue occurs
@@ -52,6 +54,7 @@ public interface MqmRestClient extends BaseMqmRestClient {
 	/**
 	 * Posts test results to MQM. Divide extra large test results into smaller files which will be posted individually
 	 * (multiple invocation of this method) to avoid HTTP request timeout.
+	 * File which is already gzip compressed is sent as is.
 	 *
 	 * @param testResultReport XML file with test reports
 	 * @param skipErrors       try to continue if non-fatal issue occurs
@@ -94,6 +97,16 @@ public interface MqmRestClient extends BaseMqmRestClient {
 	 */
 	JobConfiguration getJobConfiguration(String serverIdentity, String jobName);
 
+	/**
+	 * Retrieve configurations of many jobs at once. Requests are sent in parallel; concurrent requests for the same job
+	 * (including those of {@link #getJobConfiguration(String, String)}) share one server call.
+	 *
+	 * @param serverIdentity server identifier
+	 * @param jobNames       job names
+	 * @return job configurations by the job name and errors of the jobs whose configuration could not be retrieved
+	 */
+	BatchResult<String, JobConfiguration> getJobConfigurations(String serverIdentity, Collection<String> jobNames);
+
 	/**
 	 * Create pipeline on the MQM server.
 	 *
@@ -183,6 +196,14 @@ public interface MqmRestClient extends BaseMqmRestClient {
 	 */
 	List<Workspace> getWorkspaces(List<Long> workspaceIds);
 
+	/**
+	 * Same as {@link #getWorkspaces(List)} for IDs held in primitive array.
+	 *
+	 * @param workspaceIds IDs of the workspaces, duplicates are ignored
+	 * @return workspaces
+	 */
+	List<Workspace> getWorkspaces(long[] workspaceIds);
+
 	/**
 	 * Query taxonomies (including categories) matching given name (using contains semantics).
 	 *
@@ -206,6 +227,15 @@ public interface MqmRestClient extends BaseMqmRestClient {
 	 */
 	List<Taxonomy> getTaxonomies(List<Long> taxonomyIds, long workspaceId);
 
+	/**
+	 * Same as {@link #getTaxonomies(List, long)} for IDs held in primitive array.
+	 *
+	 * @param taxonomyIds IDs of the taxonomies, duplicates are ignored
+	 * @param workspaceId workspace ID
+	 * @return taxonomies
+	 */
+	List<Taxonomy> getTaxonomies(long[] taxonomyIds, long workspaceId);
+
 	/**
 	 * Query list for items matching given name (using contains semantics).
 	 *
@@ -241,8 +271,31 @@ public interface MqmRestClient extends BaseMqmRestClient {
 
 	List<Entity> getEntities(Long workspaceId, String entityCollectionName, Collection<String> conditions, Collection<String> fields);
 
+	/**
+	 * Deletes entities of given IDs. Long list of IDs is split into several requests so that the URL fits
+	 * the maximum length (see {@link MqmConnectionConfig#setMaxUrlLength(Integer)}), the requests are sent in parallel.
+	 *
+	 * Failure of one request does not stop the others. If some of the requests fail while others succeed,
+	 * {@link com.hp.mqm.client.exception.PartialDeleteException} is thrown, it carries the entities deleted
+	 * and the IDs of the failed requests. If all the requests fail, failure of the first one is thrown.
+	 *
+	 * @param workspaceId          workspace ID
+	 * @param entityCollectionName name of the entity collection
+	 * @param entitiesIds          IDs of the entities to delete
+	 * @return deleted entities of all the requests, null if no ID is given
+	 */
     PagedList<Entity> deleteEntities(Long workspaceId, String entityCollectionName, Collection<Long> entitiesIds);
 
+	/**
+	 * Same as {@link #deleteEntities(Long, String, Collection)} for IDs held in primitive array.
+	 *
+	 * @param workspaceId          workspace ID
+	 * @param entityCollectionName name of the entity collection
+	 * @param entitiesIds          IDs of the entities to delete, duplicates are ignored
+	 * @return deleted entities of all the requests, null if no ID is given
+	 */
+	PagedList<Entity> deleteEntities(Long workspaceId, String entityCollectionName, long[] entitiesIds);
+
     JSONObject updateEntity(Long workspaceId, String entityCollectionName, long id, String entityJson);
 
 	JSONObject updateEntities(Long workspaceId, String entityCollectionName, String entityJson);
@@ -260,6 +313,7 @@ public interface MqmRestClient extends BaseMqmRestClient {
 	/**
 	 * Sends logs to MQM [POST request].
 	 * InputStream obtained from InputStreamSource is automatically closed after all data are read.
+	 * Content which is already gzip compressed is sent as is (without the uncompressed length).
 	 * No exception is expected to be thrown.
 	 * @param workspaceId workspace ID that the pipeline should be assigned to
 	 * @param selfIdentity identity of the server
@@ -274,6 +328,8 @@ public interface MqmRestClient extends BaseMqmRestClient {
 	/**
 	 * Sends coverage reports to MQM [POST request].
 	 * InputStream obtained from InputStreamSource is automatically closed after all data are read.
+	 * The source is opened once, unless its content is already gzip compressed: such content is sent as is and
+	 * the source is opened again for every attempt of the request, it must then return new stream on every call.
 	 * No exception is expected to be thrown.
 	 * @param selfIdentity identity of the server
 	 * @param ciJobId The job name
@@ -285,10 +341,40 @@ public interface MqmRestClient extends BaseMqmRestClient {
 	 */
 	boolean postCoverageReports(String selfIdentity, String ciJobId, String ciBuildId, InputStream inputStream, Long contentLength, String reportType);
 
+	/**
+	 * Sends coverage report to MQM [POST request].
+	 * Unlike {@link #postCoverageReports(String, String, String, InputStream, Long, String)} the report is streamed
+	 * and the request can be repeated (e.g. after re-login) because the InputStream is obtained again from InputStreamSource.
+	 * InputStream obtained from InputStreamSource is automatically closed after all data are read.
+	 * The source is opened once, unless its content is already gzip compressed: such content is sent as is and
+	 * the source is opened again for every attempt of the request, it must then return new stream on every call.
+	 * @param selfIdentity identity of the server
+	 * @param ciJobId The job name
+	 * @param ciBuildId The build number.
+	 * @param inputStreamSource source of the report content
+	 * @param reportType jacoco or lcov type
+	 * @return The operation status.
+	 */
+	boolean postCoverageReports(String selfIdentity, String ciJobId, String ciBuildId, InputStreamSource inputStreamSource, String reportType);
+
+	/**
+	 * Sends several coverage reports of the same build to MQM concurrently.
+	 * Failure of one report doesn't prevent the other reports from being sent.
+	 * @param selfIdentity identity of the server
+	 * @param ciJobId The job name
+	 * @param ciBuildId The build number.
+	 * @param reports reports to send
+	 * @return status of each operation, in the order of the reports
+	 */
+	List<Boolean> postCoverageReports(String selfIdentity, String ciJobId, String ciBuildId, List<CoverageReport> reports);
+
 	/**
 	 * Retrieves tasks from service working in Abridged Connectivity Mode
 	 *
-	 * @return
+	 * The request is long-poll, it is executed through dedicated connection pool with own timeout
+	 * (see {@link MqmConnectionConfig#setTaskPollingTimeout(Integer)}). For background retrieval see {@link AbridgedTasksPoller}.
+	 *
+	 * @return tasks JSON or null when no task arrived until the long-poll timeout
 	 */
 	String getAbridgedTasks(AbridgedTaskPluginInfo info);
 
@@ -302,6 +388,18 @@ public interface MqmRestClient extends BaseMqmRestClient {
 	 */
 	int putAbridgedResult(String selfIdentity, String taskId, String contentJSON);
 
+	/**
+	 * Sends Result of the Abridged Task Invocation. Result is streamed from the source, so large results
+	 * don't need to be held in memory as single String.
+	 * InputStream obtained from InputStreamSource is automatically closed after all data are read.
+	 *
+	 * @param selfIdentity  identity of the server
+	 * @param taskId        task ID
+	 * @param contentSource source of the result JSON
+	 * @return status code
+	 */
+	int putAbridgedResult(String selfIdentity, String taskId, InputStreamSource contentSource);
+
 	/**
 	 * @return BDI configuration of the current tenant
 	 */
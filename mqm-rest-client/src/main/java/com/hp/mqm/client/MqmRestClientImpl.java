@@ -17,6 +17,10 @@ package com.hp.mqm.client;
 
 import com.hp.mqm.client.exception.*;
 import com.hp.mqm.client.exception.FileNotFoundException;
+import com.hp.mqm.client.internal.HttpTransport;
+import com.hp.mqm.client.internal.InputStreamSourceEntity;
+import com.hp.mqm.client.internal.LongHashSet;
+import com.hp.mqm.client.internal.ParallelExecutor;
 import com.hp.mqm.client.model.*;
 import net.sf.json.JSONArray;
 import net.sf.json.JSONException;
@@ -25,9 +29,9 @@ import net.sf.json.JSONObject;
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
+import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
-import org.apache.http.client.entity.GzipCompressingEntity;
 import org.apache.http.client.methods.HttpDelete;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
@@ -36,6 +40,7 @@ import org.apache.http.client.utils.HttpClientUtils;
 import org.apache.http.client.utils.URIBuilder;
 import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.entity.ContentType;
+import org.apache.http.entity.FileEntity;
 import org.apache.http.entity.InputStreamEntity;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.protocol.HTTP;
@@ -46,8 +51,15 @@ import java.net.URISyntaxException;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
 public class MqmRestClientImpl extends AbstractMqmRestClient implements MqmRestClient {
@@ -82,9 +94,17 @@ public class MqmRestClientImpl extends AbstractMqmRestClient implements MqmRestC
 	private static final int DEFAULT_OFFSET = 0;
 	private static final int DEFAULT_LIMIT = 100;
 	private static final int MAX_GET_LIMIT = 1000;
+	private static final int MAX_PARALLEL_COVERAGE_REPORTS = 4;
+	private static final int MAX_PARALLEL_DELETES = 4;
+	private static final int MAX_PARALLEL_JOB_CONFIGURATIONS = 8;
+	private static final int DEFAULT_MAX_URL_LENGTH = 2000;
+	private static final int ENCODED_ID_SEPARATOR_LENGTH = 3;  // URL encoded ','
 	private static final String CONTENT_ENCODING_GZIP = "gzip";
 	private static final String UNCOMPRESSED_CONTENT_LENGTH = "Uncompressed-Content-Length";
 
+	private final int maxUrlLength;
+	private final ConcurrentMap<String, FutureTask<JobConfiguration>> jobConfigurationRequests = new ConcurrentHashMap<>();
+
 	/**
 	 * Constructor for AbstractMqmRestClient.
 	 *
@@ -92,17 +112,40 @@ public class MqmRestClientImpl extends AbstractMqmRestClient implements MqmRestC
 	 */
 	public MqmRestClientImpl(MqmConnectionConfig connectionConfig) {
 		super(connectionConfig);
+		maxUrlLength = connectionConfig.getMaxUrlLength() != null ? connectionConfig.getMaxUrlLength() : DEFAULT_MAX_URL_LENGTH;
+	}
+
+	MqmRestClientImpl(MqmConnectionConfig connectionConfig, HttpTransport transport, int maxConnectionsPerTenant) {
+		super(connectionConfig, transport, maxConnectionsPerTenant);
+		maxUrlLength = connectionConfig.getMaxUrlLength() != null ? connectionConfig.getMaxUrlLength() : DEFAULT_MAX_URL_LENGTH;
 	}
 
 	@Override
 	public long postTestResult(InputStreamSource inputStreamSource, boolean skipErrors) {
-		return postTestResult(createGZipEntity(inputStreamSource.getInputStream()), skipErrors);
+		// the source is opened once, the stream used to detect compression is compressed then
+		InputStream inputStream = new BufferedInputStream(inputStreamSource.getInputStream());
+		boolean gzipped;
+		try {
+			gzipped = isGzipped(inputStream);
+		} catch (IOException e) {
+			gzipped = false;
+		}
+		if (gzipped) {
+			// already compressed, stream it as is (source is opened again for every attempt)
+			IOUtils.closeQuietly(inputStream);
+			return postTestResult(new InputStreamSourceEntity(inputStreamSource, ContentType.APPLICATION_XML), skipErrors);
+		}
+		return postTestResult(createGZipEntity(inputStream, URI_TEST_RESULT_PUSH), skipErrors);
 	}
 
 	@Override
 	public long postTestResult(File testResultReport, boolean skipErrors) {
+		if (isGzipped(testResultReport)) {
+			// already compressed, stream it as is
+			return postTestResult(new FileEntity(testResultReport, ContentType.APPLICATION_XML), skipErrors);
+		}
 		try {
-			return postTestResult(createGZipEntity(new FileInputStream(testResultReport)), skipErrors);
+			return postTestResult(createGZipEntity(new FileInputStream(testResultReport), URI_TEST_RESULT_PUSH), skipErrors);
 		} catch (java.io.FileNotFoundException fnfe) {
 			logger.severe("file " + testResultReport + " not found");
 			return -1;
@@ -117,13 +160,15 @@ public class MqmRestClientImpl extends AbstractMqmRestClient implements MqmRestC
 		HttpResponse response = null;
 		String jobNameForSending = jobName;
 		try {
-			response = execute(request);
+			response = execute(request, URI_BASE64SUPPORT);
 			if (response.getStatusLine().getStatusCode() == HttpStatus.SC_OK) {
 				logger.log(Level.INFO,"Octane supports base64 encoding");
 				jobNameForSending = Base64.encodeBase64String(jobName.getBytes());
 			}
 		}catch (IOException ex){
 			logger.log(Level.INFO,"Octane does not support base64 encoding");
+		} finally {
+			HttpClientUtils.closeQuietly(response);
 		}
 
 		logger.log(Level.INFO,String.format("Job name before encoding: %s, after encoding : %s",jobName,jobNameForSending));
@@ -145,7 +190,7 @@ public class MqmRestClientImpl extends AbstractMqmRestClient implements MqmRestC
 		request = new HttpGet(getUri);
 		response = null;
 		try {
-			response = execute(request);
+			response = execute(request, URI_PREFLIGHT);
 			if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
 				throw createRequestException("Result status retrieval failed", response);
 			}
@@ -162,7 +207,7 @@ public class MqmRestClientImpl extends AbstractMqmRestClient implements MqmRestC
 		HttpGet request = new HttpGet(createSharedSpaceInternalApiUri(URI_BDI_CONFIGURATION));
 		HttpResponse response = null;
 		try {
-			response = execute(request);
+			response = execute(request, URI_BDI_CONFIGURATION);
 
 			int statusCode = response.getStatusLine().getStatusCode();
 			if (statusCode == HttpStatus.SC_NO_CONTENT) {
@@ -175,7 +220,7 @@ public class MqmRestClientImpl extends AbstractMqmRestClient implements MqmRestC
 			}
 
 			String bdiConfiguration = IOUtils.toString(response.getEntity().getContent(), "UTF-8");
-			return JSONObject.fromObject(bdiConfiguration);
+			return parseJSONObject(bdiConfiguration, response);
 		} catch (IOException e) {
 			throw new RequestErrorException("Cannot obtain status.", e);
 		} finally {
@@ -188,7 +233,7 @@ public class MqmRestClientImpl extends AbstractMqmRestClient implements MqmRestC
 		HttpGet request = new HttpGet(createSharedSpaceInternalApiUri(URI_BDI_ACCESS_TOKEN));
 		HttpResponse response = null;
 		try {
-			response = execute(request);
+			response = execute(request, URI_BDI_ACCESS_TOKEN);
 			if (response.getStatusLine().getStatusCode() == HttpStatus.SC_OK) {
 				return IOUtils.toString(response.getEntity().getContent(), "UTF-8");
 			} else {
@@ -206,7 +251,7 @@ public class MqmRestClientImpl extends AbstractMqmRestClient implements MqmRestC
 		HttpGet request = new HttpGet(createSharedSpaceInternalApiUri(URI_WORKSPACE_BY_JOB_AND_SERVER, ciServerId, ciJobName));
 		HttpResponse response = null;
 		try {
-			response = execute(request);
+			response = execute(request, URI_WORKSPACE_BY_JOB_AND_SERVER);
 
 			int statusCode = response.getStatusLine().getStatusCode();
 			if (statusCode == HttpStatus.SC_NO_CONTENT) {
@@ -218,7 +263,7 @@ public class MqmRestClientImpl extends AbstractMqmRestClient implements MqmRestC
 				throw createRequestException("workspace retrieval failed", response);
 			}
 
-			JSONArray workspaces = JSONArray.fromObject(IOUtils.toString(response.getEntity().getContent(), "UTF-8"));
+			JSONArray workspaces = parseJSONArray(IOUtils.toString(response.getEntity().getContent(), "UTF-8"), response);
 			return workspaces.subList(0, workspaces.size());
 		} catch (IOException e) {
 			throw new RequestErrorException("Cannot obtain status.", e);
@@ -233,12 +278,12 @@ public class MqmRestClientImpl extends AbstractMqmRestClient implements MqmRestC
 
 		HttpResponse response = null;
 		try {
-			response = execute(request);
+			response = execute(request, URI_TEST_RESULT_STATUS);
 			if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
 				throw createRequestException("Result status retrieval failed", response);
 			}
 			String json = IOUtils.toString(response.getEntity().getContent(), "UTF-8");
-			JSONObject jsonObject = JSONObject.fromObject(json);
+			JSONObject jsonObject = parseJSONObject(json, response);
 			Date until = null;
 			if (jsonObject.has("until")) {
 				try {
@@ -260,7 +305,7 @@ public class MqmRestClientImpl extends AbstractMqmRestClient implements MqmRestC
 		HttpGet request = new HttpGet(createSharedSpaceInternalApiUri(URI_TEST_RESULT_LOG, id));
 		HttpResponse response = null;
 		try {
-			response = execute(request);
+			response = execute(request, URI_TEST_RESULT_LOG);
 			if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
 				throw createRequestException("Log retrieval failed", response);
 			}
@@ -276,17 +321,78 @@ public class MqmRestClientImpl extends AbstractMqmRestClient implements MqmRestC
 	}
 
 	@Override
-	public JobConfiguration getJobConfiguration(String serverIdentity, String jobName) {
+	public JobConfiguration getJobConfiguration(final String serverIdentity, final String jobName) {
+		// concurrent requests for the same job share one server call
+		String key = serverIdentity + "\n" + jobName;
+		FutureTask<JobConfiguration> task = new FutureTask<>(new Callable<JobConfiguration>() {
+			@Override
+			public JobConfiguration call() {
+				return retrieveJobConfiguration(serverIdentity, jobName);
+			}
+		});
+		FutureTask<JobConfiguration> inFlight = jobConfigurationRequests.putIfAbsent(key, task);
+		if (inFlight == null) {
+			try {
+				task.run();
+			} finally {
+				jobConfigurationRequests.remove(key, task);
+			}
+			inFlight = task;
+		}
+		try {
+			return inFlight.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new RequestErrorException("Cannot retrieve job configuration from MQM.", e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RequestErrorException("Interrupted while waiting for job configuration", e);
+		}
+	}
+
+	@Override
+	public BatchResult<String, JobConfiguration> getJobConfigurations(final String serverIdentity, Collection<String> jobNames) {
+		List<String> distinctJobNames = new ArrayList<>(new LinkedHashSet<>(jobNames));
+		List<Callable<JobConfiguration>> tasks = new ArrayList<>(distinctJobNames.size());
+		for (final String jobName : distinctJobNames) {
+			tasks.add(new Callable<JobConfiguration>() {
+				@Override
+				public JobConfiguration call() {
+					return getJobConfiguration(serverIdentity, jobName);
+				}
+			});
+		}
+		Map<String, JobConfiguration> results = new LinkedHashMap<>();
+		Map<String, RuntimeException> errors = new LinkedHashMap<>();
+		Iterator<String> jobNameIterator = distinctJobNames.iterator();
+		for (Future<JobConfiguration> future : ParallelExecutor.invokeAll(tasks, MAX_PARALLEL_JOB_CONFIGURATIONS, "job-configurations")) {
+			String jobName = jobNameIterator.next();
+			try {
+				results.put(jobName, future.get());
+			} catch (ExecutionException e) {
+				errors.put(jobName, e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() :
+						new RequestErrorException("Cannot retrieve job configuration from MQM.", e.getCause()));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RequestErrorException("Interrupted while retrieving job configurations", e);
+			}
+		}
+		return new BatchResult<>(results, errors);
+	}
+
+	private JobConfiguration retrieveJobConfiguration(String serverIdentity, String jobName) {
 		HttpGet request = new HttpGet(createSharedSpaceInternalApiUri(URI_JOB_CONFIGURATION, serverIdentity, jobName));
 		HttpResponse response = null;
 		try {
-			response = execute(request);
+			response = execute(request, URI_JOB_CONFIGURATION);
 			if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
 				throw createRequestException("Job configuration retrieval failed", response);
 			}
 			String json = IOUtils.toString(response.getEntity().getContent(), "UTF-8");
 			try {
-				JSONObject jsonObject = JSONObject.fromObject(json);
+				JSONObject jsonObject = parseJSONObject(json, response);
 				List<Pipeline> pipelines = new LinkedList<>();
 				for (JSONObject relatedContext : getJSONObjectCollection(jsonObject, "data")) {
 					if ("pipeline".equals(relatedContext.getString("contextEntityType"))) {
@@ -319,7 +425,7 @@ public class MqmRestClientImpl extends AbstractMqmRestClient implements MqmRestC
 		request.setEntity(new StringEntity(pipelineObject.toString(), ContentType.APPLICATION_JSON));
 		HttpResponse response = null;
 		try {
-			response = execute(request);
+			response = execute(request, URI_JOB_CONFIGURATION);
 			if (response.getStatusLine().getStatusCode() != HttpStatus.SC_CREATED) {
 				throw createRequestException("Pipeline creation failed", response);
 			}
@@ -373,7 +479,7 @@ public class MqmRestClientImpl extends AbstractMqmRestClient implements MqmRestC
 		request.setHeader(HEADER_ACCEPT, ContentType.APPLICATION_JSON.getMimeType());
 		HttpResponse response = null;
 		try {
-			response = execute(request);
+			response = execute(request, URI_JOB_CONFIGURATION);
 			if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
 				throw createRequestException("Pipeline update failed", response);
 			}
@@ -392,7 +498,7 @@ public class MqmRestClientImpl extends AbstractMqmRestClient implements MqmRestC
 
 		HttpResponse response = null;
 		try {
-			response = execute(request);
+			response = execute(request, URI_DELETE_NODES_TESTS);
 			if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
 				throw createRequestException("delete tests failed", response);
 			}
@@ -438,7 +544,7 @@ public class MqmRestClientImpl extends AbstractMqmRestClient implements MqmRestC
 		ret.put(listField.getName(), valArray);
 	}
 
-	private Taxonomy toTaxonomy(JSONObject t) {
+	Taxonomy toTaxonomy(JSONObject t) {
 		JSONObject parent = t.optJSONObject("parent");
 		String name = t.has("name") ? t.getString("name") : null;
 		if (parent != null) {
@@ -516,7 +622,7 @@ public class MqmRestClientImpl extends AbstractMqmRestClient implements MqmRestC
 		return new ListItem(id, null, name, null);
 	}
 
-	private Pipeline toPipeline(JSONObject pipelineObject) {
+	Pipeline toPipeline(JSONObject pipelineObject) {
 		List<Taxonomy> taxonomies = new LinkedList<>();
 		List<ListField> fields = new LinkedList<>();
 
@@ -590,20 +696,21 @@ public class MqmRestClientImpl extends AbstractMqmRestClient implements MqmRestC
 		if (workspaceIds == null || workspaceIds.size() == 0) {
 			return new LinkedList<>();
 		}
-		if (workspaceIds.size() > DEFAULT_LIMIT) {
+		return getWorkspaces(toArray(workspaceIds));
+	}
+
+	@Override
+	public List<Workspace> getWorkspaces(long[] workspaceIds) {
+		if (workspaceIds == null || workspaceIds.length == 0) {
+			return new LinkedList<>();
+		}
+		if (workspaceIds.length > DEFAULT_LIMIT) {
 			throw new IllegalArgumentException("List of workspaceIds is too long. Only " + DEFAULT_LIMIT + " values are allowed.");
 		}
 
-		Set<Long> workspaceIdsSet = new LinkedHashSet<>(workspaceIds);
-		StringBuilder conditionBuilder = new StringBuilder();
-		for (Long workspaceId : workspaceIdsSet) {
-			if (conditionBuilder.length() > 0) {
-				conditionBuilder.append("||");
-			}
-			conditionBuilder.append("id=").append(workspaceId);
-		}
+		String condition = QueryHelper.conditionAnyOf("id", LongHashSet.distinct(workspaceIds));
 		return getEntities(
-				getEntityURI(URI_WORKSPACES, Collections.singletonList(conditionBuilder.toString()), null, DEFAULT_OFFSET, DEFAULT_LIMIT, null),
+				getEntityURI(URI_WORKSPACES, Collections.singletonList(condition), null, DEFAULT_OFFSET, DEFAULT_LIMIT, null),
 				DEFAULT_OFFSET,
 				new WorkspaceEntityFactory()
 		).getItems();
@@ -627,20 +734,21 @@ public class MqmRestClientImpl extends AbstractMqmRestClient implements MqmRestC
 		if (taxonomyIds == null || taxonomyIds.size() == 0) {
 			return new LinkedList<>();
 		}
-		if (taxonomyIds.size() > DEFAULT_LIMIT) {
+		return getTaxonomies(toArray(taxonomyIds), workspaceId);
+	}
+
+	@Override
+	public List<Taxonomy> getTaxonomies(long[] taxonomyIds, long workspaceId) {
+		if (taxonomyIds == null || taxonomyIds.length == 0) {
+			return new LinkedList<>();
+		}
+		if (taxonomyIds.length > DEFAULT_LIMIT) {
 			throw new IllegalArgumentException("List of taxonomyIds is too long. Only " + DEFAULT_LIMIT + " values are allowed.");
 		}
 
-		Set<Long> taxonomyIdsSet = new LinkedHashSet<>(taxonomyIds);
-		StringBuilder conditionBuilder = new StringBuilder();
-		for (Long taxonomyId : taxonomyIdsSet) {
-			if (conditionBuilder.length() > 0) {
-				conditionBuilder.append("||");
-			}
-			conditionBuilder.append("id=").append(taxonomyId);
-		}
+		String condition = QueryHelper.conditionAnyOf("id", LongHashSet.distinct(taxonomyIds));
 		return getEntities(
-				getEntityURI(URI_TAXONOMY_NODES, Collections.singletonList(conditionBuilder.toString()), workspaceId, DEFAULT_OFFSET, DEFAULT_LIMIT, null),
+				getEntityURI(URI_TAXONOMY_NODES, Collections.singletonList(condition), workspaceId, DEFAULT_OFFSET, DEFAULT_LIMIT, null),
 				DEFAULT_OFFSET,
 				new TaxonomyEntityFactory()
 		).getItems();
@@ -702,13 +810,13 @@ public class MqmRestClientImpl extends AbstractMqmRestClient implements MqmRestC
 	}
 
 
-	private long postTestResult(ByteArrayEntity entity, boolean skipErrors) {
+	private long postTestResult(HttpEntity entity, boolean skipErrors) {
 		HttpPost request = new HttpPost(createSharedSpaceInternalApiUri(URI_TEST_RESULT_PUSH, skipErrors));
 		request.setHeader(HTTP.CONTENT_ENCODING, CONTENT_ENCODING_GZIP);
 		request.setEntity(entity);
 		HttpResponse response = null;
 		try {
-			response = execute(request);
+			response = execute(request, URI_TEST_RESULT_PUSH);
 			int statusCode = response.getStatusLine().getStatusCode();
 			if (statusCode == HttpStatus.SC_SERVICE_UNAVAILABLE) {
 				throw new TemporarilyUnavailableException("Service not available");
@@ -717,7 +825,7 @@ public class MqmRestClientImpl extends AbstractMqmRestClient implements MqmRestC
 				throw createRequestException("Test result post failed", response);
 			}
 			String json = IOUtils.toString(response.getEntity().getContent());
-			JSONObject jsonObject = JSONObject.fromObject(json);
+			JSONObject jsonObject = parseJSONObject(json, response);
 			return jsonObject.getLong("id");
 		} catch (java.io.FileNotFoundException e) {
 			throw new FileNotFoundException("Cannot find test result file.", e);
@@ -736,7 +844,7 @@ public class MqmRestClientImpl extends AbstractMqmRestClient implements MqmRestC
 		request.setHeader("Accept", "application/json");
 
 		request.setEntity(new StringEntity(entityJson, ContentType.APPLICATION_JSON));
-		HttpResponse response;
+		HttpResponse response = null;
 		try {
 			response = execute(request);
 			int statusCode = response.getStatusLine().getStatusCode();
@@ -747,9 +855,11 @@ public class MqmRestClientImpl extends AbstractMqmRestClient implements MqmRestC
 				throw createRequestException("Post failed", response);
 			}
 			String json = IOUtils.toString(response.getEntity().getContent());
-			return JSONObject.fromObject(json);
+			return parseJSONObject(json, response);
 		} catch (IOException e) {
 			throw new RequestErrorException("Cannot post entities", e);
+		} finally {
+			HttpClientUtils.closeQuietly(response);
 		}
 	}
 
@@ -787,7 +897,7 @@ public class MqmRestClientImpl extends AbstractMqmRestClient implements MqmRestC
 		request.setHeader(HTTP.CONTENT_TYPE, "application/json");
 		request.setHeader("Accept", "application/json");
 		request.setEntity(new StringEntity(entityJson, ContentType.APPLICATION_JSON));
-		HttpResponse response;
+		HttpResponse response = null;
 		try {
 			response = execute(request);
 			int statusCode = response.getStatusLine().getStatusCode();
@@ -798,41 +908,133 @@ public class MqmRestClientImpl extends AbstractMqmRestClient implements MqmRestC
 				throw createRequestException("Put failed", response);
 			}
 			String json = IOUtils.toString(response.getEntity().getContent());
-			return JSONObject.fromObject(json);
+			return parseJSONObject(json, response);
 		} catch (IOException e) {
 			throw new RequestErrorException("Cannot put entities to MQM.", e);
+		} finally {
+			HttpClientUtils.closeQuietly(response);
 		}
 	}
 
 	@Override
 	public PagedList<Entity> deleteEntities(Long workspaceId, String entityCollectionName, Collection<Long> entitiesIds) {
-		//query="id=3011||id=3012"
-
 		if (entitiesIds == null || entitiesIds.isEmpty()) {
 			return null;
 		}
+		return deleteEntities(workspaceId, entityCollectionName, toArray(entitiesIds));
+	}
 
-		List<String> idConditions = new ArrayList<>();
-		for (Long id : entitiesIds) {
-			idConditions.add(QueryHelper.condition("id", id));
+	@Override
+	public PagedList<Entity> deleteEntities(Long workspaceId, String entityCollectionName, long[] entitiesIds) {
+		//query="id IN 3011,3012"
+
+		if (entitiesIds == null || entitiesIds.length == 0) {
+			return null;
 		}
-		String finalCondition = StringUtils.join(idConditions, "||");
 
+		// split the IDs so that each DELETE URL fits the limit
+		long[] ids = LongHashSet.distinct(entitiesIds);
+		int baseLength = getEntityURI(entityCollectionName, Collections.singletonList(QueryHelper.conditionIn("id", ids, 0, 0)), null, workspaceId, null, null, null)
+				.toString().length();
+		List<Callable<PagedList<Entity>>> tasks = new ArrayList<>();
+		List<Integer> chunkStarts = new ArrayList<>();
+		int from = 0;
+		int length = baseLength;
+		for (int i = 0; i < ids.length; i++) {
+			int idLength = decimalLength(ids[i]) + (i > from ? ENCODED_ID_SEPARATOR_LENGTH : 0);
+			if (i > from && length + idLength > maxUrlLength) {
+				chunkStarts.add(from);
+				tasks.add(createDeleteTask(workspaceId, entityCollectionName, ids, from, i));
+				from = i;
+				length = baseLength;
+				idLength = decimalLength(ids[i]);
+			}
+			length += idLength;
+		}
+		chunkStarts.add(from);
+		tasks.add(createDeleteTask(workspaceId, entityCollectionName, ids, from, ids.length));
+		chunkStarts.add(ids.length);
+
+		List<Entity> items = new ArrayList<>();
+		int totalCount = 0;
+		List<RuntimeException> failures = new ArrayList<>();
+		long[] failedIds = new long[ids.length];
+		int failedCount = 0;
+		List<Future<PagedList<Entity>>> futures = ParallelExecutor.invokeAll(tasks, MAX_PARALLEL_DELETES, "delete-entities");
+		for (int i = 0; i < futures.size(); i++) {
+			try {
+				PagedList<Entity> deleted = futures.get(i).get();
+				items.addAll(deleted.getItems());
+				totalCount += deleted.getTotalCount();
+			} catch (ExecutionException e) {
+				// keep collecting, entities of the other chunks may be deleted already
+				failures.add(e.getCause() instanceof RuntimeException ?
+						(RuntimeException) e.getCause() : new RequestErrorException("Cannot delete entities from MQM.", e.getCause()));
+				int chunkStart = chunkStarts.get(i);
+				int chunkSize = chunkStarts.get(i + 1) - chunkStart;
+				System.arraycopy(ids, chunkStart, failedIds, failedCount, chunkSize);
+				failedCount += chunkSize;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RequestErrorException("Interrupted while deleting entities", e);
+			}
+		}
+		if (failures.isEmpty()) {
+			return new PagedList<>(items, 0, totalCount);
+		}
+		RuntimeException failure;
+		if (failedCount == ids.length) {
+			// nothing was deleted, there is no partial result to report
+			failure = failures.get(0);
+		} else {
+			failure = new PartialDeleteException("Failed to delete " + failedCount + " of " + ids.length + " entities",
+					new PagedList<>(items, 0, totalCount), Arrays.copyOf(failedIds, failedCount), failures.get(0));
+		}
+		for (RuntimeException other : failures.subList(1, failures.size())) {
+			failure.addSuppressed(other);
+		}
+		throw failure;
+	}
 
-		URI uri = getEntityURI(entityCollectionName, Arrays.asList(finalCondition), null, workspaceId, null, null, null);
-		PagedList<Entity> tests = deleteEntities(uri, new GeneralEntityFactory());
-		return tests;
+	private Callable<PagedList<Entity>> createDeleteTask(final Long workspaceId, final String entityCollectionName, final long[] ids, final int from, final int to) {
+		return new Callable<PagedList<Entity>>() {
+			@Override
+			public PagedList<Entity> call() {
+				URI uri = getEntityURI(entityCollectionName, Collections.singletonList(QueryHelper.conditionIn("id", ids, from, to)), null, workspaceId, null, null, null);
+				return deleteEntities(uri, new GeneralEntityFactory());
+			}
+		};
 	}
 
-	private ByteArrayEntity createGZipEntity(InputStream inputStream) {
+	private static int decimalLength(long value) {
+		int length = value < 0 ? 2 : 1;
+		for (long rest = Math.abs(value / 10); rest > 0; rest /= 10) {
+			length++;
+		}
+		return length;
+	}
+
+	private static long[] toArray(Collection<Long> ids) {
+		long[] result = new long[ids.size()];
+		int i = 0;
+		for (Long id : ids) {
+			result[i++] = id;
+		}
+		return result;
+	}
+
+	ByteArrayEntity createGZipEntity(InputStream inputStream, String endpoint) {
+		long start = System.nanoTime();
 		try {
 			ByteArrayOutputStream arr = new ByteArrayOutputStream();
 			OutputStream zipper = new GZIPOutputStream(arr);
 			byte[] buffer = new byte[1024];
 
+			long uncompressed = 0;
 			int len;
 			while ((len = inputStream.read(buffer)) > 0) {
 				zipper.write(buffer, 0, len);
+				uncompressed += len;
 			}
 
 			try {
@@ -846,12 +1048,65 @@ public class MqmRestClientImpl extends AbstractMqmRestClient implements MqmRestC
 				logger.warning("failed to close silently zip stream of tests result");
 			}
 
+			recordCompression(endpoint, uncompressed, arr.size(), System.nanoTime() - start);
 			return new ByteArrayEntity(arr.toByteArray(), ContentType.APPLICATION_XML);
 		} catch (IOException ex) {
 			throw new RequestErrorException("Failed to create GZip entity.", ex);
 		}
 	}
 
+	/**
+	 * Creates entity of already compressed content. Content is kept in memory so that the request can be repeated.
+	 */
+	private ByteArrayEntity createCompressedEntity(InputStream inputStream) {
+		try {
+			return new ByteArrayEntity(IOUtils.toByteArray(inputStream), ContentType.APPLICATION_XML);
+		} catch (IOException ex) {
+			throw new RequestErrorException("Failed to read compressed content.", ex);
+		} finally {
+			IOUtils.closeQuietly(inputStream);
+		}
+	}
+
+	/**
+	 * Checks the gzip magic header of the stream. Stream must support mark, it is reset to the original position.
+	 */
+	private static boolean isGzipped(InputStream inputStream) throws IOException {
+		inputStream.mark(2);
+		try {
+			return inputStream.read() == (GZIPInputStream.GZIP_MAGIC & 0xff) &&
+					inputStream.read() == (GZIPInputStream.GZIP_MAGIC >> 8);
+		} finally {
+			inputStream.reset();
+		}
+	}
+
+	private static boolean isGzipped(InputStreamSource inputStreamSource) {
+		InputStream inputStream = inputStreamSource.getInputStream();
+		try {
+			return isGzipped(new BufferedInputStream(inputStream, 2));
+		} catch (IOException e) {
+			return false;
+		} finally {
+			IOUtils.closeQuietly(inputStream);
+		}
+	}
+
+	private static boolean isGzipped(File file) {
+		if (!file.isFile()) {
+			return false;
+		}
+		InputStream inputStream = null;
+		try {
+			inputStream = new BufferedInputStream(new FileInputStream(file), 2);
+			return isGzipped(inputStream);
+		} catch (IOException e) {
+			return false;
+		} finally {
+			IOUtils.closeQuietly(inputStream);
+		}
+	}
+
 	@Override
 	public boolean putEvents(String eventsJSON) {
 		HttpPut request;
@@ -859,13 +1114,13 @@ public class MqmRestClientImpl extends AbstractMqmRestClient implements MqmRestC
 		boolean result = true;
 		try {
 			request = new HttpPut(createSharedSpaceInternalApiUri(URI_PUT_EVENTS));
-			request.setEntity(new GzipCompressingEntity(new StringEntity(eventsJSON, ContentType.APPLICATION_JSON)));
-			response = execute(request);
+			request.setEntity(createGzipCompressingEntity(new StringEntity(eventsJSON, ContentType.APPLICATION_JSON), URI_PUT_EVENTS));
+			response = execute(request, URI_PUT_EVENTS);
 			if (response.getStatusLine().getStatusCode() == HttpStatus.SC_TEMPORARY_REDIRECT) {
 				// ad-hoc handling as requested by Jenkins Insight team
 				HttpClientUtils.closeQuietly(response);
 				login();
-				response = execute(request);
+				response = execute(request, URI_PUT_EVENTS);
 			}
 			if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
 				logger.severe("put request failed while sending events: " + response.getStatusLine().getStatusCode());
@@ -888,9 +1143,15 @@ public class MqmRestClientImpl extends AbstractMqmRestClient implements MqmRestC
 
 		try {
 			request = new HttpPost(createWorkspaceInternalApiUriMap(URI_POST_LOGS, workspaceId, selfIdentity, ciJobId, ciBuildId));
-			request.setHeader(UNCOMPRESSED_CONTENT_LENGTH, String.valueOf(contentLength));
-			request.setEntity(this.createGZipEntity(inputStream));
-			response = execute(request);
+			InputStream logStream = new BufferedInputStream(inputStream);
+			if (isGzipped(logStream)) {
+				// already compressed, the uncompressed length is not known (contentLength is size of compressed data)
+				request.setEntity(createCompressedEntity(logStream));
+			} else {
+				request.setHeader(UNCOMPRESSED_CONTENT_LENGTH, String.valueOf(contentLength));
+				request.setEntity(createGZipEntity(logStream, URI_POST_LOGS));
+			}
+			response = execute(request, URI_POST_LOGS);
 			int statusCode = response.getStatusLine().getStatusCode();
 
 			if (statusCode == HttpStatus.SC_SERVICE_UNAVAILABLE || statusCode == HttpStatus.SC_INTERNAL_SERVER_ERROR) {
@@ -910,14 +1171,72 @@ public class MqmRestClientImpl extends AbstractMqmRestClient implements MqmRestC
 	}
 	@Override
 	public boolean postCoverageReports(String selfIdentity, String ciJobId, String ciBuildId, InputStream inputStream, Long contentLength, String reportType) {
+		InputStream reportStream = new BufferedInputStream(inputStream);
+		HttpEntity entity;
+		try {
+			if (isGzipped(reportStream)) {
+				// already compressed, stream it as is
+				InputStreamEntity compressedEntity = new InputStreamEntity(reportStream);
+				compressedEntity.setContentEncoding(CONTENT_ENCODING_GZIP);
+				entity = compressedEntity;
+			} else {
+				entity = createGzipCompressingEntity(new InputStreamEntity(reportStream), URI_POST_COVERAGE_REPORTS);
+			}
+		} catch (IOException e) {
+			throw new RequestErrorException("Cannot post coverage reports to MQM.", e);
+		}
+		return postCoverageReports(selfIdentity, ciJobId, ciBuildId, entity, reportType);
+	}
+
+	@Override
+	public boolean postCoverageReports(String selfIdentity, String ciJobId, String ciBuildId, InputStreamSource inputStreamSource, String reportType) {
+		HttpEntity entity;
+		if (isGzipped(inputStreamSource)) {
+			// already compressed, stream it as is
+			InputStreamSourceEntity compressedEntity = new InputStreamSourceEntity(inputStreamSource);
+			compressedEntity.setContentEncoding(CONTENT_ENCODING_GZIP);
+			entity = compressedEntity;
+		} else {
+			entity = createGzipCompressingEntity(new InputStreamSourceEntity(inputStreamSource), URI_POST_COVERAGE_REPORTS);
+		}
+		return postCoverageReports(selfIdentity, ciJobId, ciBuildId, entity, reportType);
+	}
+
+	@Override
+	public List<Boolean> postCoverageReports(final String selfIdentity, final String ciJobId, final String ciBuildId, List<CoverageReport> reports) {
+		List<Callable<Boolean>> tasks = new ArrayList<>(reports.size());
+		for (final CoverageReport report : reports) {
+			tasks.add(new Callable<Boolean>() {
+				@Override
+				public Boolean call() {
+					return postCoverageReports(selfIdentity, ciJobId, ciBuildId, report.getInputStreamSource(), report.getReportType());
+				}
+			});
+		}
+		List<Boolean> result = new ArrayList<>(reports.size());
+		for (Future<Boolean> future : ParallelExecutor.invokeAll(tasks, MAX_PARALLEL_COVERAGE_REPORTS, "coverage-reports")) {
+			try {
+				result.add(future.get());
+			} catch (ExecutionException e) {
+				logger.log(Level.SEVERE, "coverage report post failed", e.getCause());
+				result.add(false);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RequestErrorException("Interrupted while posting coverage reports", e);
+			}
+		}
+		return result;
+	}
+
+	private boolean postCoverageReports(String selfIdentity, String ciJobId, String ciBuildId, HttpEntity entity, String reportType) {
 		HttpPut request;
 		HttpResponse response = null;
 		boolean result = true;
 
 		try {
 			request = new HttpPut(createSharedSpaceInternalApiUri(URI_POST_COVERAGE_REPORTS, selfIdentity, ciJobId, ciBuildId, reportType));
-			request.setEntity(new GzipCompressingEntity(new InputStreamEntity(inputStream)));
-			response = execute(request);
+			request.setEntity(entity);
+			response = execute(request, URI_POST_COVERAGE_REPORTS);
 			int statusCode = response.getStatusLine().getStatusCode();
 
 			if (statusCode == HttpStatus.SC_SERVICE_UNAVAILABLE || statusCode == HttpStatus.SC_INTERNAL_SERVER_ERROR) {
@@ -944,7 +1263,7 @@ public class MqmRestClientImpl extends AbstractMqmRestClient implements MqmRestC
 		try {
 			request = new HttpGet(createSharedSpaceInternalApiUri(URI_GET_ABRIDGED_TASKS, info.getSelfIdentity(), info.getSelfType(),
 					info.getSelfLocation(), info.getApiVersion(), info.getSdkVersion(), info.getPluginVersion(), info.getOctaneUser(), info.getCiServerUser(), info.isSuspend()));
-			response = execute(request);
+			response = executeLongPoll(request, URI_GET_ABRIDGED_TASKS);
 			responseBody = IOUtils.toString(response.getEntity().getContent(), "UTF-8");
 			if (response.getStatusLine().getStatusCode() == HttpStatus.SC_OK) {
 				return responseBody;
@@ -971,13 +1290,22 @@ public class MqmRestClientImpl extends AbstractMqmRestClient implements MqmRestC
 
 	@Override
 	public int putAbridgedResult(String selfIdentity, String taskId, String contentJSON) {
+		return putAbridgedResult(selfIdentity, taskId, createGzipCompressingEntity(new StringEntity(contentJSON, ContentType.APPLICATION_JSON), URI_PUT_ABRIDGED_RESULT));
+	}
+
+	@Override
+	public int putAbridgedResult(String selfIdentity, String taskId, InputStreamSource contentSource) {
+		return putAbridgedResult(selfIdentity, taskId, createGzipCompressingEntity(new InputStreamSourceEntity(contentSource, ContentType.APPLICATION_JSON), URI_PUT_ABRIDGED_RESULT));
+	}
+
+	private int putAbridgedResult(String selfIdentity, String taskId, HttpEntity entity) {
 		HttpPut request;
 		HttpResponse response = null;
 		try {
 			request = new HttpPut(createSharedSpaceInternalApiUri(URI_PUT_ABRIDGED_RESULT, selfIdentity, taskId));
-			request.setEntity(new GzipCompressingEntity(new StringEntity(contentJSON, ContentType.APPLICATION_JSON)));
+			request.setEntity(entity);
 
-			response = execute(request);
+			response = execute(request, URI_PUT_ABRIDGED_RESULT);
 			return response.getStatusLine().getStatusCode();
 		} catch (Exception e) {
 			logger.severe("failed to submit abridged task's result: " + e.getMessage());
@@ -1000,7 +1328,7 @@ public class MqmRestClientImpl extends AbstractMqmRestClient implements MqmRestC
 		}
 	}
 
-	private static class TaxonomyEntityFactory extends AbstractEntityFactory<Taxonomy> {
+	static class TaxonomyEntityFactory extends AbstractEntityFactory<Taxonomy> {
 
 		@Override
 		public Taxonomy doCreate(JSONObject entityObject) {
@@ -1013,7 +1341,7 @@ public class MqmRestClientImpl extends AbstractMqmRestClient implements MqmRestC
 		}
 	}
 
-	private static class ReleaseEntityFactory extends AbstractEntityFactory<Release> {
+	static class ReleaseEntityFactory extends AbstractEntityFactory<Release> {
 
 		@Override
 		public Release doCreate(JSONObject entityObject) {
@@ -1021,7 +1349,7 @@ public class MqmRestClientImpl extends AbstractMqmRestClient implements MqmRestC
 		}
 	}
 
-	private static class GeneralEntityFactory extends AbstractEntityFactory<Entity> {
+	static class GeneralEntityFactory extends AbstractEntityFactory<Entity> {
 
 		@Override
 		public Entity doCreate(JSONObject entityObject) {
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hp.mqm.client;
+
+import com.hp.mqm.client.internal.HttpTransport;
+import org.apache.commons.lang.StringUtils;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Holds the clients of several tenants (location, shared space and credentials) served from the same JVM.
+ *
+ * Tenants of the same host share the transport (connection pools), each tenant has own session. Connections used by
+ * the memory and sockets thus grow with the number of hosts, not with the number of the tenants or the jobs using them.
+ * Tenant can't hold more than its fair share of the shared pool (pool size divided by the number of tenants with requests
+ * in flight), so that busy tenant doesn't starve the others; the share can be further capped by the maximum number of
+ * connections per tenant.
+ *
+ * Client is acquired by {@link #acquire(MqmConnectionConfig)} and returned by {@link #release(MqmRestClient)}.
+ * Tenants not acquired for longer than the idle timeout are closed by {@link #evictIdle()}, it is invoked with every
+ * acquisition and it can be also scheduled periodically.
+ */
+public class MqmRestClientRegistry {
+    private static final Logger logger = Logger.getLogger(MqmRestClientRegistry.class.getName());
+
+    private static final long DEFAULT_IDLE_TIMEOUT = 10 * 60 * 1000;     // in milliseconds
+
+    private final long idleTimeout;
+    private final int maxConnectionsPerTenant;
+    private final Map<String, Tenant> tenants = new HashMap<>();
+    private final Map<MqmRestClient, Tenant> tenantsByClient = new IdentityHashMap<>();
+    private final Map<String, HttpTransport> transports = new HashMap<>();
+
+    public MqmRestClientRegistry() {
+        this(DEFAULT_IDLE_TIMEOUT, 0);
+    }
+
+    /**
+     * @param idleTimeout             time (in milliseconds) after which the released tenant is closed, it is also the time
+     *                                after which idle pooled connections are closed
+     * @param maxConnectionsPerTenant maximum number of connections of the shared pool used by one tenant at once,
+     *                                zero for no cap beyond the fair share
+     */
+    public MqmRestClientRegistry(long idleTimeout, int maxConnectionsPerTenant) {
+        if (idleTimeout < 0) {
+            throw new IllegalArgumentException("Idle timeout cannot be negative.");
+        }
+        if (maxConnectionsPerTenant < 0) {
+            throw new IllegalArgumentException("Maximum connections per tenant cannot be negative.");
+        }
+        this.idleTimeout = idleTimeout;
+        this.maxConnectionsPerTenant = maxConnectionsPerTenant;
+    }
+
+    /**
+     * Returns client of the tenant given by the location, shared space and credentials of the configuration. Client
+     * is created on the first acquisition, other settings of the configuration are taken from the configuration which
+     * created it.
+     *
+     * @param connectionConfig MQM connection configuration
+     * @return client of the tenant, it must be returned by {@link #release(MqmRestClient)}
+     */
+    public synchronized MqmRestClient acquire(MqmConnectionConfig connectionConfig) {
+        evictIdle();
+        String tenantKey = createTenantKey(connectionConfig);
+        Tenant tenant = tenants.get(tenantKey);
+        if (tenant == null) {
+            String transportKey = createTransportKey(connectionConfig);
+            HttpTransport transport = transports.get(transportKey);
+            if (transport == null) {
+                transport = AbstractMqmRestClient.createTransport(connectionConfig);
+                transports.put(transportKey, transport);
+            }
+            MqmRestClient client = new MqmRestClientImpl(connectionConfig, transport, maxConnectionsPerTenant);
+            tenant = new Tenant(transportKey, client);
+            tenants.put(tenantKey, tenant);
+            tenantsByClient.put(client, tenant);
+        }
+        tenant.references++;
+        return tenant.client;
+    }
+
+    /**
+     * Returns the client acquired by {@link #acquire(MqmConnectionConfig)}. Client is kept open for the idle timeout
+     * after the last release.
+     *
+     * @param client client to release
+     */
+    public synchronized void release(MqmRestClient client) {
+        Tenant tenant = tenantsByClient.get(client);
+        if (tenant == null) {
+            throw new IllegalArgumentException("Client was not acquired from the registry.");
+        }
+        if (tenant.references == 0) {
+            throw new IllegalStateException("Client was released more times than acquired.");
+        }
+        tenant.references--;
+        tenant.lastReleased = System.currentTimeMillis();
+    }
+
+    /**
+     * Closes the tenants released for longer than the idle timeout and the pooled connections idle for longer than it.
+     *
+     * @return number of closed tenants
+     */
+    public synchronized int evictIdle() {
+        long now = System.currentTimeMillis();
+        int evicted = 0;
+        for (Iterator<Tenant> it = tenants.values().iterator(); it.hasNext(); ) {
+            Tenant tenant = it.next();
+            if (tenant.references == 0 && now - tenant.lastReleased >= idleTimeout) {
+                it.remove();
+                close(tenant);
+                evicted++;
+            }
+        }
+        for (HttpTransport transport : transports.values()) {
+            transport.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+        }
+        if (evicted > 0) {
+            logger.fine(evicted + " idle tenants closed, " + tenants.size() + " tenants remain");
+        }
+        return evicted;
+    }
+
+    /**
+     * @return number of open tenants
+     */
+    public synchronized int getTenantCount() {
+        return tenants.size();
+    }
+
+    /**
+     * @return number of open transports (hosts)
+     */
+    public synchronized int getTransportCount() {
+        return transports.size();
+    }
+
+    /**
+     * Closes all the tenants regardless of their use.
+     */
+    public synchronized void close() {
+        for (Tenant tenant : tenants.values()) {
+            close(tenant);
+        }
+        tenants.clear();
+    }
+
+    private void close(Tenant tenant) {
+        tenantsByClient.remove(tenant.client);
+        tenant.client.close();
+        if (transports.get(tenant.transportKey).isClosed()) {
+            transports.remove(tenant.transportKey);
+        }
+    }
+
+    private static String createTenantKey(MqmConnectionConfig connectionConfig) {
+        return StringUtils.join(Arrays.asList(connectionConfig.getLocation(), connectionConfig.getSharedSpace(),
+                connectionConfig.getUsername(), connectionConfig.getPassword()), '\n');
+    }
+
+    /**
+     * Key of the transport: host of the location and settings of the connections and the pool.
+     */
+    private static String createTransportKey(MqmConnectionConfig connectionConfig) {
+        URI location = URI.create(connectionConfig.getLocation());
+        ProxyCredentials proxyCredentials = connectionConfig.getProxyCredentials();
+        List<Object> key = Arrays.<Object>asList(
+                StringUtils.lowerCase(location.getScheme()),
+                StringUtils.lowerCase(location.getHost()),
+                location.getPort(),
+                connectionConfig.getClientType(),
+                connectionConfig.getProxyHost(),
+                connectionConfig.getProxyPort(),
+                proxyCredentials instanceof UsernamePasswordProxyCredentials ?
+                        ((UsernamePasswordProxyCredentials) proxyCredentials).getUsername() + ":" + ((UsernamePasswordProxyCredentials) proxyCredentials).getPassword() :
+                        proxyCredentials != null ? System.identityHashCode(proxyCredentials) : null,
+                connectionConfig.getDefaultSocketTimeout(),
+                connectionConfig.getDefaultConnectionTimeout(),
+                connectionConfig.getTaskPollingTimeout(),
+                connectionConfig.getMaxConcurrentRequests());
+        return StringUtils.join(key, '\n');
+    }
+
+    private static final class Tenant {
+
+        private final String transportKey;
+        private final MqmRestClient client;
+        private int references;
+        private long lastReleased;
+
+        private Tenant(String transportKey, MqmRestClient client) {
+            this.transportKey = transportKey;
+            this.client = client;
+        }
+    }
+}
@@ -53,6 +53,45 @@ public class QueryHelper {
         }
     }
 
+    public static String conditionIn(String name, long[] ids) {
+        return conditionIn(name, ids, 0, ids.length);
+    }
+
+    /**
+     * @param name name of the field
+     * @param ids  values of the field
+     * @param from index of the first value used (inclusive)
+     * @param to   index of the last value used (exclusive)
+     * @return condition in form 'name IN 1,2,3'
+     */
+    public static String conditionIn(String name, long[] ids, int from, int to) {
+        StringBuilder builder = new StringBuilder(name.length() + 4 + (to - from) * 8);
+        builder.append(name).append(" IN ");
+        for (int i = from; i < to; i++) {
+            if (i > from) {
+                builder.append(',');
+            }
+            builder.append(ids[i]);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @param name name of the field
+     * @param ids  values of the field
+     * @return condition in form 'name=1||name=2||name=3'
+     */
+    public static String conditionAnyOf(String name, long[] ids) {
+        StringBuilder builder = new StringBuilder(ids.length * (name.length() + 10));
+        for (long id : ids) {
+            if (builder.length() > 0) {
+                builder.append("||");
+            }
+            builder.append(name).append('=').append(id);
+        }
+        return builder.toString();
+    }
+
     private static String escapeQueryValue(String value) {
         return value.replaceAll("(\\\\)", "$1$1").replaceAll("([\"'])", "\\\\$1");
     }
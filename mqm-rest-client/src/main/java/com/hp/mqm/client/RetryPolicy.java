@@ -0,0 +1,143 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Policy of automatic retries of failed requests.
+ *
+ * Request is retried when it fails with IO error or when the server responds with 429, 502, 503 or 504. Delay before
+ * next attempt grows exponentially and is randomized in full (random value between zero and the exponential delay)
+ * so that many clients hitting the same recovering server don't retry at the same instant. When the server sends
+ * 'Retry-After' header, the delay is not shorter than requested.
+ *
+ * Only requests which are safe to replay are retried automatically: requests of idempotent methods (GET, HEAD,
+ * OPTIONS, PUT, DELETE) whose body (if any) is repeatable. Number of attempts is set per method, by default only
+ * GET, HEAD and OPTIONS requests are retried.
+ */
+public class RetryPolicy {
+
+    private static final int DEFAULT_MAX_ATTEMPTS = 3;
+    private static final long DEFAULT_INITIAL_BACKOFF = 500;            // in milliseconds
+    private static final long DEFAULT_MAX_BACKOFF = 10 * 1000;          // in milliseconds
+    private static final long DEFAULT_MAX_RETRY_AFTER = 60 * 1000;      // in milliseconds
+
+    private final Map<String, Integer> maxAttempts = new HashMap<>();
+    private long initialBackoff = DEFAULT_INITIAL_BACKOFF;
+    private long maxBackoff = DEFAULT_MAX_BACKOFF;
+    private long maxRetryAfter = DEFAULT_MAX_RETRY_AFTER;
+
+    public RetryPolicy() {
+        maxAttempts.put("GET", DEFAULT_MAX_ATTEMPTS);
+        maxAttempts.put("HEAD", DEFAULT_MAX_ATTEMPTS);
+        maxAttempts.put("OPTIONS", DEFAULT_MAX_ATTEMPTS);
+    }
+
+    /**
+     * @return policy which never retries
+     */
+    public static RetryPolicy none() {
+        RetryPolicy policy = new RetryPolicy();
+        policy.maxAttempts.clear();
+        return policy;
+    }
+
+    /**
+     * @param method      HTTP method
+     * @param maxAttempts maximum number of attempts (including the first one) of the requests with given method,
+     *                    it is ignored for non-idempotent methods (POST, PATCH) which are never retried automatically
+     */
+    public void setMaxAttempts(String method, int maxAttempts) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Number of attempts must be positive.");
+        }
+        this.maxAttempts.put(method.toUpperCase(Locale.ENGLISH), maxAttempts);
+    }
+
+    public int getMaxAttempts(String method) {
+        if (!isIdempotent(method)) {
+            return 1;
+        }
+        Integer attempts = maxAttempts.get(method.toUpperCase(Locale.ENGLISH));
+        return attempts != null ? attempts : 1;
+    }
+
+    public long getInitialBackoff() {
+        return initialBackoff;
+    }
+
+    /**
+     * @param initialBackoff upper bound (in milliseconds) of the delay before the second attempt, it doubles with each next attempt
+     */
+    public void setInitialBackoff(long initialBackoff) {
+        this.initialBackoff = initialBackoff;
+    }
+
+    public long getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    /**
+     * @param maxBackoff upper bound (in milliseconds) of the delay between two attempts
+     */
+    public void setMaxBackoff(long maxBackoff) {
+        this.maxBackoff = maxBackoff;
+    }
+
+    public long getMaxRetryAfter() {
+        return maxRetryAfter;
+    }
+
+    /**
+     * @param maxRetryAfter longest 'Retry-After' delay (in milliseconds) the client is willing to wait, request is not retried
+     *                      when the server asks for longer delay
+     */
+    public void setMaxRetryAfter(long maxRetryAfter) {
+        this.maxRetryAfter = maxRetryAfter;
+    }
+
+    public boolean isRetryableStatus(int statusCode) {
+        return statusCode == 429 || statusCode == 502 || statusCode == 503 || statusCode == 504;
+    }
+
+    /**
+     * Computes delay before next attempt.
+     *
+     * @param attempt    number of the attempt which failed (starting with 1)
+     * @param retryAfter delay (in milliseconds) requested by the server, negative if not requested
+     * @return delay in milliseconds, negative if the request should not be retried
+     */
+    public long getDelay(int attempt, long retryAfter) {
+        if (retryAfter > maxRetryAfter) {
+            return -1;
+        }
+        long bound = initialBackoff;
+        for (int i = 1; i < attempt && bound < maxBackoff; i++) {
+            bound *= 2;
+        }
+        bound = Math.min(bound, maxBackoff);
+        long delay = bound > 0 ? ThreadLocalRandom.current().nextLong(bound + 1) : 0;
+        return Math.max(delay, retryAfter);
+    }
+
+    private static boolean isIdempotent(String method) {
+        return !"POST".equalsIgnoreCase(method) && !"PATCH".equalsIgnoreCase(method);
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hp.mqm.client.exception;
+
+import com.hp.mqm.client.model.Entity;
+import com.hp.mqm.client.model.PagedList;
+
+/**
+ * Exception means that the deletion split into several requests failed only partially: some of the entities
+ * were deleted and some were not. Cause of the exception is the failure of the first failed request, failures
+ * of the other requests are attached as suppressed exceptions.
+ */
+public class PartialDeleteException extends RequestErrorException {
+
+    private final transient PagedList<Entity> deleted;
+    private final long[] failedIds;
+
+    public PartialDeleteException(String message, PagedList<Entity> deleted, long[] failedIds, Throwable cause) {
+        super(message, cause);
+        this.deleted = deleted;
+        this.failedIds = failedIds;
+    }
+
+    /**
+     * @return entities deleted by the requests which succeeded
+     */
+    public PagedList<Entity> getDeleted() {
+        return deleted;
+    }
+
+    /**
+     * @return IDs sent in the requests which failed, these entities may not be deleted
+     */
+    public long[] getFailedIds() {
+        return failedIds.clone();
+    }
+}
@@ -17,12 +17,19 @@ package com.hp.mqm.client.exception;
 
 import net.sf.json.JSONObject;
 
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
 /**
  * Exception means some IO error or error in the HTTP protocol.
  */
 public class RequestErrorException extends RequestException {
+    private static final Logger logger = Logger.getLogger(RequestErrorException.class.getName());
 
     private JSONObject jsonObject;
+    private String serverStackTrace;
+    private transient ServerException serverCause;
+    private transient boolean serverCauseResolved;
 
     RequestErrorException() {
     }
@@ -44,7 +51,43 @@ public class RequestErrorException extends RequestException {
         this.jsonObject = jsonObject;
     }
 
+    /**
+     * Creates exception with the cause given by the stack trace of the server exception. The stack trace is parsed
+     * only when the cause is requested for the first time.
+     */
+    public static RequestErrorException withServerStackTrace(String message, String description, String errorCode, int statusCode, String reason, String serverStackTrace, JSONObject jsonObject) {
+        RequestErrorException exception = new RequestErrorException(message, description, errorCode, statusCode, reason, null, jsonObject);
+        exception.serverStackTrace = serverStackTrace;
+        return exception;
+    }
+
     public JSONObject getJsonObject() {
         return jsonObject;
     }
+
+    /**
+     * @return stack trace of the server exception as returned by the server, null if not available
+     */
+    public String getServerStackTrace() {
+        return serverStackTrace;
+    }
+
+    @Override
+    public synchronized Throwable getCause() {
+        Throwable cause = super.getCause();
+        if (cause != null || serverStackTrace == null || serverStackTrace.isEmpty()) {
+            return cause;
+        }
+        if (!serverCauseResolved) {
+            serverCauseResolved = true;
+            try {
+                Throwable parsedException = ExceptionStackTraceParser.parseException(serverStackTrace);
+                serverCause = new ServerException("Exception thrown on server, see cause", parsedException);
+            } catch (RuntimeException e) {
+                // the parser is best-effort code, don't fail if anything goes wrong
+                logger.log(Level.SEVERE, "Unable to parse server stacktrace: ", e);
+            }
+        }
+        return serverCause;
+    }
 }
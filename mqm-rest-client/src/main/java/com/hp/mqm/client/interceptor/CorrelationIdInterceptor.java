@@ -0,0 +1,82 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client.interceptor;
+
+import java.util.UUID;
+
+/**
+ * Adds correlation id header to the requests so that the server side logs can be tied to the caller.
+ *
+ * The id is taken from the current thread (see {@link #setCorrelationId(String)}, e.g. the build being processed),
+ * requests executed without it get a random id. The same id is sent in all attempts of the request and it is
+ * available to the other interceptors as {@link #ATTRIBUTE_CORRELATION_ID} attribute of the context.
+ */
+public class CorrelationIdInterceptor extends RequestInterceptorAdapter {
+
+    public static final String DEFAULT_HEADER = "X-Correlation-ID";
+    public static final String ATTRIBUTE_CORRELATION_ID = "correlationId";
+
+    private static final ThreadLocal<String> CORRELATION_ID = new ThreadLocal<>();
+
+    private final String header;
+
+    public CorrelationIdInterceptor() {
+        this(DEFAULT_HEADER);
+    }
+
+    /**
+     * @param header name of the header carrying the correlation id
+     */
+    public CorrelationIdInterceptor(String header) {
+        if (header == null || header.isEmpty()) {
+            throw new IllegalArgumentException("Header name cannot be empty.");
+        }
+        this.header = header;
+    }
+
+    /**
+     * Sets correlation id of the requests executed by the current thread.
+     *
+     * @param correlationId correlation id, null to remove it
+     */
+    public static void setCorrelationId(String correlationId) {
+        if (correlationId == null) {
+            CORRELATION_ID.remove();
+        } else {
+            CORRELATION_ID.set(correlationId);
+        }
+    }
+
+    /**
+     * @return correlation id of the requests executed by the current thread, null if not set
+     */
+    public static String getCorrelationId() {
+        return CORRELATION_ID.get();
+    }
+
+    @Override
+    public void beforeSend(RequestContext context) {
+        String correlationId = (String) context.getAttribute(ATTRIBUTE_CORRELATION_ID);
+        if (correlationId == null) {
+            correlationId = CORRELATION_ID.get();
+            if (correlationId == null) {
+                correlationId = UUID.randomUUID().toString();
+            }
+            context.setAttribute(ATTRIBUTE_CORRELATION_ID, correlationId);
+        }
+        context.getRequest().setHeader(header, correlationId);
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client.interceptor;
+
+import org.apache.http.client.methods.HttpUriRequest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Context of one request shared by the interceptors. Context is created once for the request and kept for all its
+ * attempts, attributes set by the interceptors are therefore visible in the retries as well.
+ */
+public final class RequestContext {
+
+    private final HttpUriRequest request;
+    private final String endpoint;
+    private int attempt;
+    private Map<String, Object> attributes;
+
+    public RequestContext(HttpUriRequest request, String endpoint) {
+        this.request = request;
+        this.endpoint = endpoint;
+    }
+
+    public HttpUriRequest getRequest() {
+        return request;
+    }
+
+    /**
+     * @return URI template of the endpoint (e.g. 'analytics/ci/servers/{0}/tasks/{1}/result')
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @return number of the attempt currently executed, starting with 1
+     */
+    public int getAttempt() {
+        return attempt;
+    }
+
+    public void setAttempt(int attempt) {
+        this.attempt = attempt;
+    }
+
+    public Object getAttribute(String name) {
+        return attributes != null ? attributes.get(name) : null;
+    }
+
+    public void setAttribute(String name, Object value) {
+        if (attributes == null) {
+            attributes = new HashMap<>();
+        }
+        attributes.put(name, value);
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client.interceptor;
+
+import org.apache.http.HttpResponse;
+
+/**
+ * Callback around execution of the requests. Interceptors are configured by
+ * {@link com.hp.mqm.client.MqmConnectionConfig#addRequestInterceptor(RequestInterceptor)} and invoked on the thread
+ * executing the request: {@link #beforeSend} in the order of registration, {@link #afterReceive} and {@link #onError}
+ * in the reverse order. Callbacks are invoked for every attempt of the request (see {@link RequestContext#getAttempt()}).
+ */
+public interface RequestInterceptor {
+
+    /**
+     * Invoked before the request is sent, the interceptor may add headers to {@link RequestContext#getRequest()}.
+     * Exception thrown by this method aborts the request.
+     *
+     * @param context context of the request
+     */
+    void beforeSend(RequestContext context);
+
+    /**
+     * Invoked when the response headers are received. Response body must not be consumed by the interceptor.
+     * Exception thrown by this method is logged and ignored.
+     *
+     * @param context  context of the request
+     * @param response response of the server
+     */
+    void afterReceive(RequestContext context, HttpResponse response);
+
+    /**
+     * Invoked when the request fails without a response. Exception thrown by this method is logged and ignored.
+     *
+     * @param context context of the request
+     * @param error   failure of the request
+     */
+    void onError(RequestContext context, Exception error);
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client.interceptor;
+
+import org.apache.http.HttpResponse;
+
+/**
+ * {@link RequestInterceptor} with empty callbacks, interceptors override only the callbacks they need.
+ */
+public abstract class RequestInterceptorAdapter implements RequestInterceptor {
+
+    @Override
+    public void beforeSend(RequestContext context) {
+    }
+
+    @Override
+    public void afterReceive(RequestContext context, HttpResponse response) {
+    }
+
+    @Override
+    public void onError(RequestContext context, Exception error) {
+    }
+}
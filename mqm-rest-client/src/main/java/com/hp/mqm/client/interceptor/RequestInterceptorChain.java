@@ -0,0 +1,76 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client.interceptor;
+
+import org.apache.http.HttpResponse;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Ordered chain of {@link RequestInterceptor}s.
+ */
+public final class RequestInterceptorChain {
+    private static final Logger logger = Logger.getLogger(RequestInterceptorChain.class.getName());
+
+    private final RequestInterceptor[] interceptors;
+
+    public RequestInterceptorChain(Collection<RequestInterceptor> interceptors) {
+        List<RequestInterceptor> list = new ArrayList<>();
+        if (interceptors != null) {
+            for (RequestInterceptor interceptor : interceptors) {
+                if (interceptor == null) {
+                    throw new IllegalArgumentException("Request interceptor cannot be null.");
+                }
+                list.add(interceptor);
+            }
+        }
+        this.interceptors = list.toArray(new RequestInterceptor[list.size()]);
+    }
+
+    public boolean isEmpty() {
+        return interceptors.length == 0;
+    }
+
+    public void beforeSend(RequestContext context) {
+        for (RequestInterceptor interceptor : interceptors) {
+            interceptor.beforeSend(context);
+        }
+    }
+
+    public void afterReceive(RequestContext context, HttpResponse response) {
+        for (int i = interceptors.length - 1; i >= 0; i--) {
+            try {
+                interceptors[i].afterReceive(context, response);
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Request interceptor " + interceptors[i].getClass().getName() + " failed", e);
+            }
+        }
+    }
+
+    public void onError(RequestContext context, Exception error) {
+        for (int i = interceptors.length - 1; i >= 0; i--) {
+            try {
+                interceptors[i].onError(context, error);
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Request interceptor " + interceptors[i].getClass().getName() + " failed", e);
+            }
+        }
+    }
+}
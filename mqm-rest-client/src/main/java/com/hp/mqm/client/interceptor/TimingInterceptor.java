@@ -0,0 +1,91 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client.interceptor;
+
+import org.apache.http.HttpResponse;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Records timing span of every request attempt: from sending the request until the response headers are received
+ * (or the request fails). Spans are logged, span slower than the threshold is logged as a warning together with
+ * the correlation id (when {@link CorrelationIdInterceptor} precedes this interceptor in the chain).
+ * Subclasses may override {@link #onSpan} to pass the spans elsewhere.
+ */
+public class TimingInterceptor extends RequestInterceptorAdapter {
+    private static final Logger logger = Logger.getLogger(TimingInterceptor.class.getName());
+
+    private static final String ATTRIBUTE_START = TimingInterceptor.class.getName() + ".start";
+    private static final long DEFAULT_SLOW_THRESHOLD = 10000;
+
+    private final long slowThreshold;
+
+    public TimingInterceptor() {
+        this(DEFAULT_SLOW_THRESHOLD, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param slowThreshold duration from which the request is reported as slow
+     * @param unit          time unit of the threshold
+     */
+    public TimingInterceptor(long slowThreshold, TimeUnit unit) {
+        this.slowThreshold = unit.toNanos(slowThreshold);
+    }
+
+    @Override
+    public void beforeSend(RequestContext context) {
+        context.setAttribute(ATTRIBUTE_START, System.nanoTime());
+    }
+
+    @Override
+    public void afterReceive(RequestContext context, HttpResponse response) {
+        endSpan(context, response.getStatusLine().getStatusCode(), null);
+    }
+
+    @Override
+    public void onError(RequestContext context, Exception error) {
+        endSpan(context, -1, error);
+    }
+
+    private void endSpan(RequestContext context, int statusCode, Exception error) {
+        Long start = (Long) context.getAttribute(ATTRIBUTE_START);
+        if (start != null) {
+            onSpan(context, statusCode, System.nanoTime() - start, error);
+        }
+    }
+
+    /**
+     * Invoked when the attempt of the request is over.
+     *
+     * @param context    context of the request
+     * @param statusCode status code of the response, -1 if the request failed
+     * @param duration   duration of the attempt in nanoseconds
+     * @param error      failure of the request, null if the response was received
+     */
+    protected void onSpan(RequestContext context, int statusCode, long duration, Exception error) {
+        Level level = duration >= slowThreshold ? Level.WARNING : Level.FINE;
+        if (!logger.isLoggable(level)) {
+            return;
+        }
+        Object correlationId = context.getAttribute(CorrelationIdInterceptor.ATTRIBUTE_CORRELATION_ID);
+        logger.log(level, context.getRequest().getMethod() + " " + context.getEndpoint() +
+                " (attempt " + context.getAttempt() + (correlationId != null ? ", correlation id " + correlationId : "") + ") " +
+                (error != null ? "failed: " + error.getMessage() : "returned " + statusCode) +
+                " in " + TimeUnit.NANOSECONDS.toMillis(duration) + " ms");
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client.internal;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Limits number of concurrent requests to the limit which adapts to the current capacity of the server.
+ *
+ * Limit grows additively (by one per limit-worth of completed requests) while the requests are using it and their
+ * latency stays close to the baseline (lowest latency observed recently). It shrinks multiplicatively when the latency
+ * grows over the tolerance or when the server signals overload (503, 429, timeouts). Requests over the limit wait in
+ * the queue, higher priority requests are served first. Queue of lower priority requests is shorter, so under overload
+ * they are rejected first.
+ */
+public class AdaptiveConcurrencyLimiter {
+    private static final Logger logger = Logger.getLogger(AdaptiveConcurrencyLimiter.class.getName());
+
+    private static final double LATENCY_BACKOFF_RATIO = 0.9;
+    private static final double OVERLOAD_BACKOFF_RATIO = 0.5;
+    private static final double LATENCY_TOLERANCE = 2.0;
+    private static final double LATENCY_SMOOTHING = 0.1;
+    private static final int BASELINE_WINDOW = 100;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueued;
+    private final long queueTimeoutNanos;
+
+    private double limit;
+    private int inFlight;
+    private final int[] waiting = new int[EndpointFamily.PRIORITIES];
+    private int waitingTotal;
+    private int completionsSinceDecrease;
+    private long rejectedCount;
+
+    private double baselineLatency;
+    private double smoothedLatency;
+    private long windowMinLatency = Long.MAX_VALUE;
+    private int windowSamples;
+
+    /**
+     * @param initialLimit initial number of concurrent requests
+     * @param minLimit     lowest limit
+     * @param maxLimit     highest limit
+     * @param maxQueued    maximum number of waiting requests of the highest priority, each lower priority gets half of the higher one
+     * @param queueTimeout longest time (in milliseconds) the request waits in the queue
+     */
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, int maxQueued, long queueTimeout) {
+        if (minLimit <= 0 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Limits must be positive and minimum must not be higher than maximum.");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueued = maxQueued;
+        this.queueTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(queueTimeout);
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.completionsSinceDecrease = maxLimit;
+    }
+
+    /**
+     * Waits until the request may be executed. Each successful acquire must be followed by {@link #release} or {@link #cancel()}.
+     *
+     * @param priority priority of the request, zero is the highest
+     * @return true if the request may proceed, false if it was rejected (the queue is full or the wait timed out)
+     * @throws InterruptedException when interrupted while waiting
+     */
+    public synchronized boolean acquire(int priority) throws InterruptedException {
+        if (canProceed(priority)) {
+            inFlight++;
+            return true;
+        }
+        if (waitingTotal >= maxQueued >> priority) {
+            rejectedCount++;
+            return false;
+        }
+        waiting[priority]++;
+        waitingTotal++;
+        try {
+            long deadline = System.nanoTime() + queueTimeoutNanos;
+            while (!canProceed(priority)) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    rejectedCount++;
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+        } finally {
+            waiting[priority]--;
+            waitingTotal--;
+            // request of other priority may be able to proceed now
+            notifyAll();
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * Completes the request and adapts the limit.
+     *
+     * @param latency    duration of the request in nanoseconds
+     * @param useLatency false if the duration doesn't reflect the server load (e.g. upload of large body)
+     * @param overload   true if the server signalled overload
+     */
+    public synchronized void release(long latency, boolean useLatency, boolean overload) {
+        boolean limited = inFlight >= limit / 2;
+        inFlight--;
+        completionsSinceDecrease++;
+        if (overload) {
+            decrease(OVERLOAD_BACKOFF_RATIO);
+        } else if (useLatency && updateLatency(latency) > LATENCY_TOLERANCE * baselineLatency) {
+            decrease(LATENCY_BACKOFF_RATIO);
+        } else if (limited) {
+            // grow only when the limit is actually used, idle client must not inflate it
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+        notifyAll();
+    }
+
+    /**
+     * Completes the request without adapting the limit (e.g. it failed on the client side).
+     */
+    public synchronized void cancel() {
+        inFlight--;
+        notifyAll();
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    private boolean canProceed(int priority) {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        for (int i = 0; i < priority; i++) {
+            if (waiting[i] > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private double updateLatency(long latency) {
+        if (baselineLatency == 0 || latency < baselineLatency) {
+            baselineLatency = latency;
+        }
+        smoothedLatency = smoothedLatency == 0 ? latency : smoothedLatency + LATENCY_SMOOTHING * (latency - smoothedLatency);
+        windowMinLatency = Math.min(windowMinLatency, latency);
+        if (++windowSamples >= BASELINE_WINDOW) {
+            // let the baseline slowly follow permanent change of the server latency
+            baselineLatency = baselineLatency + LATENCY_SMOOTHING * (windowMinLatency - baselineLatency);
+            windowMinLatency = Long.MAX_VALUE;
+            windowSamples = 0;
+        }
+        return smoothedLatency;
+    }
+
+    private void decrease(double ratio) {
+        // one decrease per limit-worth of completions, requests which were in flight together report the same congestion
+        if (completionsSinceDecrease < limit) {
+            return;
+        }
+        double previous = limit;
+        limit = Math.max(minLimit, limit * ratio);
+        completionsSinceDecrease = 0;
+        smoothedLatency = baselineLatency;
+        logger.fine("Concurrency limit decreased from " + (int) previous + " to " + (int) limit);
+    }
+}
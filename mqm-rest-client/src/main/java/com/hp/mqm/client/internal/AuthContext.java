@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hp.mqm.client.internal;
+
+import org.apache.http.client.CookieStore;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.cookie.Cookie;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Session of the client given by the LWSSO token of one sign in. Instance is immutable and shared by all the requests
+ * using the session, every (re)login creates new instance (generation) which replaces the previous one.
+ */
+public final class AuthContext {
+
+    private final Cookie token;
+    private final long generation;
+    private final CookieStore cookieStore;
+
+    public AuthContext(Cookie token, long generation) {
+        if (token == null) {
+            throw new IllegalArgumentException("Token cannot be null.");
+        }
+        this.token = token;
+        this.generation = generation;
+        this.cookieStore = new SessionCookieStore(token);
+    }
+
+    public Cookie getToken() {
+        return token;
+    }
+
+    /**
+     * @return sequence number of the login which created the session
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Creates HTTP context for execution of one request within this session. Context holds the request, response
+     * and connection of the execution, it must not outlive the request; only the cookie store is shared.
+     */
+    public HttpClientContext createHttpContext() {
+        HttpClientContext context = HttpClientContext.create();
+        context.setCookieStore(cookieStore);
+        return context;
+    }
+
+    /**
+     * Read-only cookie store with the session token. Cookies set by the responses are ignored,
+     * the session is renewed by login only.
+     */
+    private static final class SessionCookieStore implements CookieStore {
+
+        private final List<Cookie> cookies;
+
+        private SessionCookieStore(Cookie token) {
+            this.cookies = Collections.singletonList(token);
+        }
+
+        @Override
+        public void addCookie(Cookie cookie) {
+        }
+
+        @Override
+        public List<Cookie> getCookies() {
+            return cookies;
+        }
+
+        @Override
+        public boolean clearExpired(Date date) {
+            return false;
+        }
+
+        @Override
+        public void clear() {
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client.internal;
+
+import com.hp.mqm.client.model.CircuitBreakerStatus;
+import com.hp.mqm.client.model.CircuitBreakerStatus.State;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Circuit breaker based on the failure rate of the last calls.
+ *
+ * Breaker opens when the failure rate in the sliding window (of last N calls) reaches the threshold. While open,
+ * calls are rejected. After the open duration elapses, the breaker lets limited number of trial calls pass (half-open);
+ * it closes when all of them succeed and opens again on the first failure.
+ */
+public class CircuitBreaker {
+    private static final Logger logger = Logger.getLogger(CircuitBreaker.class.getName());
+
+    private final String name;
+    private final int failureRateThreshold;
+    private final int minimumCalls;
+    private final long openDurationNanos;
+    private final int halfOpenTrials;
+
+    private final boolean[] window;
+    private int windowIndex;
+    private int windowCalls;
+    private int windowFailures;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenInFlight;
+    private int halfOpenSuccesses;
+    private long rejectedCount;
+    private long openedCount;
+
+    /**
+     * @param name                 name of the breaker (used in logs and metrics)
+     * @param failureRateThreshold failure rate in percents which opens the breaker, zero or negative value disables the breaker
+     * @param windowSize           number of last calls the failure rate is computed from
+     * @param openDuration         time (in milliseconds) the breaker stays open before trial calls are permitted
+     * @param halfOpenTrials       number of successful trial calls which closes the breaker
+     */
+    public CircuitBreaker(String name, int failureRateThreshold, int windowSize, long openDuration, int halfOpenTrials) {
+        if (windowSize <= 0 || halfOpenTrials <= 0) {
+            throw new IllegalArgumentException("Window size and number of trials must be positive.");
+        }
+        this.name = name;
+        this.failureRateThreshold = failureRateThreshold;
+        this.minimumCalls = Math.max(1, windowSize / 2);
+        this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(openDuration);
+        this.halfOpenTrials = halfOpenTrials;
+        this.window = new boolean[windowSize];
+    }
+
+    /**
+     * Asks for permission to execute a call. Each permitted call must be followed by one of
+     * {@link #onSuccess()}, {@link #onFailure()} or {@link #onIgnored()}.
+     *
+     * @return true if the call may proceed, false if it should fail fast
+     */
+    public synchronized boolean tryAcquire() {
+        if (failureRateThreshold <= 0) {
+            return true;
+        }
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openDurationNanos) {
+                rejectedCount++;
+                return false;
+            }
+            state = State.HALF_OPEN;
+            halfOpenInFlight = 0;
+            halfOpenSuccesses = 0;
+            logger.info("Circuit breaker '" + name + "' is half-open, trial requests are permitted");
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenInFlight + halfOpenSuccesses >= halfOpenTrials) {
+                rejectedCount++;
+                return false;
+            }
+            halfOpenInFlight++;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.CLOSED) {
+            record(false);
+        } else if (state == State.HALF_OPEN) {
+            releaseTrial();
+            halfOpenSuccesses++;
+            if (halfOpenSuccesses >= halfOpenTrials) {
+                state = State.CLOSED;
+                resetWindow();
+                logger.info("Circuit breaker '" + name + "' is closed");
+            }
+        }
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.CLOSED) {
+            record(true);
+            if (failureRateThreshold > 0 && windowCalls >= minimumCalls && windowFailures * 100 >= failureRateThreshold * windowCalls) {
+                open();
+            }
+        } else if (state == State.HALF_OPEN) {
+            releaseTrial();
+            open();
+        }
+    }
+
+    /**
+     * Call completed with result which says nothing about the server health (e.g. authentication failure).
+     */
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN) {
+            releaseTrial();
+        }
+    }
+
+    public synchronized CircuitBreakerStatus getStatus() {
+        State currentState = state;
+        if (currentState == State.OPEN && System.nanoTime() - openedAt >= openDurationNanos) {
+            currentState = State.HALF_OPEN;
+        }
+        return new CircuitBreakerStatus(name, currentState, windowCalls, windowFailures, rejectedCount, openedCount);
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        openedCount++;
+        resetWindow();
+        logger.warning("Circuit breaker '" + name + "' is open, requests fail fast for " + TimeUnit.NANOSECONDS.toMillis(openDurationNanos) + " ms");
+    }
+
+    private void releaseTrial() {
+        if (halfOpenInFlight > 0) {
+            halfOpenInFlight--;
+        }
+    }
+
+    private void record(boolean failure) {
+        if (windowCalls == window.length) {
+            if (window[windowIndex]) {
+                windowFailures--;
+            }
+        } else {
+            windowCalls++;
+        }
+        window[windowIndex] = failure;
+        if (failure) {
+            windowFailures++;
+        }
+        windowIndex = (windowIndex + 1) % window.length;
+    }
+
+    private void resetWindow() {
+        windowIndex = 0;
+        windowCalls = 0;
+        windowFailures = 0;
+    }
+}
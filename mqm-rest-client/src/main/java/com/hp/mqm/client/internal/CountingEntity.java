@@ -0,0 +1,55 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hp.mqm.client.internal;
+
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.HttpEntityWrapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Request entity counting the bytes written by the last {@link #writeTo(OutputStream)}.
+ */
+public class CountingEntity extends HttpEntityWrapper {
+
+    private volatile long bytesWritten = -1;
+
+    public CountingEntity(HttpEntity wrappedEntity) {
+        super(wrappedEntity);
+    }
+
+    @Override
+    public void writeTo(OutputStream outstream) throws IOException {
+        CountingOutputStream counter = new CountingOutputStream(outstream);
+        try {
+            super.writeTo(counter);
+        } finally {
+            bytesWritten = counter.getByteCount();
+        }
+    }
+
+    /**
+     * @return bytes written by the last write, -1 if the entity was not written yet
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    public void reset() {
+        bytesWritten = -1;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client.internal;
+
+import java.net.URI;
+
+/**
+ * Groups of MQM endpoints which are expected to share the availability (served by the same server component).
+ */
+public enum EndpointFamily {
+
+    TEST_RESULTS("test-results", 2, true),
+    EVENTS("events", 0, false),
+    LOGS("logs", 2, true),
+    COVERAGE("coverage", 2, true),
+    TASKS("tasks", 0, false),
+    ENTITIES("entities", 1, false),
+    OTHER("other", 1, false);
+
+    /**
+     * Number of distinct priorities.
+     */
+    public static final int PRIORITIES = 3;
+
+    private final String name;
+    private final int priority;
+    private final boolean bulkTransfer;
+
+    EndpointFamily(String name, int priority, boolean bulkTransfer) {
+        this.name = name;
+        this.priority = priority;
+        this.bulkTransfer = bulkTransfer;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return priority of the requests, lower value is served first (events and task results have users waiting for them,
+     * uploads can wait)
+     */
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * @return true if the requests transfer large bodies, their duration depends on the size more than on the server load
+     */
+    public boolean isBulkTransfer() {
+        return bulkTransfer;
+    }
+
+    /**
+     * Determines family of the endpoint from the request URI.
+     *
+     * @param uri request URI
+     * @return endpoint family, never null
+     */
+    public static EndpointFamily of(URI uri) {
+        String path = uri.getPath();
+        if (path == null) {
+            return OTHER;
+        }
+        if (path.contains("/analytics/ci/test-results")) {
+            return TEST_RESULTS;
+        } else if (path.endsWith("/analytics/ci/events")) {
+            return EVENTS;
+        } else if (path.contains("/analytics/ci/coverage")) {
+            return COVERAGE;
+        } else if (path.contains("/analytics/ci/") && path.endsWith("/logs")) {
+            return LOGS;
+        } else if (path.contains("/analytics/ci/servers/") && path.contains("/tasks")) {
+            return TASKS;
+        } else if (path.contains("/api/shared_spaces/")) {
+            return ENTITIES;
+        } else {
+            return OTHER;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hp.mqm.client.internal;
+
+import com.hp.mqm.client.metrics.MetricsListener;
+import com.hp.mqm.client.metrics.RequestMetrics;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * {@link MetricsListener} isolating the client from failures of the configured listener, which is called from
+ * the request path (often from finally blocks). Failures are logged and otherwise ignored.
+ */
+public final class GuardedMetricsListener implements MetricsListener {
+    private static final Logger logger = Logger.getLogger(GuardedMetricsListener.class.getName());
+
+    private final MetricsListener listener;
+
+    public GuardedMetricsListener(MetricsListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Metrics listener cannot be null.");
+        }
+        this.listener = listener;
+    }
+
+    /**
+     * @return the guarded listener
+     */
+    public MetricsListener getListener() {
+        return listener;
+    }
+
+    @Override
+    public void onRequest(RequestMetrics metrics) {
+        try {
+            listener.onRequest(metrics);
+        } catch (RuntimeException e) {
+            logFailure(e);
+        }
+    }
+
+    @Override
+    public void onResponseBody(String endpoint, long bytes) {
+        try {
+            listener.onResponseBody(endpoint, bytes);
+        } catch (RuntimeException e) {
+            logFailure(e);
+        }
+    }
+
+    @Override
+    public void onCompression(String endpoint, long uncompressedBytes, long compressedBytes, long duration) {
+        try {
+            listener.onCompression(endpoint, uncompressedBytes, compressedBytes, duration);
+        } catch (RuntimeException e) {
+            logFailure(e);
+        }
+    }
+
+    @Override
+    public void onJsonParsing(String endpoint, long length, long duration) {
+        try {
+            listener.onJsonParsing(endpoint, length, duration);
+        } catch (RuntimeException e) {
+            logFailure(e);
+        }
+    }
+
+    @Override
+    public void onLogin(boolean relogin, boolean success, long duration) {
+        try {
+            listener.onLogin(relogin, success, duration);
+        } catch (RuntimeException e) {
+            logFailure(e);
+        }
+    }
+
+    private void logFailure(RuntimeException e) {
+        logger.log(Level.WARNING, "Metrics listener " + listener.getClass().getName() + " failed", e);
+    }
+}
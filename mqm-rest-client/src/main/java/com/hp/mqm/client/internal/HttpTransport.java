@@ -0,0 +1,145 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hp.mqm.client.internal;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.utils.HttpClientUtils;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP clients and connection pools of one Octane host. Transport can be shared by the clients of several tenants
+ * (shared spaces, users) of the host, it doesn't hold any session - each request carries the session of its client.
+ *
+ * Transport counts the tenants using it and it is closed when the last of them releases it. The pool of the long-poll
+ * requests grows with the number of tenants, so that the pollers of one tenant don't block the pollers of the others.
+ * The pool of the other requests is shared fairly, see {@link TenantShares}.
+ */
+public final class HttpTransport {
+
+    private final PoolingHttpClientConnectionManager pool;
+    private final CloseableHttpClient httpClient;
+    private final PoolingHttpClientConnectionManager taskPollingPool;
+    private final CloseableHttpClient taskPollingHttpClient;
+    private final RequestConfig requestConfig;
+    private final int taskPollingConnectionsPerTenant;
+    private final TenantShares tenantShares;
+
+    private int tenants;
+    private boolean closed;
+
+    /**
+     * @param pool                            connection pool of the requests
+     * @param httpClient                      client using the pool
+     * @param taskPollingPool                 connection pool of the long-poll requests
+     * @param taskPollingHttpClient           client using the long-poll pool
+     * @param requestConfig                   default configuration of the requests
+     * @param taskPollingConnectionsPerTenant long-poll connections added to the pool by each tenant
+     */
+    public HttpTransport(PoolingHttpClientConnectionManager pool, CloseableHttpClient httpClient,
+                         PoolingHttpClientConnectionManager taskPollingPool, CloseableHttpClient taskPollingHttpClient,
+                         RequestConfig requestConfig, int taskPollingConnectionsPerTenant) {
+        this.pool = pool;
+        this.httpClient = httpClient;
+        this.taskPollingPool = taskPollingPool;
+        this.taskPollingHttpClient = taskPollingHttpClient;
+        this.requestConfig = requestConfig;
+        this.taskPollingConnectionsPerTenant = taskPollingConnectionsPerTenant;
+        this.tenantShares = new TenantShares(pool.getMaxTotal());
+    }
+
+    public CloseableHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    public CloseableHttpClient getTaskPollingHttpClient() {
+        return taskPollingHttpClient;
+    }
+
+    public RequestConfig getRequestConfig() {
+        return requestConfig;
+    }
+
+    /**
+     * @return maximum number of connections of the requests (not counting the long-poll requests)
+     */
+    public int getMaxConnections() {
+        return pool.getMaxTotal();
+    }
+
+    /**
+     * @return shares of the tenants in the pool of the requests
+     */
+    public TenantShares getTenantShares() {
+        return tenantShares;
+    }
+
+    /**
+     * Registers new tenant using the transport.
+     *
+     * @throws IllegalStateException when the transport is already closed
+     */
+    public synchronized void retain() {
+        if (closed) {
+            throw new IllegalStateException("Transport is closed");
+        }
+        tenants++;
+        resizeTaskPollingPool();
+    }
+
+    /**
+     * Unregisters the tenant, the last one closes the transport.
+     *
+     * @return true if the transport was closed
+     */
+    public synchronized boolean release() {
+        if (closed || tenants == 0) {
+            throw new IllegalStateException("Transport is not retained");
+        }
+        tenants--;
+        if (tenants > 0) {
+            resizeTaskPollingPool();
+            return false;
+        }
+        closed = true;
+        HttpClientUtils.closeQuietly(httpClient);
+        HttpClientUtils.closeQuietly(taskPollingHttpClient);
+        return true;
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Closes pooled connections which were not used for given time.
+     */
+    public void closeIdleConnections(long idleTime, TimeUnit unit) {
+        pool.closeExpiredConnections();
+        pool.closeIdleConnections(idleTime, unit);
+        taskPollingPool.closeExpiredConnections();
+        taskPollingPool.closeIdleConnections(idleTime, unit);
+    }
+
+    private void resizeTaskPollingPool() {
+        int size = taskPollingConnectionsPerTenant * tenants;
+        taskPollingPool.setMaxTotal(size);
+        taskPollingPool.setDefaultMaxPerRoute(size);
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client.internal;
+
+import java.util.Arrays;
+
+/**
+ * Set of primitive longs keeping the insertion order. Uses open addressing (linear probing) over an int table
+ * of positions into the array of values, so no object is allocated per element.
+ */
+public class LongHashSet {
+
+    private static final int MIN_CAPACITY = 8;
+
+    private long[] values;
+    private int[] table;       // position of the value + 1, zero marks empty slot
+    private int size;
+
+    public LongHashSet() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize expected number of elements
+     */
+    public LongHashSet(int expectedSize) {
+        int capacity = Math.max(MIN_CAPACITY, expectedSize);
+        values = new long[capacity];
+        table = new int[tableSize(capacity)];
+    }
+
+    /**
+     * @param ids values to deduplicate
+     * @return distinct values in the order of their first occurrence
+     */
+    public static long[] distinct(long[] ids) {
+        LongHashSet set = new LongHashSet(ids.length);
+        for (long id : ids) {
+            set.add(id);
+        }
+        return set.size == ids.length ? ids : set.toArray();
+    }
+
+    /**
+     * @param value value to add
+     * @return true if the value was not present yet
+     */
+    public boolean add(long value) {
+        int slot = find(value);
+        if (table[slot] != 0) {
+            return false;
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+        table[slot] = size;
+        if (size * 2 > table.length) {
+            rehash();
+        }
+        return true;
+    }
+
+    public boolean contains(long value) {
+        return table[find(value)] != 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index position in the insertion order
+     * @return value at the position
+     */
+    public long get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+        }
+        return values[index];
+    }
+
+    /**
+     * @return values in the insertion order
+     */
+    public long[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    private int find(long value) {
+        int mask = table.length - 1;
+        int slot = hash(value) & mask;
+        while (table[slot] != 0 && values[table[slot] - 1] != value) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash() {
+        table = new int[table.length * 2];
+        int mask = table.length - 1;
+        for (int i = 0; i < size; i++) {
+            int slot = hash(values[i]) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = i + 1;
+        }
+    }
+
+    private static int hash(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int tableSize(int capacity) {
+        // power of two, load factor at most 0.5
+        return Integer.highestOneBit(capacity * 2 - 1) * 2;
+    }
+}
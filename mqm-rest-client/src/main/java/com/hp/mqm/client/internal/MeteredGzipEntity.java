@@ -0,0 +1,51 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hp.mqm.client.internal;
+
+import com.hp.mqm.client.metrics.MetricsListener;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.entity.GzipCompressingEntity;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip compressing entity reporting sizes of the content before and after compression to the {@link MetricsListener}.
+ */
+public class MeteredGzipEntity extends GzipCompressingEntity {
+
+    private final MetricsListener listener;
+    private final String endpoint;
+
+    public MeteredGzipEntity(HttpEntity entity, MetricsListener listener, String endpoint) {
+        super(entity);
+        this.listener = listener;
+        this.endpoint = endpoint;
+    }
+
+    @Override
+    public void writeTo(OutputStream outstream) throws IOException {
+        long start = System.nanoTime();
+        CountingOutputStream compressed = new CountingOutputStream(outstream);
+        GZIPOutputStream gzip = new GZIPOutputStream(compressed);
+        CountingOutputStream uncompressed = new CountingOutputStream(gzip);
+        wrappedEntity.writeTo(uncompressed);
+        // only close output stream if the wrapped entity has been successfully written out
+        gzip.close();
+        listener.onCompression(endpoint, uncompressed.getByteCount(), compressed.getByteCount(), System.nanoTime() - start);
+    }
+}
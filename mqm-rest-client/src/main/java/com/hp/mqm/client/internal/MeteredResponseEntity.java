@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hp.mqm.client.internal;
+
+import com.hp.mqm.client.metrics.MetricsListener;
+import org.apache.commons.io.input.ProxyInputStream;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.HttpEntityWrapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Response entity reporting size of the body to the {@link MetricsListener} once the body is read to the end or closed.
+ */
+public class MeteredResponseEntity extends HttpEntityWrapper {
+
+    private final MetricsListener listener;
+    private final String endpoint;
+
+    public MeteredResponseEntity(HttpEntity wrappedEntity, MetricsListener listener, String endpoint) {
+        super(wrappedEntity);
+        this.listener = listener;
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * @return URI template of the endpoint which returned the response
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+        return new ProxyInputStream(super.getContent()) {
+            private long bytes;
+            private boolean reported;
+
+            @Override
+            protected void afterRead(int n) {
+                if (n > 0) {
+                    bytes += n;
+                } else if (n < 0) {
+                    report();
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    report();
+                }
+            }
+
+            private void report() {
+                if (!reported) {
+                    reported = true;
+                    listener.onResponseBody(endpoint, bytes);
+                }
+            }
+        };
+    }
+}
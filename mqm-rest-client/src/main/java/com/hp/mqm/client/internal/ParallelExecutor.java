@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client.internal;
+
+import com.hp.mqm.client.exception.RequestErrorException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a batch of requests with bounded parallelism. Threads live only for the duration of the batch.
+ */
+public final class ParallelExecutor {
+
+    private ParallelExecutor() {
+    }
+
+    /**
+     * Executes all the tasks and waits until all of them are completed.
+     *
+     * @param tasks       tasks to execute
+     * @param parallelism maximum number of tasks executed at the same time
+     * @param name        name used for the worker threads
+     * @return completed futures in the order of the tasks
+     */
+    public static <T> List<Future<T>> invokeAll(List<? extends Callable<T>> tasks, int parallelism, String name) {
+        if (tasks.size() <= 1 || parallelism <= 1) {
+            List<Future<T>> futures = new ArrayList<>(tasks.size());
+            for (Callable<T> task : tasks) {
+                FutureTask<T> future = new FutureTask<>(task);
+                future.run();
+                futures.add(future);
+            }
+            return futures;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, tasks.size()), new DaemonThreadFactory(name));
+        try {
+            return executor.invokeAll(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RequestErrorException("Interrupted while waiting for " + name, e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    public static class DaemonThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+        private final String name;
+
+        public DaemonThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
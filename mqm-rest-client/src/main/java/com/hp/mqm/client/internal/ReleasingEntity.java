@@ -0,0 +1,119 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hp.mqm.client.internal;
+
+import org.apache.commons.io.input.ProxyInputStream;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.entity.HttpEntityWrapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Response entity invoking the callback once the body is read to the end, closed or written out, that is when
+ * the connection of the response is returned to the pool. Callback releases what the request holds for its whole
+ * duration (e.g. concurrency permit), it is invoked at most once.
+ */
+public class ReleasingEntity extends HttpEntityWrapper {
+
+    private final Runnable callback;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    public ReleasingEntity(HttpEntity wrappedEntity, Runnable callback) {
+        super(wrappedEntity);
+        this.callback = callback;
+    }
+
+    /**
+     * Invokes the callback when the body of the response is consumed, right away if the response has no body
+     * to stream.
+     *
+     * @param response response to watch
+     * @param callback callback to invoke
+     */
+    public static void releaseWhenConsumed(HttpResponse response, Runnable callback) {
+        HttpEntity entity = response.getEntity();
+        if (entity != null && entity.isStreaming()) {
+            response.setEntity(new ReleasingEntity(entity, callback));
+        } else {
+            callback.run();
+        }
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+        InputStream content;
+        try {
+            content = super.getContent();
+        } catch (IOException | RuntimeException e) {
+            release();
+            throw e;
+        }
+        if (content == null) {
+            release();
+            return null;
+        }
+        return new ProxyInputStream(content) {
+            @Override
+            protected void afterRead(int n) {
+                if (n < 0) {
+                    release();
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    release();
+                }
+            }
+        };
+    }
+
+    @Override
+    public void writeTo(OutputStream outstream) throws IOException {
+        try {
+            super.writeTo(outstream);
+        } finally {
+            release();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public void consumeContent() throws IOException {
+        try {
+            super.consumeContent();
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Invokes the callback unless it was already invoked.
+     */
+    public void release() {
+        if (released.compareAndSet(false, true)) {
+            callback.run();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hp.mqm.client.internal;
+
+/**
+ * Measurements collected during execution of one request attempt on the current thread
+ * (the blocking client executes the whole request on the calling thread). Instance is reused by the thread.
+ */
+public final class RequestTrace {
+
+    private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<RequestTrace>() {
+        @Override
+        protected RequestTrace initialValue() {
+            return new RequestTrace();
+        }
+    };
+
+    private long poolWait;
+    private boolean relogin;
+
+    private RequestTrace() {
+    }
+
+    public static RequestTrace current() {
+        return CURRENT.get();
+    }
+
+    public void reset() {
+        poolWait = 0;
+        relogin = false;
+    }
+
+    public void addPoolWait(long nanos) {
+        poolWait += nanos;
+    }
+
+    public long getPoolWait() {
+        return poolWait;
+    }
+
+    public void setRelogin() {
+        relogin = true;
+    }
+
+    public boolean isRelogin() {
+        return relogin;
+    }
+}
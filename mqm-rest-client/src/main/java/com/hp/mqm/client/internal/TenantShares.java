@@ -0,0 +1,109 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hp.mqm.client.internal;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fair sharing of the connection pool by the tenants of one {@link HttpTransport}. Each tenant with requests in flight
+ * (active tenant) can hold its share of the pool: pool size divided by the number of the active tenants. Single busy
+ * tenant is not limited (its requests wait for the connections in the pool), once other tenants become active,
+ * the requests of the busy tenant wait until it drops below its share.
+ */
+public final class TenantShares {
+
+    private final int maxConnections;
+    private final Map<Object, Integer> inFlight = new IdentityHashMap<>();
+
+    /**
+     * @param maxConnections size of the shared pool
+     */
+    public TenantShares(int maxConnections) {
+        if (maxConnections <= 0) {
+            throw new IllegalArgumentException("Maximum connections must be positive.");
+        }
+        this.maxConnections = maxConnections;
+    }
+
+    /**
+     * Acquires a connection of the share of the tenant, waits until the tenant is within its share.
+     *
+     * @param tenant       tenant (compared by identity)
+     * @param maxPerTenant maximum number of connections of the tenant regardless of its share, zero for no cap
+     * @param timeout      maximum time (in milliseconds) to wait
+     * @return true if acquired, false if the timeout elapsed
+     * @throws InterruptedException when interrupted while waiting
+     */
+    public synchronized boolean acquire(Object tenant, int maxPerTenant, long timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        while (true) {
+            Integer current = inFlight.get(tenant);
+            int held = current != null ? current : 0;
+            int activeTenants = current != null ? inFlight.size() : inFlight.size() + 1;
+            if (held < getShare(activeTenants, maxPerTenant)) {
+                inFlight.put(tenant, held + 1);
+                return true;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+    }
+
+    /**
+     * Returns a connection acquired by {@link #acquire(Object, int, long)}.
+     *
+     * @param tenant tenant (compared by identity)
+     */
+    public synchronized void release(Object tenant) {
+        Integer current = inFlight.get(tenant);
+        if (current == null) {
+            throw new IllegalStateException("Tenant holds no connection");
+        }
+        if (current > 1) {
+            inFlight.put(tenant, current - 1);
+        } else {
+            inFlight.remove(tenant);
+        }
+        // share of the others may have grown
+        notifyAll();
+    }
+
+    /**
+     * @return number of connections held by the tenant
+     */
+    public synchronized int getInFlight(Object tenant) {
+        Integer current = inFlight.get(tenant);
+        return current != null ? current : 0;
+    }
+
+    /**
+     * @return number of the tenants with requests in flight
+     */
+    public synchronized int getActiveTenants() {
+        return inFlight.size();
+    }
+
+    private int getShare(int activeTenants, int maxPerTenant) {
+        int share = activeTenants > 1 ? Math.max(1, maxConnections / activeTenants) : Integer.MAX_VALUE;
+        return maxPerTenant > 0 ? Math.min(share, maxPerTenant) : share;
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hp.mqm.client.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Default {@link MetricsListener} keeping the metrics in memory. Counters are lock-free, recording a request
+ * doesn't allocate once its endpoint and status code were seen.
+ */
+public class InMemoryMetrics implements MetricsListener {
+
+    private static final int MAX_STATUS_CODE = 599;
+
+    private final ConcurrentMap<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+    private final AtomicLong logins = new AtomicLong();
+    private final AtomicLong relogins = new AtomicLong();
+    private final AtomicLong loginFailures = new AtomicLong();
+    private final LatencyHistogram loginLatency = new LatencyHistogram();
+
+    @Override
+    public void onRequest(RequestMetrics metrics) {
+        EndpointMetrics endpoint = getEndpoint(metrics.getEndpoint());
+        endpoint.latency.record(metrics.getDuration());
+        endpoint.statusCounts.incrementAndGet(statusIndex(metrics.getStatusCode()));
+        if (metrics.getRequestBytes() > 0) {
+            endpoint.requestBytes.addAndGet(metrics.getRequestBytes());
+        }
+        if (metrics.getAttempt() > 1) {
+            endpoint.retries.incrementAndGet();
+        }
+        endpoint.poolWait.addAndGet(metrics.getPoolWait());
+    }
+
+    @Override
+    public void onResponseBody(String endpoint, long bytes) {
+        getEndpoint(endpoint).responseBytes.addAndGet(bytes);
+    }
+
+    @Override
+    public void onCompression(String endpoint, long uncompressedBytes, long compressedBytes, long duration) {
+        EndpointMetrics metrics = getEndpoint(endpoint);
+        metrics.uncompressedBytes.addAndGet(uncompressedBytes);
+        metrics.compressedBytes.addAndGet(compressedBytes);
+        metrics.compression.record(duration);
+    }
+
+    @Override
+    public void onJsonParsing(String endpoint, long length, long duration) {
+        getEndpoint(endpoint).parsing.record(duration);
+    }
+
+    @Override
+    public void onLogin(boolean relogin, boolean success, long duration) {
+        logins.incrementAndGet();
+        if (relogin) {
+            relogins.incrementAndGet();
+        }
+        if (!success) {
+            loginFailures.incrementAndGet();
+        }
+        loginLatency.record(duration);
+    }
+
+    /**
+     * @return metrics by the endpoint URI template
+     */
+    public Map<String, EndpointMetrics> getEndpoints() {
+        return Collections.unmodifiableMap(endpoints);
+    }
+
+    public long getLogins() {
+        return logins.get();
+    }
+
+    /**
+     * @return number of logins caused by expired session
+     */
+    public long getRelogins() {
+        return relogins.get();
+    }
+
+    public long getLoginFailures() {
+        return loginFailures.get();
+    }
+
+    public LatencyHistogram getLoginLatency() {
+        return loginLatency;
+    }
+
+    private static int statusIndex(int statusCode) {
+        return statusCode < 0 || statusCode > MAX_STATUS_CODE ? 0 : statusCode + 1;
+    }
+
+    private EndpointMetrics getEndpoint(String endpoint) {
+        EndpointMetrics metrics = endpoints.get(endpoint);
+        if (metrics == null) {
+            EndpointMetrics created = new EndpointMetrics();
+            metrics = endpoints.putIfAbsent(endpoint, created);
+            if (metrics == null) {
+                metrics = created;
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * Metrics of one endpoint
+     */
+    public static class EndpointMetrics {
+
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LatencyHistogram compression = new LatencyHistogram();
+        private final LatencyHistogram parsing = new LatencyHistogram();
+        private final AtomicLongArray statusCounts = new AtomicLongArray(MAX_STATUS_CODE + 2);
+        private final AtomicLong requestBytes = new AtomicLong();
+        private final AtomicLong responseBytes = new AtomicLong();
+        private final AtomicLong uncompressedBytes = new AtomicLong();
+        private final AtomicLong compressedBytes = new AtomicLong();
+        private final AtomicLong retries = new AtomicLong();
+        private final AtomicLong poolWait = new AtomicLong();
+
+        /**
+         * @return latency of the requests (until the response headers are received)
+         */
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        /**
+         * @return number of requests by the status code, -1 stands for requests without response
+         */
+        public Map<Integer, Long> getStatusCounts() {
+            Map<Integer, Long> counts = new TreeMap<>();
+            for (int i = 0; i < statusCounts.length(); i++) {
+                long count = statusCounts.get(i);
+                if (count > 0) {
+                    counts.put(i - 1, count);
+                }
+            }
+            return counts;
+        }
+
+        /**
+         * @return time spent compressing the request bodies
+         */
+        public LatencyHistogram getCompression() {
+            return compression;
+        }
+
+        /**
+         * @return time spent parsing JSON of the response bodies
+         */
+        public LatencyHistogram getParsing() {
+            return parsing;
+        }
+
+        public long getRequestBytes() {
+            return requestBytes.get();
+        }
+
+        public long getResponseBytes() {
+            return responseBytes.get();
+        }
+
+        /**
+         * @return ratio of the uncompressed and compressed size of the request bodies, 0 if nothing was compressed
+         */
+        public double getCompressionRatio() {
+            long compressed = compressedBytes.get();
+            return compressed > 0 ? (double) uncompressedBytes.get() / compressed : 0;
+        }
+
+        public long getRetries() {
+            return retries.get();
+        }
+
+        /**
+         * @return total time (in nanoseconds) the requests waited for a connection from the pool
+         */
+        public long getPoolWait() {
+            return poolWait.get();
+        }
+    }
+}
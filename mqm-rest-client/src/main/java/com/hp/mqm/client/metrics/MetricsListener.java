@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hp.mqm.client.metrics;
+
+/**
+ * Receives measurements of the client activity. Implementation must be thread-safe and fast, it is called
+ * synchronously from the threads executing the requests.
+ *
+ * Endpoints are identified by their URI templates (e.g. 'analytics/ci/servers/{0}/jobs/{1}/configuration'),
+ * not by the actual URLs, so that the number of distinct endpoints stays small.
+ */
+public interface MetricsListener {
+
+    /**
+     * Called when the response headers of the request are received or when the request fails (one call per attempt).
+     *
+     * @param metrics measurements of the request
+     */
+    void onRequest(RequestMetrics metrics);
+
+    /**
+     * Called when the response body was consumed.
+     *
+     * @param endpoint URI template of the endpoint
+     * @param bytes    number of bytes read from the response body
+     */
+    void onResponseBody(String endpoint, long bytes);
+
+    /**
+     * Called when the request body was compressed.
+     *
+     * @param endpoint          URI template of the endpoint
+     * @param uncompressedBytes size of the body before compression
+     * @param compressedBytes   size of the body after compression
+     * @param duration          duration of the compression in nanoseconds (bodies compressed while being sent
+     *                          include the time of sending)
+     */
+    void onCompression(String endpoint, long uncompressedBytes, long compressedBytes, long duration);
+
+    /**
+     * Called when JSON of the response body was parsed (and converted to the model where applicable).
+     *
+     * @param endpoint URI template of the endpoint, empty if not known
+     * @param length   length of the parsed JSON in characters
+     * @param duration duration of the parsing in nanoseconds
+     */
+    void onJsonParsing(String endpoint, long length, long duration);
+
+    /**
+     * Called when authentication completes.
+     *
+     * @param relogin  true if it was caused by expired session
+     * @param success  true if the authentication succeeded
+     * @param duration duration of the authentication in nanoseconds
+     */
+    void onLogin(boolean relogin, boolean success, long duration);
+}
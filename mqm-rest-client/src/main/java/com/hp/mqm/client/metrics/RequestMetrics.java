@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hp.mqm.client.metrics;
+
+/**
+ * Measurements of one attempt of a request
+ */
+final public class RequestMetrics {
+
+    final private String endpoint;
+    final private String method;
+    final private int statusCode;
+    final private long duration;
+    final private long requestBytes;
+    final private long responseContentLength;
+    final private int attempt;
+    final private boolean relogin;
+    final private long poolWait;
+
+    public RequestMetrics(String endpoint, String method, int statusCode, long duration, long requestBytes, long responseContentLength,
+                          int attempt, boolean relogin, long poolWait) {
+        this.endpoint = endpoint;
+        this.method = method;
+        this.statusCode = statusCode;
+        this.duration = duration;
+        this.requestBytes = requestBytes;
+        this.responseContentLength = responseContentLength;
+        this.attempt = attempt;
+        this.relogin = relogin;
+        this.poolWait = poolWait;
+    }
+
+    /**
+     * @return URI template of the endpoint
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * @return HTTP status code, -1 if no response was received (IO error, request rejected by the client)
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * @return time (in nanoseconds) from the start of the attempt until the response headers were received
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    /**
+     * @return number of request body bytes sent (after compression)
+     */
+    public long getRequestBytes() {
+        return requestBytes;
+    }
+
+    /**
+     * @return content length of the response, -1 if unknown (the actual size is reported by {@link MetricsListener#onResponseBody})
+     */
+    public long getResponseContentLength() {
+        return responseContentLength;
+    }
+
+    /**
+     * @return number of the attempt, greater than 1 for retries
+     */
+    public int getAttempt() {
+        return attempt;
+    }
+
+    /**
+     * @return true if the session expired and the client logged in again during the request
+     */
+    public boolean isRelogin() {
+        return relogin;
+    }
+
+    /**
+     * @return time (in nanoseconds) spent waiting for a connection from the pool
+     */
+    public long getPoolWait() {
+        return poolWait;
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client.model;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Result of the batch of requests, failure of one request doesn't fail the others
+ */
+final public class BatchResult<K, V> {
+
+    final private Map<K, V> results;
+    final private Map<K, RuntimeException> errors;
+
+    public BatchResult(Map<K, V> results, Map<K, RuntimeException> errors) {
+        this.results = Collections.unmodifiableMap(results);
+        this.errors = Collections.unmodifiableMap(errors);
+    }
+
+    /**
+     * @return results of the successful requests by the key
+     */
+    public Map<K, V> getResults() {
+        return results;
+    }
+
+    /**
+     * @return errors of the failed requests by the key
+     */
+    public Map<K, RuntimeException> getErrors() {
+        return errors;
+    }
+
+    public boolean isSuccessful() {
+        return errors.isEmpty();
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Aggregated result of the bulk write of entities
+ */
+final public class BulkWriteResult {
+
+    final private List<Long> ids;
+    final private List<ChunkError> errors;
+    final private int entityCount;
+
+    public BulkWriteResult(List<Long> ids, List<ChunkError> errors, int entityCount) {
+        this.ids = Collections.unmodifiableList(ids);
+        this.errors = Collections.unmodifiableList(errors);
+        this.entityCount = entityCount;
+    }
+
+    /**
+     * @return IDs of the entities written successfully, in the order of the input
+     */
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    /**
+     * @return errors of the chunks which failed
+     */
+    public List<ChunkError> getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return number of entities submitted
+     */
+    public int getEntityCount() {
+        return entityCount;
+    }
+
+    public boolean isSuccessful() {
+        return errors.isEmpty();
+    }
+
+    /**
+     * Failure of one chunk of entities
+     */
+    final public static class ChunkError {
+
+        final private int offset;
+        final private int size;
+        final private RuntimeException exception;
+
+        public ChunkError(int offset, int size, RuntimeException exception) {
+            this.offset = offset;
+            this.size = size;
+            this.exception = exception;
+        }
+
+        /**
+         * @return position of the first entity of the chunk in the input
+         */
+        public int getOffset() {
+            return offset;
+        }
+
+        /**
+         * @return number of entities in the chunk
+         */
+        public int getSize() {
+            return size;
+        }
+
+        public RuntimeException getException() {
+            return exception;
+        }
+    }
+}
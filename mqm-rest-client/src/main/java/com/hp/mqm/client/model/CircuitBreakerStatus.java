@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client.model;
+
+/**
+ * Snapshot of the circuit breaker guarding one endpoint family
+ */
+final public class CircuitBreakerStatus {
+
+    public enum State {
+        /** requests pass */
+        CLOSED,
+        /** requests fail fast */
+        OPEN,
+        /** limited number of trial requests pass */
+        HALF_OPEN
+    }
+
+    final private String name;
+    final private State state;
+    final private int windowCalls;
+    final private int windowFailures;
+    final private long rejectedCount;
+    final private long openedCount;
+
+    public CircuitBreakerStatus(String name, State state, int windowCalls, int windowFailures, long rejectedCount, long openedCount) {
+        this.name = name;
+        this.state = state;
+        this.windowCalls = windowCalls;
+        this.windowFailures = windowFailures;
+        this.rejectedCount = rejectedCount;
+        this.openedCount = openedCount;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * @return number of calls in the sliding window
+     */
+    public int getWindowCalls() {
+        return windowCalls;
+    }
+
+    /**
+     * @return number of failed calls in the sliding window
+     */
+    public int getWindowFailures() {
+        return windowFailures;
+    }
+
+    /**
+     * @return number of requests rejected because the breaker was open
+     */
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    /**
+     * @return number of times the breaker opened
+     */
+    public long getOpenedCount() {
+        return openedCount;
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2017 Hewlett-Packard Development Company, L.P.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hp.mqm.client.model;
+
+import com.hp.mqm.client.InputStreamSource;
+
+/**
+ * Coverage report to be submitted together with other reports of the same build
+ */
+final public class CoverageReport {
+
+    final private InputStreamSource inputStreamSource;
+    final private String reportType;
+
+    /**
+     * @param inputStreamSource source of the report content
+     * @param reportType        jacoco or lcov type
+     */
+    public CoverageReport(InputStreamSource inputStreamSource, String reportType) {
+        this.inputStreamSource = inputStreamSource;
+        this.reportType = reportType;
+    }
+
+    public InputStreamSource getInputStreamSource() {
+        return inputStreamSource;
+    }
+
+    public String getReportType() {
+        return reportType;
+    }
+}
@@ -60,6 +60,20 @@ final public class Entity {
         return entityObject.containsKey(fieldName);
     }
 
+    /**
+     * @return copy of the JSON representation of the entity as received from Octane
+     */
+    public JSONObject toJSON() {
+        return JSONObject.fromObject(entityObject);
+    }
+
+    /**
+     * @return JSON representation of the entity as received from Octane, serialized
+     */
+    public String toJSONString() {
+        return entityObject.toString();
+    }
+
     @Override
     public String toString() {
         return "#" + getId() + " - " + getName();